@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package iq.benchmarks;
+
+import com.jsoniter.JsonIterator;
+import org.rumbledb.api.Item;
+
+import sparksoniq.io.json.JiqsItemParser;
+import sparksoniq.jsoniq.compiler.translator.metadata.ExpressionMetadata;
+import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Synthetic JSON Lines records for the benchmarks, generated with a fixed seed so that all runs measure the
+ * same input. There are three shapes of records:
+ * - wide: flat objects with 50 keys of mixed types,
+ * - nested: objects nested 6 levels deep, with small arrays at every level,
+ * - numeric: objects with a few integer, decimal and double values, as in measurements or transactions.
+ */
+public class BenchmarkData {
+
+    public static final String WIDE = "wide";
+    public static final String NESTED = "nested";
+    public static final String NUMERIC = "numeric";
+    public static final int RECORDS = 1000;
+    public static final IteratorMetadata METADATA = new IteratorMetadata(new ExpressionMetadata(0, 0));
+
+    private static final int WIDE_KEYS = 50;
+    private static final int NESTING_DEPTH = 6;
+    private static final String[] WORDS = {"alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel"};
+
+    /**
+     * @param shape wide, nested or numeric
+     * @return the UTF-8 bytes of RECORDS records of this shape, one per line of a JSON Lines file
+     */
+    public static byte[][] generateLines(String shape) {
+        Random random = new Random(42);
+        byte[][] result = new byte[RECORDS][];
+        for (int record = 0; record < RECORDS; ++record) {
+            StringBuilder line = new StringBuilder();
+            switch (shape) {
+                case WIDE:
+                    appendWideRecord(line, record, random);
+                    break;
+                case NESTED:
+                    appendNestedRecord(line, record, NESTING_DEPTH, random);
+                    break;
+                case NUMERIC:
+                    appendNumericRecord(line, record, random);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown shape of records: " + shape);
+            }
+            result[record] = line.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+
+    /**
+     * @param shape wide, nested or numeric
+     * @return RECORDS records of this shape, parsed into object items
+     */
+    public static List<Item> generateItems(String shape) {
+        JsonIterator object = JsonIterator.parse(new byte[0]);
+        List<Item> result = new ArrayList<>(RECORDS);
+        for (byte[] line : generateLines(shape)) {
+            object.reset(line);
+            result.add(JiqsItemParser.getItemFromObject(object, METADATA));
+        }
+        return result;
+    }
+
+    private static void appendWideRecord(StringBuilder line, int record, Random random) {
+        line.append("{\"id\" : ").append(record);
+        for (int key = 1; key < WIDE_KEYS; ++key) {
+            line.append(", \"field").append(key).append("\" : ");
+            switch (key % 5) {
+                case 0:
+                    appendString(line, random);
+                    break;
+                case 1:
+                    line.append(random.nextInt(100000));
+                    break;
+                case 2:
+                    line.append(random.nextInt(100000) / 100.0);
+                    break;
+                case 3:
+                    line.append(random.nextBoolean());
+                    break;
+                default:
+                    line.append(random.nextInt(10) == 0 ? "null" : "\"" + WORDS[random.nextInt(WORDS.length)] + "\"");
+            }
+        }
+        line.append("}");
+    }
+
+    private static void appendNestedRecord(StringBuilder line, int record, int depth, Random random) {
+        line.append("{\"id\" : ").append(record);
+        line.append(", \"name\" : ");
+        appendString(line, random);
+        line.append(", \"tags\" : [");
+        for (int tag = 0; tag < 3; ++tag) {
+            if (tag > 0) {
+                line.append(", ");
+            }
+            line.append("\"").append(WORDS[random.nextInt(WORDS.length)]).append("\"");
+        }
+        line.append("]");
+        if (depth > 1) {
+            line.append(", \"child\" : ");
+            appendNestedRecord(line, random.nextInt(1000), depth - 1, random);
+        }
+        line.append("}");
+    }
+
+    private static void appendNumericRecord(StringBuilder line, int record, Random random) {
+        line.append("{\"id\" : ").append(record);
+        line.append(", \"sensor\" : ").append(random.nextInt(100));
+        line.append(", \"quantity\" : ").append(random.nextInt(1000));
+        line.append(", \"price\" : ").append(random.nextInt(100000) / 100.0);
+        line.append(", \"temperature\" : ").append(String.format(Locale.ROOT, "%.3e", random.nextGaussian() * 30));
+        line.append(", \"x\" : ").append(random.nextDouble());
+        line.append(", \"y\" : ").append(random.nextDouble());
+        line.append("}");
+    }
+
+    private static void appendString(StringBuilder line, Random random) {
+        line.append("\"");
+        for (int word = 0; word < 3; ++word) {
+            if (word > 0) {
+                line.append(" ");
+            }
+            line.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        line.append("\"");
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+
+package iq.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.rumbledb.api.Item;
+
+import sparksoniq.jsoniq.item.ItemFactory;
+import sparksoniq.jsoniq.tuple.FlworKey;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares and hashes the keys of order by and group by clauses, made of an item of the given type followed by an
+ * integer, as in "order by $x.name, $x.id". The throughput is in keys per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FlworKeyBenchmark {
+
+    @Param({"string", "integer", "decimal", "double"})
+    public String keyType;
+
+    private FlworKey[] _keys;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        _keys = new FlworKey[BenchmarkData.RECORDS];
+        for (int i = 0; i < _keys.length; ++i) {
+            List<Item> keyItems = new ArrayList<>(2);
+            // few distinct values, so that comparisons often need the second item
+            int value = random.nextInt(100);
+            switch (keyType) {
+                case "string":
+                    keyItems.add(ItemFactory.getInstance().createStringItem("customer-" + value));
+                    break;
+                case "integer":
+                    keyItems.add(ItemFactory.getInstance().createIntegerItem(value));
+                    break;
+                case "decimal":
+                    keyItems.add(ItemFactory.getInstance().createDecimalItem(BigDecimal.valueOf(value, 2)));
+                    break;
+                case "double":
+                    keyItems.add(ItemFactory.getInstance().createDoubleItem(value / 3.0));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown key type: " + keyType);
+            }
+            keyItems.add(ItemFactory.getInstance().createIntegerItem(random.nextInt(100000)));
+            _keys[i] = new FlworKey(keyItems);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.RECORDS)
+    public void compareWithFlworKey(Blackhole blackhole) {
+        FlworKey previousKey = _keys[_keys.length - 1];
+        for (FlworKey key : _keys) {
+            blackhole.consume(key.compareWithFlworKey(previousKey));
+            previousKey = key;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.RECORDS)
+    public void hashFlworKey(Blackhole blackhole) {
+        for (FlworKey key : _keys) {
+            blackhole.consume(key.hashCode());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+
+package iq.benchmarks;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
+import org.apache.spark.sql.types.DataTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.rumbledb.api.Item;
+
+import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
+import sparksoniq.jsoniq.runtime.iterator.postfix.ObjectLookupIterator;
+import sparksoniq.jsoniq.runtime.iterator.primary.StringRuntimeIterator;
+import sparksoniq.jsoniq.runtime.iterator.primary.VariableReferenceIterator;
+import sparksoniq.semantics.DynamicContext;
+import sparksoniq.semantics.types.SequenceType;
+import sparksoniq.spark.DataFrameUtils;
+import sparksoniq.spark.udf.ForClauseUDF;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates the expression of a for clause that follows another for clause over the rows of its DataFrame:
+ * "for $i in ... for $j in $i.id" and "for $i in ... for $j in $i", which deserializes the row, evaluates the
+ * expression and serializes its result. The throughput is in rows per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ForClauseUDFBenchmark {
+
+    @Param({BenchmarkData.WIDE, BenchmarkData.NESTED, BenchmarkData.NUMERIC})
+    public String shape;
+
+    private List<Row> _rows;
+    private ForClauseUDF _lookupUDF;
+    private ForClauseUDF _variableUDF;
+
+    @Setup
+    public void setup() {
+        Kryo kryo = new Kryo();
+        kryo.setReferences(false);
+        DataFrameUtils.registerKryoClassesKryo(kryo);
+        Output output = new Output(128, -1);
+
+        _rows = new ArrayList<>();
+        for (Item item : BenchmarkData.generateItems(shape)) {
+            List<Item> sequence = new ArrayList<>(1);
+            sequence.add(item);
+            _rows.add(RowFactory.create((Object) DataFrameUtils.serializeItemList(sequence, kryo, output)));
+        }
+
+        List<String> columnNames = Collections.singletonList("$i");
+        RuntimeIterator lookup = new ObjectLookupIterator(
+                new VariableReferenceIterator("i", new SequenceType(), BenchmarkData.METADATA),
+                new StringRuntimeIterator("id", BenchmarkData.METADATA),
+                BenchmarkData.METADATA);
+        _lookupUDF = new ForClauseUDF(lookup, new DynamicContext(), columnNames, DataTypes.BinaryType);
+        RuntimeIterator variable = new VariableReferenceIterator("i", new SequenceType(), BenchmarkData.METADATA);
+        _variableUDF = new ForClauseUDF(variable, new DynamicContext(), columnNames, DataTypes.BinaryType);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.RECORDS)
+    public void callWithObjectLookup(Blackhole blackhole) {
+        for (Row row : _rows) {
+            blackhole.consume(_lookupUDF.call(row));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.RECORDS)
+    public void callWithVariableReference(Blackhole blackhole) {
+        for (Row row : _rows) {
+            blackhole.consume(_variableUDF.call(row));
+        }
+    }
+}
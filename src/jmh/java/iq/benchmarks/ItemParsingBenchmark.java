@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+
+package iq.benchmarks;
+
+import com.jsoniter.JsonIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import sparksoniq.io.json.JiqsItemParser;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses JSON Lines records into items as json-file() does, with all keys and with a projection on two keys.
+ * The throughput is in records per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ItemParsingBenchmark {
+
+    @Param({BenchmarkData.WIDE, BenchmarkData.NESTED, BenchmarkData.NUMERIC})
+    public String shape;
+
+    private byte[][] _lines;
+    private Set<String> _projectedKeys;
+    private JsonIterator _object;
+
+    @Setup
+    public void setup() {
+        _lines = BenchmarkData.generateLines(shape);
+        _projectedKeys = new HashSet<>(Arrays.asList("id", shape.equals(BenchmarkData.NUMERIC) ? "price" : "name"));
+        _object = JsonIterator.parse(new byte[0]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.RECORDS)
+    public void parseAllKeys(Blackhole blackhole) {
+        for (byte[] line : _lines) {
+            _object.reset(line);
+            blackhole.consume(JiqsItemParser.getItemFromObject(_object, BenchmarkData.METADATA));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.RECORDS)
+    public void parseProjectedKeys(Blackhole blackhole) {
+        for (byte[] line : _lines) {
+            _object.reset(line);
+            blackhole.consume(JiqsItemParser.getItemFromObject(_object, BenchmarkData.METADATA, _projectedKeys));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+
+package iq.benchmarks;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.rumbledb.api.Item;
+
+import sparksoniq.spark.DataFrameUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes items into, and deserializes them from, the binary columns of the DataFrames of FLWOR clauses,
+ * one singleton sequence per record as in the variables bound by a for clause.
+ * The throughput is in records per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ItemSerializationBenchmark {
+
+    @Param({BenchmarkData.WIDE, BenchmarkData.NESTED, BenchmarkData.NUMERIC})
+    public String shape;
+
+    private List<List<Item>> _sequences;
+    private List<byte[]> _serializedSequences;
+    private Kryo _kryo;
+    private Output _output;
+    private Input _input;
+
+    @Setup
+    public void setup() {
+        _kryo = new Kryo();
+        _kryo.setReferences(false);
+        DataFrameUtils.registerKryoClassesKryo(_kryo);
+        _output = new Output(128, -1);
+        _input = new Input();
+
+        _sequences = new ArrayList<>();
+        _serializedSequences = new ArrayList<>();
+        for (Item item : BenchmarkData.generateItems(shape)) {
+            List<Item> sequence = new ArrayList<>(1);
+            sequence.add(item);
+            _sequences.add(sequence);
+            _serializedSequences.add(DataFrameUtils.serializeItemList(sequence, _kryo, _output));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.RECORDS)
+    public void serializeItemList(Blackhole blackhole) {
+        for (List<Item> sequence : _sequences) {
+            blackhole.consume(DataFrameUtils.serializeItemList(sequence, _kryo, _output));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.RECORDS)
+    public void deserializeByteArray(Blackhole blackhole) {
+        for (byte[] serializedSequence : _serializedSequences) {
+            blackhole.consume(DataFrameUtils.deserializeByteArray(serializedSequence, _kryo, _input));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+
+package iq.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.rumbledb.api.Item;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up the first, middle and last keys of objects, as well as a key that they do not have.
+ * The throughput is in objects per second, with four lookups per object.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ObjectLookupBenchmark {
+
+    @Param({BenchmarkData.WIDE, BenchmarkData.NESTED, BenchmarkData.NUMERIC})
+    public String shape;
+
+    private List<Item> _objects;
+    private String[] _keys;
+
+    @Setup
+    public void setup() {
+        _objects = BenchmarkData.generateItems(shape);
+        List<String> keys = _objects.get(0).getKeys();
+        _keys = new String[]{
+                keys.get(0),
+                keys.get(keys.size() / 2),
+                keys.get(keys.size() - 1),
+                "missing"
+        };
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.RECORDS)
+    public void getItemByKey(Blackhole blackhole) {
+        for (Item object : _objects) {
+            for (String key : _keys) {
+                blackhole.consume(object.getItemByKey(key));
+            }
+        }
+    }
+}
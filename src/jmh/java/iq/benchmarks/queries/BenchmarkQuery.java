@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+
+package iq.benchmarks.queries;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The queries of the end-to-end benchmarks, over the datasets of QueryBenchmarkData. The dataset paths are
+ * substituted for the %orders.json% and %customers.json% placeholders.
+ */
+public enum BenchmarkQuery {
+
+    FILTER(
+            "filter",
+            "for $o in json-file(\"%orders.json%\") where $o.amount gt 900 and $o.status eq \"paid\" return $o",
+            QueryBenchmarkData.ORDERS),
+    PROJECTION(
+            "projection",
+            "for $o in json-file(\"%orders.json%\") return { \"id\" : $o.id, \"amount\" : $o.amount }",
+            QueryBenchmarkData.ORDERS),
+    GROUP_BY(
+            "group-by",
+            "for $o in json-file(\"%orders.json%\") group by $country := $o.country "
+                    + "return { \"country\" : $country, \"orders\" : count($o), \"total\" : sum($o.amount) }",
+            QueryBenchmarkData.ORDERS),
+    ORDER_BY(
+            "order-by",
+            "for $o in json-file(\"%orders.json%\") order by $o.amount descending, $o.id "
+                    + "return { \"id\" : $o.id, \"amount\" : $o.amount }",
+            QueryBenchmarkData.ORDERS),
+    COUNT_CLAUSE(
+            "count-clause",
+            "for $o in json-file(\"%orders.json%\") where $o.quantity ge 5 count $position "
+                    + "return { \"position\" : $position, \"id\" : $o.id }",
+            QueryBenchmarkData.ORDERS),
+    NESTED_FLWOR(
+            "nested-flwor",
+            "for $o in json-file(\"%orders.json%\") "
+                    + "let $expensive := for $line in $o.lines[] where $line.price gt 50 return $line.product "
+                    + "return { \"id\" : $o.id, \"expensive\" : count($expensive) }",
+            QueryBenchmarkData.ORDERS),
+    JOIN(
+            "join",
+            "for $o in json-file(\"%orders.json%\") for $c in json-file(\"%customers.json%\") "
+                    + "where $o.customer eq $c.id return { \"order\" : $o.id, \"customer\" : $c.name }",
+            QueryBenchmarkData.ORDERS, QueryBenchmarkData.CUSTOMERS);
+
+    private final String _name;
+    private final String _query;
+    private final List<String> _datasets;
+
+    BenchmarkQuery(String name, String query, String... datasets) {
+        _name = name;
+        _query = query;
+        _datasets = Arrays.asList(datasets);
+    }
+
+    public String getName() {
+        return _name;
+    }
+
+    /**
+     * @param data the datasets
+     * @return the text of the query, reading the given datasets
+     */
+    public String getQuery(QueryBenchmarkData data) {
+        String result = _query;
+        for (String dataset : _datasets) {
+            result = result.replace("%" + dataset + "%", data.getPath(dataset).toUri().toString());
+        }
+        return result;
+    }
+
+    /**
+     * @param data the datasets
+     * @return the number of records that the query reads
+     */
+    public long getInputRecords(QueryBenchmarkData data) {
+        long result = 0;
+        for (String dataset : _datasets) {
+            result += dataset.equals(QueryBenchmarkData.ORDERS) ? data.getOrderCount() : data.getCustomerCount();
+        }
+        return result;
+    }
+
+    /**
+     * @param name the name of a query, e.g., group-by
+     * @return the query with this name
+     */
+    public static BenchmarkQuery fromName(String name) {
+        for (BenchmarkQuery query : values()) {
+            if (query.getName().equals(name)) {
+                return query;
+            }
+        }
+        throw new IllegalArgumentException("Unknown benchmark query: " + name);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+
+package iq.benchmarks.queries;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates the JSON Lines datasets of the query benchmarks, with a fixed seed so that all runs at the same scale
+ * read the same data:
+ * - orders.json, with the given number of orders, each with a customer, a country, an amount, a quantity,
+ *   a date, a status and an array of 1 to 5 order lines,
+ * - customers.json, with one customer for every 10 orders.
+ */
+public class QueryBenchmarkData {
+
+    public static final String ORDERS = "orders.json";
+    public static final String CUSTOMERS = "customers.json";
+
+    private static final String[] COUNTRIES = {
+            "Austria", "Belgium", "Brazil", "Canada", "Chile", "China", "Denmark", "Egypt", "France", "Germany",
+            "India", "Italy", "Japan", "Kenya", "Mexico", "Norway", "Peru", "Spain", "Sweden", "Switzerland"
+    };
+    private static final String[] STATUSES = {"pending", "paid", "shipped", "delivered", "returned"};
+    private static final String[] SEGMENTS = {"consumer", "corporate", "small business"};
+
+    private final Path _directory;
+    private final int _orders;
+    private final int _customers;
+
+    /**
+     * @param directory the directory in which the datasets are written
+     * @param orders    the number of orders, which sets the scale of the datasets
+     */
+    public QueryBenchmarkData(Path directory, int orders) {
+        _directory = directory;
+        _orders = orders;
+        _customers = Math.max(1, orders / 10);
+    }
+
+    public int getOrderCount() {
+        return _orders;
+    }
+
+    public int getCustomerCount() {
+        return _customers;
+    }
+
+    public Path getPath(String dataset) {
+        return _directory.resolve(dataset);
+    }
+
+    public void generate() throws IOException {
+        Files.createDirectories(_directory);
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(getPath(CUSTOMERS), StandardCharsets.UTF_8)) {
+            for (int customer = 0; customer < _customers; ++customer) {
+                writer.write("{\"id\" : " + customer
+                        + ", \"name\" : \"customer-" + customer + "\""
+                        + ", \"country\" : \"" + COUNTRIES[random.nextInt(COUNTRIES.length)] + "\""
+                        + ", \"segment\" : \"" + SEGMENTS[random.nextInt(SEGMENTS.length)] + "\"}");
+                writer.newLine();
+            }
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(getPath(ORDERS), StandardCharsets.UTF_8)) {
+            for (int order = 0; order < _orders; ++order) {
+                StringBuilder line = new StringBuilder();
+                line.append("{\"id\" : ").append(order);
+                line.append(", \"customer\" : ").append(random.nextInt(_customers));
+                line.append(", \"country\" : \"").append(COUNTRIES[random.nextInt(COUNTRIES.length)]).append("\"");
+                line.append(", \"amount\" : ").append(random.nextInt(100000) / 100.0);
+                line.append(", \"quantity\" : ").append(1 + random.nextInt(10));
+                line.append(", \"date\" : \"2019-").append(String.format("%02d", 1 + random.nextInt(12)))
+                        .append("-").append(String.format("%02d", 1 + random.nextInt(28))).append("\"");
+                line.append(", \"status\" : \"").append(STATUSES[random.nextInt(STATUSES.length)]).append("\"");
+                line.append(", \"lines\" : [");
+                int lines = 1 + random.nextInt(5);
+                for (int orderLine = 0; orderLine < lines; ++orderLine) {
+                    if (orderLine > 0) {
+                        line.append(", ");
+                    }
+                    line.append("{\"product\" : \"p").append(random.nextInt(1000)).append("\"");
+                    line.append(", \"price\" : ").append(random.nextInt(10000) / 100.0);
+                    line.append(", \"quantity\" : ").append(1 + random.nextInt(5)).append("}");
+                }
+                line.append("]}");
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+    }
+}
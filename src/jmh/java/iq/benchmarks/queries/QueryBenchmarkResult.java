@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+
+package iq.benchmarks.queries;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.ToLongFunction;
+
+/**
+ * The measurements of the iterations of a benchmark query: latencies, number of items returned, and metrics of
+ * the Spark stages, which are averaged over the iterations.
+ */
+public class QueryBenchmarkResult {
+
+    public static final String CSV_HEADER = "query,iterations,items,inputRecords,"
+            + "latencyMinMs,latencyMeanMs,latencyP50Ms,latencyP90Ms,latencyP99Ms,latencyMaxMs,rowsPerSecond,"
+            + "sparkJobs,sparkStages,sparkTasks,executorRunTimeMs,stageInputRecords,shuffleReadBytes,"
+            + "shuffleWriteBytes";
+
+    private final String _query;
+    private final long _inputRecords;
+    private final List<Double> _latencies = new ArrayList<>();
+    private final List<StageMetricsListener.StageMetrics> _stageMetrics = new ArrayList<>();
+    private long _items;
+
+    /**
+     * @param query        the name of the query
+     * @param inputRecords the number of records that the query reads
+     */
+    public QueryBenchmarkResult(String query, long inputRecords) {
+        _query = query;
+        _inputRecords = inputRecords;
+    }
+
+    /**
+     * @param latencyNanos the latency of the iteration, in nanoseconds
+     * @param items        the number of items returned by the query
+     * @param stageMetrics the metrics of the Spark stages of the iteration
+     */
+    public void addIteration(long latencyNanos, long items, StageMetricsListener.StageMetrics stageMetrics) {
+        _latencies.add(latencyNanos / 1e6);
+        _items = items;
+        _stageMetrics.add(stageMetrics);
+    }
+
+    /**
+     * @param percentile a percentile between 0 and 100
+     * @return the latency at this percentile, with the nearest-rank method, in milliseconds
+     */
+    public double getLatencyPercentile(double percentile) {
+        List<Double> sortedLatencies = new ArrayList<>(_latencies);
+        Collections.sort(sortedLatencies);
+        int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.size());
+        return sortedLatencies.get(Math.max(0, rank - 1));
+    }
+
+    public double getMeanLatency() {
+        double sum = 0;
+        for (double latency : _latencies) {
+            sum += latency;
+        }
+        return sum / _latencies.size();
+    }
+
+    /**
+     * @return the number of input records processed per second, at the median latency
+     */
+    public double getRowsPerSecond() {
+        return _inputRecords / (getLatencyPercentile(50) / 1000);
+    }
+
+    private double getMeanStageMetric(ToLongFunction<StageMetricsListener.StageMetrics> metric) {
+        double sum = 0;
+        for (StageMetricsListener.StageMetrics metrics : _stageMetrics) {
+            sum += metric.applyAsLong(metrics);
+        }
+        return sum / _stageMetrics.size();
+    }
+
+    public String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"query\" : \"%s\", \"iterations\" : %d, \"items\" : %d, \"inputRecords\" : %d, "
+                        + "\"latencyMs\" : {\"min\" : %.3f, \"mean\" : %.3f, \"p50\" : %.3f, \"p90\" : %.3f, "
+                        + "\"p99\" : %.3f, \"max\" : %.3f}, \"rowsPerSecond\" : %.1f, "
+                        + "\"spark\" : {\"jobs\" : %.1f, \"stages\" : %.1f, \"tasks\" : %.1f, "
+                        + "\"executorRunTimeMs\" : %.1f, \"inputRecords\" : %.1f, \"shuffleReadBytes\" : %.1f, "
+                        + "\"shuffleWriteBytes\" : %.1f}}",
+                _query, _latencies.size(), _items, _inputRecords,
+                getLatencyPercentile(0), getMeanLatency(), getLatencyPercentile(50), getLatencyPercentile(90),
+                getLatencyPercentile(99), getLatencyPercentile(100), getRowsPerSecond(),
+                getMeanStageMetric(StageMetricsListener.StageMetrics::getJobs),
+                getMeanStageMetric(StageMetricsListener.StageMetrics::getStages),
+                getMeanStageMetric(StageMetricsListener.StageMetrics::getTasks),
+                getMeanStageMetric(StageMetricsListener.StageMetrics::getExecutorRunTime),
+                getMeanStageMetric(StageMetricsListener.StageMetrics::getInputRecords),
+                getMeanStageMetric(StageMetricsListener.StageMetrics::getShuffleReadBytes),
+                getMeanStageMetric(StageMetricsListener.StageMetrics::getShuffleWriteBytes));
+    }
+
+    public String toCsv() {
+        return String.format(Locale.ROOT,
+                "%s,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f",
+                _query, _latencies.size(), _items, _inputRecords,
+                getLatencyPercentile(0), getMeanLatency(), getLatencyPercentile(50), getLatencyPercentile(90),
+                getLatencyPercentile(99), getLatencyPercentile(100), getRowsPerSecond(),
+                getMeanStageMetric(StageMetricsListener.StageMetrics::getJobs),
+                getMeanStageMetric(StageMetricsListener.StageMetrics::getStages),
+                getMeanStageMetric(StageMetricsListener.StageMetrics::getTasks),
+                getMeanStageMetric(StageMetricsListener.StageMetrics::getExecutorRunTime),
+                getMeanStageMetric(StageMetricsListener.StageMetrics::getInputRecords),
+                getMeanStageMetric(StageMetricsListener.StageMetrics::getShuffleReadBytes),
+                getMeanStageMetric(StageMetricsListener.StageMetrics::getShuffleWriteBytes));
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+
+package iq.benchmarks.queries;
+
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.rumbledb.api.Rumble;
+import org.rumbledb.api.RumbleConf;
+import org.rumbledb.api.SequenceOfItems;
+
+import sparksoniq.spark.SparkSessionManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the end-to-end query benchmarks on a local Spark session, and writes their results in JSON or CSV.
+ *
+ * Arguments, all optional, in the format --property value:
+ * --scale          the number of orders in the generated datasets (default 100000)
+ * --data-dir       the directory of the generated datasets (default rumble-benchmark-data in the temporary directory)
+ * --warmup         the number of warm-up iterations of every query, which are not measured (default 2)
+ * --iterations     the number of measured iterations of every query (default 5)
+ * --queries        the comma-separated names of the queries to run (default all, see BenchmarkQuery)
+ * --master         the Spark master (default local[*])
+ * --output         the file to which the results are written (default benchmark-results.json or .csv)
+ * --format         json or csv (default json)
+ */
+public class QueryBenchmarkRunner {
+
+    private static final String ARGUMENT_PREFIX = "--";
+    private static final long STAGE_METRICS_TIMEOUT_MILLIS = 10000;
+
+    private final Map<String, String> _arguments;
+    private final StageMetricsListener _listener;
+    private final Rumble _rumble;
+
+    private QueryBenchmarkRunner(Map<String, String> arguments) {
+        _arguments = arguments;
+        SparkConf sparkConfiguration = new SparkConf();
+        sparkConfiguration.setMaster(getArgument("master", "local[*]"));
+        SparkSessionManager.getInstance().initializeConfigurationAndSession(sparkConfiguration, true);
+        _listener = new StageMetricsListener();
+        SparkSessionManager.getInstance().getJavaSparkContext().sc().addSparkListener(_listener);
+        _rumble = new Rumble(new RumbleConf());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> arguments = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith(ARGUMENT_PREFIX) || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Invalid argument format. Required format: --property value");
+            }
+            arguments.put(args[i].substring(ARGUMENT_PREFIX.length()), args[i + 1]);
+        }
+        new QueryBenchmarkRunner(arguments).run();
+    }
+
+    private String getArgument(String name, String defaultValue) {
+        return _arguments.getOrDefault(name, defaultValue);
+    }
+
+    private void run() throws IOException, InterruptedException {
+        String format = getArgument("format", "json");
+        if (!format.equals("json") && !format.equals("csv")) {
+            throw new IllegalArgumentException("Unknown format of the results: " + format);
+        }
+        QueryBenchmarkData data = new QueryBenchmarkData(
+                Paths.get(getArgument("data-dir", Paths.get(System.getProperty("java.io.tmpdir"),
+                        "rumble-benchmark-data").toString())),
+                Integer.parseInt(getArgument("scale", "100000")));
+        System.out.println("Generating " + data.getOrderCount() + " orders and " + data.getCustomerCount()
+                + " customers in " + data.getPath(""));
+        data.generate();
+
+        List<BenchmarkQuery> queries = new ArrayList<>();
+        if (_arguments.containsKey("queries")) {
+            for (String name : _arguments.get("queries").split(",")) {
+                queries.add(BenchmarkQuery.fromName(name.trim()));
+            }
+        } else {
+            queries.addAll(Arrays.asList(BenchmarkQuery.values()));
+        }
+        int warmupIterations = Integer.parseInt(getArgument("warmup", "2"));
+        int iterations = Integer.parseInt(getArgument("iterations", "5"));
+
+        List<QueryBenchmarkResult> results = new ArrayList<>();
+        for (BenchmarkQuery query : queries) {
+            String queryText = query.getQuery(data);
+            for (int iteration = 0; iteration < warmupIterations; ++iteration) {
+                runQuery(queryText);
+            }
+            QueryBenchmarkResult result = new QueryBenchmarkResult(query.getName(), query.getInputRecords(data));
+            for (int iteration = 0; iteration < iterations; ++iteration) {
+                runMeasuredIteration(query, queryText, iteration, result);
+            }
+            System.out.println(result.toJson());
+            results.add(result);
+        }
+        writeResults(data, warmupIterations, iterations, results);
+    }
+
+    private void runMeasuredIteration(
+            BenchmarkQuery query,
+            String queryText,
+            int iteration,
+            QueryBenchmarkResult result) throws InterruptedException {
+        JavaSparkContext sparkContext = SparkSessionManager.getInstance().getJavaSparkContext();
+        String jobGroup = "benchmark-" + query.getName() + "-" + iteration;
+        sparkContext.setJobGroup(jobGroup, query.getName(), false);
+        long items;
+        long startTime = System.nanoTime();
+        try {
+            items = runQuery(queryText);
+        } finally {
+            sparkContext.clearJobGroup();
+        }
+        long latency = System.nanoTime() - startTime;
+        int jobs = sparkContext.statusTracker().getJobIdsForGroup(jobGroup).length;
+        result.addIteration(latency, items, _listener.getMetrics(jobGroup, jobs, STAGE_METRICS_TIMEOUT_MILLIS));
+    }
+
+    /**
+     * Runs a query to completion. RDD results are counted on the executors rather than collected, so that the
+     * measurements do not depend on the size of the results sent to the driver.
+     *
+     * @param queryText the query
+     * @return the number of items returned by the query
+     */
+    private long runQuery(String queryText) {
+        SequenceOfItems sequence = _rumble.runQuery(queryText);
+        if (sequence.availableAsRDD()) {
+            return sequence.getAsRDD().count();
+        }
+        long items = 0;
+        sequence.open();
+        while (sequence.hasNext()) {
+            sequence.next();
+            ++items;
+        }
+        sequence.close();
+        return items;
+    }
+
+    private void writeResults(
+            QueryBenchmarkData data,
+            int warmupIterations,
+            int iterations,
+            List<QueryBenchmarkResult> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String format = getArgument("format", "json");
+        if (format.equals("csv")) {
+            lines.add(QueryBenchmarkResult.CSV_HEADER);
+            for (QueryBenchmarkResult result : results) {
+                lines.add(result.toCsv());
+            }
+        } else {
+            lines.add("{\"scale\" : " + data.getOrderCount() + ", \"master\" : \"" + getArgument("master", "local[*]")
+                    + "\", \"warmupIterations\" : " + warmupIterations + ", \"iterations\" : " + iterations
+                    + ", \"queries\" : [");
+            for (int i = 0; i < results.size(); ++i) {
+                lines.add("  " + results.get(i).toJson() + (i < results.size() - 1 ? "," : ""));
+            }
+            lines.add("]}");
+        }
+        Files.write(Paths.get(getArgument("output", "benchmark-results." + format)), lines, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+
+package iq.benchmarks.queries;
+
+import org.apache.spark.executor.TaskMetrics;
+import org.apache.spark.scheduler.SparkListener;
+import org.apache.spark.scheduler.SparkListenerJobEnd;
+import org.apache.spark.scheduler.SparkListenerJobStart;
+import org.apache.spark.scheduler.SparkListenerStageCompleted;
+import org.apache.spark.scheduler.StageInfo;
+import scala.collection.JavaConverters;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sums the metrics of the completed stages of the Spark jobs of every job group, i.e., of every execution of
+ * a benchmark query. Stages that Spark skips because their output was already computed are not counted.
+ */
+public class StageMetricsListener extends SparkListener {
+
+    private static final String JOB_GROUP_PROPERTY = "spark.jobGroup.id";
+    private static final long POLLING_INTERVAL_MILLIS = 10;
+
+    private final Map<Integer, String> _jobGroupsByJob = new ConcurrentHashMap<>();
+    private final Map<Integer, String> _jobGroupsByStage = new ConcurrentHashMap<>();
+    private final Map<String, StageMetrics> _metricsByJobGroup = new ConcurrentHashMap<>();
+
+    /**
+     * The metrics of the completed stages of a job group.
+     */
+    public static class StageMetrics {
+        private long _jobs;
+        private long _stages;
+        private long _tasks;
+        private long _executorRunTime;
+        private long _inputRecords;
+        private long _shuffleReadBytes;
+        private long _shuffleWriteBytes;
+
+        public long getJobs() {
+            return _jobs;
+        }
+
+        public long getStages() {
+            return _stages;
+        }
+
+        public long getTasks() {
+            return _tasks;
+        }
+
+        /**
+         * @return the time spent by the executors in the tasks of the stages, in milliseconds
+         */
+        public long getExecutorRunTime() {
+            return _executorRunTime;
+        }
+
+        public long getInputRecords() {
+            return _inputRecords;
+        }
+
+        public long getShuffleReadBytes() {
+            return _shuffleReadBytes;
+        }
+
+        public long getShuffleWriteBytes() {
+            return _shuffleWriteBytes;
+        }
+    }
+
+    @Override
+    public void onJobStart(SparkListenerJobStart jobStart) {
+        if (jobStart.properties() == null) {
+            return;
+        }
+        String jobGroup = jobStart.properties().getProperty(JOB_GROUP_PROPERTY);
+        if (jobGroup == null) {
+            return;
+        }
+        _jobGroupsByJob.put(jobStart.jobId(), jobGroup);
+        for (Object stageId : JavaConverters.seqAsJavaListConverter(jobStart.stageIds()).asJava()) {
+            _jobGroupsByStage.put((Integer) stageId, jobGroup);
+        }
+    }
+
+    @Override
+    public void onStageCompleted(SparkListenerStageCompleted stageCompleted) {
+        StageInfo stageInfo = stageCompleted.stageInfo();
+        String jobGroup = _jobGroupsByStage.remove(stageInfo.stageId());
+        if (jobGroup == null) {
+            return;
+        }
+        StageMetrics metrics = _metricsByJobGroup.computeIfAbsent(jobGroup, group -> new StageMetrics());
+        synchronized (metrics) {
+            metrics._stages++;
+            metrics._tasks += stageInfo.numTasks();
+            TaskMetrics taskMetrics = stageInfo.taskMetrics();
+            if (taskMetrics != null) {
+                metrics._executorRunTime += taskMetrics.executorRunTime();
+                metrics._inputRecords += taskMetrics.inputMetrics().recordsRead();
+                metrics._shuffleReadBytes += taskMetrics.shuffleReadMetrics().totalBytesRead();
+                metrics._shuffleWriteBytes += taskMetrics.shuffleWriteMetrics().bytesWritten();
+            }
+        }
+    }
+
+    @Override
+    public void onJobEnd(SparkListenerJobEnd jobEnd) {
+        String jobGroup = _jobGroupsByJob.remove(jobEnd.jobId());
+        if (jobGroup == null) {
+            return;
+        }
+        StageMetrics metrics = _metricsByJobGroup.computeIfAbsent(jobGroup, group -> new StageMetrics());
+        synchronized (metrics) {
+            metrics._jobs++;
+        }
+    }
+
+    /**
+     * Waits until the listener has received the end of the given number of jobs of a job group, as Spark posts
+     * the events to the listeners asynchronously, and returns the metrics of the job group.
+     *
+     * @param jobGroup      the job group
+     * @param jobs          the number of jobs of the job group
+     * @param timeoutMillis the maximum time to wait, in milliseconds
+     * @return the metrics of the completed stages of the job group
+     */
+    public StageMetrics getMetrics(String jobGroup, int jobs, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        StageMetrics metrics = _metricsByJobGroup.computeIfAbsent(jobGroup, group -> new StageMetrics());
+        while (System.currentTimeMillis() < deadline) {
+            synchronized (metrics) {
+                if (metrics._jobs >= jobs) {
+                    break;
+                }
+            }
+            Thread.sleep(POLLING_INTERVAL_MILLIS);
+        }
+        _metricsByJobGroup.remove(jobGroup);
+        return metrics;
+    }
+}
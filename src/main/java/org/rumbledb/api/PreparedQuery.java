@@ -0,0 +1,151 @@
+package org.rumbledb.api;
+
+import sparksoniq.exceptions.AbsentExternalVariableException;
+import sparksoniq.exceptions.SparksoniqRuntimeException;
+import sparksoniq.exceptions.UndeclaredVariableException;
+import sparksoniq.jsoniq.compiler.translator.expr.Expression;
+import sparksoniq.jsoniq.compiler.translator.expr.primary.VariableReference;
+import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
+import sparksoniq.semantics.DynamicContext;
+import sparksoniq.semantics.visitor.RuntimeIteratorVisitor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A query compiled by Rumble, which can be executed any number of times with different values for the variables
+ * it declares as external, e.g., declare variable $threshold external;
+ *
+ * The value of a variable declared in the prolog, and the default value of an external variable, may refer to the
+ * variables declared before it. These values are evaluated again for every execution.
+ *
+ * The query is only parsed, statically analyzed and translated into iterators once. As iterators keep the state
+ * of an evaluation, e.g., their position or the RDDs they created, every execution gets its own copy of them,
+ * deserialized from the iterators serialized when the query was prepared. A prepared query is immutable and can
+ * be executed by several threads at the same time: every execution binds the variables in its own dynamic context.
+ * The Spark SQL UDFs and temporary views used by the FLWOR clauses are registered by name in the Spark session
+ * shared by all executions, so the executions register them and analyze the statements using them one at a time,
+ * while their Spark jobs run concurrently.
+ *
+ * @author Ghislain Fourny, Stefan Irimescu, Can Berker Cikis
+ */
+public class PreparedQuery {
+
+    private final byte[] _iterator;
+    private final List<VariableReference> _declaredVariables;
+    private final List<VariableReference> _externalVariables;
+    private final Map<String, byte[]> _variableValueIterators;
+    private final RumbleConf _conf;
+
+    protected PreparedQuery(
+            Expression expression,
+            List<VariableReference> declaredVariables,
+            List<VariableReference> externalVariables,
+            Map<String, Expression> variableValues,
+            RumbleConf conf)
+    {
+        _iterator = buildIterator(expression);
+        _conf = conf;
+        _declaredVariables = Collections.unmodifiableList(new ArrayList<>(declaredVariables));
+        _externalVariables = Collections.unmodifiableList(new ArrayList<>(externalVariables));
+        Map<String, byte[]> variableValueIterators = new HashMap<>();
+        for (Map.Entry<String, Expression> variableValue : variableValues.entrySet()) {
+            variableValueIterators.put(variableValue.getKey(), buildIterator(variableValue.getValue()));
+        }
+        _variableValueIterators = Collections.unmodifiableMap(variableValueIterators);
+    }
+
+    /**
+     * Returns the names of the external variables of the query, without the $ sign, in the order of their declarations.
+     * @return the names of the external variables.
+     */
+    public List<String> getExternalVariableNames()
+    {
+        List<String> result = new ArrayList<>();
+        for (VariableReference variable : _externalVariables) {
+            result.add(variable.getVariableName());
+        }
+        return result;
+    }
+
+    /**
+     * Executes the query, with the default values of its external variables.
+     * @return the resulting sequence as an ItemIterator.
+     */
+    public SequenceOfItems execute()
+    {
+        return execute(Collections.<String, List<Item>>emptyMap());
+    }
+
+    /**
+     * Executes the query, binding its external variables to the given sequences of items. The external variables
+     * that are not bound are bound to their default values, which they must then have.
+     * @param externalVariableValues the sequence of items bound to each external variable, by name without the $ sign.
+     * @return the resulting sequence as an ItemIterator.
+     */
+    public SequenceOfItems execute(Map<String, List<Item>> externalVariableValues)
+    {
+        for (String name : externalVariableValues.keySet()) {
+            if (!getExternalVariableNames().contains(name)) {
+                throw new UndeclaredVariableException("Variable $" + name + " is not declared as external", null);
+            }
+        }
+        DynamicContext context = new DynamicContext();
+        for (VariableReference variable : _declaredVariables) {
+            String name = variable.getVariableName();
+            List<Item> value = _externalVariables.contains(variable) ? externalVariableValues.get(name) : null;
+            if (value != null) {
+                value = new ArrayList<>(value);
+            } else if (_variableValueIterators.containsKey(name)) {
+                // the value may refer to the variables declared before, which are already bound
+                value = evaluateVariableValue(_variableValueIterators.get(name), context);
+            } else {
+                throw new AbsentExternalVariableException("No value was bound to the external variable $" + name,
+                        variable.getMetadata());
+            }
+            context.addVariableValue("$" + name, value);
+        }
+        return new SequenceOfItems(copyIterator(_iterator), context, _conf);
+    }
+
+    private static byte[] buildIterator(Expression expression)
+    {
+        RuntimeIterator iterator = new RuntimeIteratorVisitor().visit(expression, null);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(iterator);
+        } catch (IOException e) {
+            throw new SparksoniqRuntimeException("Iterators of the query could not be serialized: " + e.getMessage());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static RuntimeIterator copyIterator(byte[] iterator)
+    {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(iterator))) {
+            return (RuntimeIterator) input.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new SparksoniqRuntimeException("Iterators of the query could not be copied: " + e.getMessage());
+        }
+    }
+
+    private static List<Item> evaluateVariableValue(byte[] value, DynamicContext context)
+    {
+        RuntimeIterator iterator = copyIterator(value);
+        List<Item> result = new ArrayList<>();
+        iterator.open(context);
+        while (iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        iterator.close();
+        return result;
+    }
+}
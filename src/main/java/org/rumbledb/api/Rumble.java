@@ -10,9 +10,10 @@ import sparksoniq.jsoniq.compiler.JsoniqExpressionTreeVisitor;
 import sparksoniq.jsoniq.compiler.parser.JsoniqLexer;
 import sparksoniq.jsoniq.compiler.parser.JsoniqParser;
 import sparksoniq.jsoniq.compiler.translator.expr.Expression;
+import sparksoniq.jsoniq.compiler.translator.expr.primary.VariableReference;
 import sparksoniq.jsoniq.compiler.translator.metadata.ExpressionMetadata;
-import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
-import sparksoniq.semantics.visitor.RuntimeIteratorVisitor;
+import sparksoniq.semantics.StaticContext;
+import sparksoniq.semantics.types.SequenceType;
 import sparksoniq.semantics.visitor.StaticContextVisitor;
 import sparksoniq.spark.SparkSessionManager;
 
@@ -38,6 +39,7 @@ public class Rumble {
     {
         _conf = conf;
         SparkSessionManager.COLLECT_ITEM_LIMIT = conf.getResultsSizeCap();
+        SparkSessionManager.SCHEMA_SAMPLING_RATIO = conf.getSchemaSamplingRatio();
     }
 
     /**
@@ -46,6 +48,17 @@ public class Rumble {
      * @return the resulting sequence as an ItemIterator.
      */
     public SequenceOfItems runQuery(String query)
+    {
+        return prepareQuery(query).execute();
+    }
+
+    /**
+     * Compiles a query, which can then be executed any number of times, with different values for the variables
+     * it declares as external (declare variable $x external;), without being parsed and analyzed again.
+     * @param query the JSONiq query.
+     * @return the compiled query.
+     */
+    public PreparedQuery prepareQuery(String query)
     {
         CharStream charStream = CharStreams.fromString(query);
         JsoniqLexer lexer = new JsoniqLexer(charStream);
@@ -64,9 +77,19 @@ public class Rumble {
             throw e;
         }
         Expression expression = visitor.getQueryExpression();
-        new StaticContextVisitor().visit(expression, expression.getStaticContext());
+        StaticContext context = new StaticContext();
+        for (VariableReference variable : visitor.getDeclaredVariables()) {
+            // the value of a variable may refer to the variables declared before it
+            Expression value = visitor.getVariableValues().get(variable.getVariableName());
+            if (value != null) {
+                new StaticContextVisitor().visit(value, context);
+            }
+            context = new StaticContext(context);
+            context.addVariable(variable.getVariableName(), new SequenceType(), variable.getMetadata());
+        }
+        new StaticContextVisitor().visit(expression, context);
 
-        RuntimeIterator iterator = new RuntimeIteratorVisitor().visit(expression, null);
-        return new SequenceOfItems(iterator);
+        return new PreparedQuery(expression, visitor.getDeclaredVariables(), visitor.getExternalVariables(),
+                visitor.getVariableValues(), _conf);
     }
 }
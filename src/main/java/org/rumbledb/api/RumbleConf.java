@@ -3,16 +3,24 @@ package org.rumbledb.api;
 /**
  * The configuration of Rumble.
  * 
- * For the moment, it is only possible to configure the results size cap (which is forwarded to Spark's collect-item-limit).
+ * It is possible to configure the results size cap (which is forwarded to Spark's collect-item-limit), and whether
+ * results available as RDDs are streamed partition by partition when iterated over locally, as well as the fraction
+ * of the input read to infer the schema of structured inputs.
  * 
  * @author Ghislain Fourny, Stefan Irimescu, Can Berker Cikis
  *
  */
 public class RumbleConf {
     private int _resultsSizeCap;
+    private boolean _isStreaming;
+    private int _prefetchedPartitions;
+    private double _schemaSamplingRatio;
 
     public RumbleConf() {
         _resultsSizeCap = 100;
+        _isStreaming = false;
+        _prefetchedPartitions = 1;
+        _schemaSamplingRatio = 1.0;
     }
 
     /**
@@ -33,4 +41,64 @@ public class RumbleConf {
         return _resultsSizeCap;
     }
 
+    /**
+     * Sets whether the results available as RDDs are streamed when iterated over locally with a SequenceOfItems:
+     * their partitions are then computed and sent to the driver one after the other, so that the first Items are
+     * available as soon as the first partition is computed, and they are not capped. Otherwise, they are collected
+     * at once, up to the results size cap.
+     * @param isStreaming true to stream the results.
+     */
+    public void setStreaming(boolean isStreaming)
+    {
+        _isStreaming = isStreaming;
+    }
+
+    /**
+     * Checks whether the results available as RDDs are streamed when iterated over locally.
+     * @return true if the results are streamed.
+     */
+    public boolean isStreaming()
+    {
+        return _isStreaming;
+    }
+
+    /**
+     * Sets the number of partitions that are computed in the background, ahead of the one being iterated over,
+     * when results are streamed. The driver holds at most this number of partitions plus one. With 0, every
+     * partition is only computed once the previous one has been consumed.
+     * @param prefetchedPartitions the number of partitions to prefetch.
+     */
+    public void setPrefetchedPartitions(int prefetchedPartitions)
+    {
+        _prefetchedPartitions = prefetchedPartitions;
+    }
+
+    /**
+     * Gets the number of partitions that are computed ahead of the one being iterated over when results are streamed.
+     * @return the number of partitions to prefetch.
+     */
+    public int getPrefetchedPartitions()
+    {
+        return _prefetchedPartitions;
+    }
+
+    /**
+     * Sets the fraction of the input that is read to infer its schema when a structured input function is called
+     * without a schema. With 1.0, the whole input is read once more before the query is evaluated.
+     * @param schemaSamplingRatio the fraction of the input to read, greater than 0 and at most 1.
+     */
+    public void setSchemaSamplingRatio(double schemaSamplingRatio)
+    {
+        _schemaSamplingRatio = schemaSamplingRatio;
+    }
+
+    /**
+     * Gets the fraction of the input that is read to infer its schema.
+     * @return the fraction of the input to read.
+     */
+    public double getSchemaSamplingRatio()
+    {
+        return _schemaSamplingRatio;
+    }
+
 }
@@ -4,6 +4,7 @@ import org.apache.spark.api.java.JavaRDD;
 
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.semantics.DynamicContext;
+import sparksoniq.spark.PartitionPrefetchingIterator;
 
 /**
  * A sequence of items is the value returned by any expression in JSONiq, which is a set-based language.
@@ -16,18 +17,30 @@ import sparksoniq.semantics.DynamicContext;
  * With an instance of this class, it is possible to iterate on a sequence of items, getting each item in turn. 
  * 
  * The number of items returned by the iterator API is capped by the collect-item-limit parameter of Spark to avoid an overflow.
- * For big sequences, it is preferable to obtain it as an RDD, also via this class, if the sequence is too big to be collected locally.
+ * For big sequences, it is preferable to obtain it as an RDD, also via this class, if the sequence is too big to be collected locally,
+ * or to enable streaming in the configuration, in which case the partitions of the RDD are sent to the driver one after the other.
  * 
  * @author Ghislain Fourny, Stefan Irimescu, Can Berker Cikis
  */
 public class SequenceOfItems {
 
     private RuntimeIterator _iterator;
+    private DynamicContext _context;
+    private RumbleConf _conf;
+    private PartitionPrefetchingIterator _streamedItems;    // null unless an RDD is being streamed
     private boolean _isOpen;
 
     protected SequenceOfItems(RuntimeIterator iterator)
+    {
+        this(iterator, new DynamicContext(), new RumbleConf());
+    }
+
+    protected SequenceOfItems(RuntimeIterator iterator, DynamicContext context, RumbleConf conf)
     {
         _iterator = iterator;
+        _context = context;
+        _conf = conf;
+        _streamedItems = null;
         _isOpen = false;
     }
 
@@ -36,7 +49,13 @@ public class SequenceOfItems {
      */
     public void open()
     {
-        _iterator.open(new DynamicContext());
+        if (_conf.isStreaming() && _iterator.isRDD()) {
+            _streamedItems = new PartitionPrefetchingIterator(
+                    _iterator.getRDD(_context),
+                    _conf.getPrefetchedPartitions());
+        } else {
+            _iterator.open(_context);
+        }
         _isOpen = true;
     }
 
@@ -53,7 +72,12 @@ public class SequenceOfItems {
      */
     public void close()
     {
-        _iterator.close();
+        if (_streamedItems != null) {
+            _streamedItems.close();
+            _streamedItems = null;
+        } else {
+            _iterator.close();
+        }
         _isOpen = false;
     }
 
@@ -63,15 +87,22 @@ public class SequenceOfItems {
      */
     public boolean hasNext()
     {
+        if (_streamedItems != null) {
+            return _streamedItems.hasNext();
+        }
         return _iterator.hasNext();
     }
 
     /**
-     * Returns the current item and moves on to the next one. The number of items the iterator can returned is capped by Spark's settings (collect-item-limit).
+     * Returns the current item and moves on to the next one. The number of items the iterator can returned is capped by Spark's settings (collect-item-limit),
+     * unless the items are streamed.
      * @return the next item.
      */
     public Item next()
     {
+        if (_streamedItems != null) {
+            return _streamedItems.next();
+        }
         return _iterator.next();
     }
 
@@ -95,7 +126,7 @@ public class SequenceOfItems {
         {
             throw new RuntimeException("Cannot obtain an RDD if the iterator is open.");
         }
-        return _iterator.getRDD(new DynamicContext());
+        return _iterator.getRDD(_context);
     }
 
 }
@@ -39,6 +39,7 @@ import sparksoniq.jsoniq.compiler.parser.JsoniqLexer;
 import sparksoniq.jsoniq.compiler.parser.JsoniqParser;
 import sparksoniq.jsoniq.compiler.translator.expr.Expression;
 import sparksoniq.jsoniq.compiler.translator.metadata.ExpressionMetadata;
+import sparksoniq.jsoniq.runtime.iterator.IteratorStatistics;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.semantics.DynamicContext;
 import sparksoniq.semantics.visitor.RuntimeIteratorVisitor;
@@ -66,6 +67,7 @@ public class JsoniqQueryExecutor {
         _configuration = configuration;
         _useLocalOutputLog = useLocalOutputLog;
         SparkSessionManager.COLLECT_ITEM_LIMIT = configuration.getResultSizeCap();
+        SparkSessionManager.SCHEMA_SAMPLING_RATIO = configuration.getSchemaSamplingRatio();
     }
 
     public void runLocal(String queryFile, String outputPath) throws IOException {
@@ -92,7 +94,7 @@ public class JsoniqQueryExecutor {
         JsoniqExpressionTreeVisitor visitor = this.parse(new JsoniqLexer(charStream));
         // generate static context
         generateStaticContext(visitor.getQueryExpression());
-        // generate iterators
+        // generate iterators, which collect runtime statistics with --explain-analyze yes
         RuntimeIterator result = generateRuntimeIterators(visitor.getQueryExpression());
         if(_configuration.isPrintIteratorTree())
         {
@@ -104,7 +106,10 @@ public class JsoniqQueryExecutor {
         if (result.isRDD() && outputPath != null) {
             JavaRDD<Item> rdd = result.getRDD(new DynamicContext());
             JavaRDD<String> output = rdd.map(o -> o.serialize());
-            output.saveAsTextFile(outputPath);
+            IteratorStatistics.runSparkAction(result.getStatistics(), () -> {
+                output.saveAsTextFile(outputPath);
+                return null;
+            });
         } else {
             String output = runIterators(result);
             if (outputPath != null) {
@@ -116,6 +121,9 @@ public class JsoniqQueryExecutor {
         }
         long endTime = System.currentTimeMillis();
         long totalTime = endTime - startTime;
+        if (_configuration.isExplainAnalyze()) {
+            printIteratorStatistics(result);
+        }
         if (_configuration.getLogPath() != null) {
             writeTimeLog(totalTime);
         }
@@ -127,7 +135,7 @@ public class JsoniqQueryExecutor {
         JsoniqExpressionTreeVisitor visitor = this.parse(lexer);
         // generate static context
         generateStaticContext(visitor.getQueryExpression());
-        // generate iterators
+        // generate iterators, which collect runtime statistics with --explain-analyze yes
         RuntimeIterator result = generateRuntimeIterators(visitor.getQueryExpression());
         // collect output in memory and write to filesystem from java
         if (_useLocalOutputLog) {
@@ -144,15 +152,27 @@ public class JsoniqQueryExecutor {
                 throw new SparksoniqRuntimeException("Could not find any RDD iterators in executor");
             JavaRDD<Item> rdd = result.getRDD(new DynamicContext());
             JavaRDD<String> output = rdd.map(o -> o.serialize());
-            output.saveAsTextFile(outputPath);
+            IteratorStatistics.runSparkAction(result.getStatistics(), () -> {
+                output.saveAsTextFile(outputPath);
+                return null;
+            });
         }
         long endTime = System.currentTimeMillis();
         long totalTime = endTime - startTime;
+        if (_configuration.isExplainAnalyze()) {
+            printIteratorStatistics(result);
+        }
         if (_configuration.getLogPath() != null) {
             writeTimeLog(totalTime);
         }
     }
 
+    private void printIteratorStatistics(RuntimeIterator result) {
+        StringBuffer sb = new StringBuffer();
+        result.print(sb, 0);
+        System.out.println(sb);
+    }
+
     private void writeTimeLog(long totalTime) throws IOException {
         String result = "[ExecTime]" + totalTime;
         if (_configuration.getLogPath().startsWith("file://") || _configuration.getLogPath().startsWith("/")) {
@@ -239,7 +259,7 @@ public class JsoniqQueryExecutor {
     }
 
     private RuntimeIterator generateRuntimeIterators(Expression expression) {
-        RuntimeIterator result = new RuntimeIteratorVisitor().visit(expression, null);
+        RuntimeIterator result = new RuntimeIteratorVisitor(_configuration.isExplainAnalyze()).visit(expression, null);
         return result;
     }
 
@@ -278,40 +298,32 @@ public class JsoniqQueryExecutor {
     }
 
     private String getRDDResults(RuntimeIterator result) {
-        JavaRDD<Item> rdd = result.getRDD(new DynamicContext());
-        JavaRDD<String> output = rdd.map(o -> o.serialize());
-        long resultCount = output.count();
-        if (resultCount == 0) {
-            return "";
-        }
-        if (resultCount == 1) {
-            return output.collect().get(0);
-        }
-        if (resultCount > 1) {
-            List<String> collectedOutput;
-            if (SparkSessionManager.LIMIT_COLLECT()) {
-                collectedOutput = output.take(SparkSessionManager.COLLECT_ITEM_LIMIT);
-                if (collectedOutput.size() == SparkSessionManager.COLLECT_ITEM_LIMIT) {
-                    if (Main.terminal == null) {
-                        System.out.println("Results have been truncated to:" + SparkSessionManager.COLLECT_ITEM_LIMIT
-                                + " items. This value can be configured with the --result-size parameter at startup.\n");
-                    } else {
-                        Main.terminal.output("\nWarning: Results have been truncated to: " + SparkSessionManager.COLLECT_ITEM_LIMIT
-                                + " items. This value can be configured with the --result-size parameter at startup.\n");
-                    }
+        List<Item> collectedOutput;
+        if (SparkSessionManager.LIMIT_COLLECT()) {
+            // the cap is passed down, so that only the first items are computed
+            collectedOutput = result.getFirstItems(new DynamicContext(), SparkSessionManager.COLLECT_ITEM_LIMIT);
+            if (collectedOutput.size() == SparkSessionManager.COLLECT_ITEM_LIMIT) {
+                if (Main.terminal == null) {
+                    System.out.println("Results have been truncated to:" + SparkSessionManager.COLLECT_ITEM_LIMIT
+                            + " items. This value can be configured with the --result-size parameter at startup.\n");
+                } else {
+                    Main.terminal.output("\nWarning: Results have been truncated to: " + SparkSessionManager.COLLECT_ITEM_LIMIT
+                            + " items. This value can be configured with the --result-size parameter at startup.\n");
                 }
-            } else {
-                collectedOutput = output.collect();
-            }
-
-            StringBuilder sb = new StringBuilder();
-            for (String item : collectedOutput) {
-                sb.append(item);
-                sb.append("\n");
             }
+        } else {
+            JavaRDD<Item> rdd = result.getRDD(new DynamicContext());
+            collectedOutput = IteratorStatistics.runSparkAction(result.getStatistics(), () -> rdd.collect());
+        }
 
-            return sb.toString();
+        if (collectedOutput.size() == 1) {
+            return collectedOutput.get(0).serialize();
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Item item : collectedOutput) {
+            sb.append(item.serialize());
+            sb.append("\n");
         }
-        throw new SparksoniqRuntimeException("Unexpected rdd result count in getRDDResults()");
+        return sb.toString();
     }
 }
@@ -82,6 +82,13 @@ public class SparksoniqRuntimeConfiguration {
             return 200;
     }
 
+    public double getSchemaSamplingRatio() {
+        if (this._arguments.containsKey("schema-sampling-ratio"))
+            return Double.parseDouble(this._arguments.get("schema-sampling-ratio"));
+        else
+            return 1.0;
+    }
+
     public boolean isShell() {
         if (this._arguments.containsKey("shell"))
             return _arguments.get("shell").equals("yes");
@@ -95,6 +102,13 @@ public class SparksoniqRuntimeConfiguration {
         else
             return false;
     }
+
+    public boolean isExplainAnalyze() {
+        if (this._arguments.containsKey("explain-analyze"))
+            return _arguments.get("explain-analyze").equals("yes");
+        else
+            return false;
+    }
     
     public boolean isLocal() {
         String masterConfig = SparkSessionManager.getInstance().getJavaSparkContext().getConf().get("spark.master");
@@ -43,6 +43,8 @@ public class ErrorCodes {
 
     public static final String InvalidGroupVariableErrorCode = "XQST0094";
 
+    public static final String DuplicateVariableDeclarationErrorCode = "XQST0049";
+
     //tested
     public static final String DuplicatePairNameErrorCode = "JNDY0003";
     //tested
@@ -56,6 +58,8 @@ public class ErrorCodes {
     //tested
     public static final String UndeclaredVariableErrorCode = "XPST0008";
 
+    public static final String AbsentExternalVariableErrorCode = "XPDY0002";
+
     public static final String CliErrorCode = "SPRKIQ0001";
 
     public static final String ZeroOrOneErrorCode = "FORG0003";
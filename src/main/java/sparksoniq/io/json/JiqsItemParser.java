@@ -32,6 +32,7 @@ import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import org.rumbledb.api.Item;
 
@@ -40,6 +41,42 @@ public class JiqsItemParser implements Serializable {
 
 	private static final long serialVersionUID = 1L;
 
+    /**
+     * Parses a value, and only the given keys if it is an object: the values of the other keys are skipped
+     * without being materialized.
+     *
+     * @param object the iterator, positioned before the value
+     * @param metadata the metadata of the calling iterator, for error reporting
+     * @param projectedKeys the keys to read, or null to read all of them
+     * @return the parsed item
+     */
+    public static Item getItemFromObject(JsonIterator object, IteratorMetadata metadata, Set<String> projectedKeys) {
+        if (projectedKeys == null) {
+            return getItemFromObject(object, metadata);
+        }
+        try {
+            if (!object.whatIsNext().equals(ValueType.OBJECT)) {
+                return getItemFromObject(object, metadata);
+            }
+            List<String> keys = new ArrayList<String>();
+            List<Item> values = new ArrayList<Item>();
+            String s = null;
+            while((s = object.readObject()) != null)
+            {
+                if (projectedKeys.contains(s)) {
+                    keys.add(s);
+                    values.add(getItemFromObject(object, metadata));
+                } else {
+                    object.skip();
+                }
+            }
+            return ItemFactory.getInstance().createObjectItem(keys, values, ItemMetadata.fromIteratorMetadata(metadata));
+        } catch (IOException e)
+        {
+            throw new SparksoniqRuntimeException("IO error while parsing. JSON is not well-formed!");
+        }
+    }
+
 	public static Item getItemFromObject(JsonIterator object, IteratorMetadata metadata) {
         try {
             if (object.whatIsNext().equals(ValueType.STRING))
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.io.json;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.Path;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+
+/**
+ * A byte range of a file containing JSON values (either one after the other, or as the members of a single
+ * top-level array), together with the state of the JSON text at the beginning of the range.
+ *
+ * Each value belongs to the range in which it starts, even if it ends in a later range.
+ */
+public class JsonSplit implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	private final String _path;
+    private final long _start;
+    private final long _end;
+    private final boolean _isArray;
+    private int _startState;
+    private int _startDepth;
+
+    /**
+     * @param path the path of the file
+     * @param start the position of the first byte of the range
+     * @param end the position following the last byte of the range
+     * @param isArray true if the file is a single array whose members are the values, false if it is a
+     *                sequence of values
+     */
+    public JsonSplit(String path, long start, long end, boolean isArray) {
+        _path = path;
+        _start = start;
+        _end = end;
+        _isArray = isArray;
+        _startState = JsonStructureScanner.OUTSIDE_STRING;
+        _startDepth = 0;
+    }
+
+    public long getStart() {
+        return _start;
+    }
+
+    public long getEnd() {
+        return _end;
+    }
+
+    /**
+     * @return the depth at which values start: 1 inside a top-level array, 0 otherwise
+     */
+    public int getValueDepth() {
+        return _isArray ? 1 : 0;
+    }
+
+    public int getStartState() {
+        return _startState;
+    }
+
+    public int getStartDepth() {
+        return _startDepth;
+    }
+
+    public void setStart(int state, int depth) {
+        _startState = state;
+        _startDepth = depth;
+    }
+
+    /**
+     * @param configuration the Hadoop configuration
+     * @return a buffered stream positioned at the beginning of the range, and not bounded by its end
+     */
+    public InputStream open(Configuration configuration) throws IOException {
+        return open(configuration, _start);
+    }
+
+    /**
+     * @param configuration the Hadoop configuration
+     * @param position the position of the first byte read, e.g., the byte preceding the range
+     * @return a buffered stream positioned at this byte, and not bounded by the end of the range
+     */
+    public InputStream open(Configuration configuration, long position) throws IOException {
+        Path path = new Path(_path);
+        FSDataInputStream input = path.getFileSystem(configuration).open(path);
+        input.seek(position);
+        return new BufferedInputStream(input, 1 << 16);
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.io.json;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.spark.SerializableWritable;
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.rumbledb.api.Item;
+
+import com.jsoniter.JsonIterator;
+
+import sparksoniq.exceptions.SparksoniqRuntimeException;
+import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Parses the values starting in ranges of JSON files, whose state at the beginning is known. The bytes of
+ * each value are delimited by following the nesting depth, and then parsed in place like JSON lines.
+ */
+public class JsonSplitToItemMapper implements FlatMapFunction<Iterator<JsonSplit>, Item> {
+
+	private static final long serialVersionUID = 1L;
+	private final SerializableWritable<Configuration> _configuration;
+    private final IteratorMetadata _metadata;
+    private final Set<String> _projectedKeys;
+
+    /**
+     * @param configuration the Hadoop configuration
+     * @param metadata the metadata of the calling iterator, for error reporting
+     * @param projectedKeys the only keys read from the objects of the input, or null if all are needed
+     */
+    public JsonSplitToItemMapper(
+            SerializableWritable<Configuration> configuration,
+            IteratorMetadata metadata,
+            Set<String> projectedKeys) {
+        _configuration = configuration;
+        _metadata = metadata;
+        _projectedKeys = projectedKeys;
+    }
+
+    @Override
+    public Iterator<Item> call(Iterator<JsonSplit> splits) throws Exception {
+        return new Iterator<Item>() {
+            private final JsonIterator _object = JsonIterator.parse(new byte[0]);
+            private JsonSplitReader _reader = null;
+            private boolean _hasRecord = false;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    while (!_hasRecord) {
+                        if (_reader != null && _reader.readNextValue()) {
+                            _hasRecord = true;
+                        } else if (splits.hasNext()) {
+                            if (_reader != null) {
+                                _reader.close();
+                            }
+                            _reader = new JsonSplitReader(splits.next(), _configuration.value());
+                        } else {
+                            if (_reader != null) {
+                                _reader.close();
+                                _reader = null;
+                            }
+                            return false;
+                        }
+                    }
+                    return true;
+                } catch (IOException e) {
+                    throw new SparksoniqRuntimeException("IO error while reading a JSON file: " + e.getMessage());
+                }
+            }
+
+            @Override
+            public Item next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                _hasRecord = false;
+                _object.reset(_reader.getBuffer(), 0, _reader.getLength());
+                return JiqsItemParser.getItemFromObject(_object, _metadata, _projectedKeys);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private static class JsonSplitReader {
+
+        private static final int STRUCTURED = 0;
+        private static final int STRING = 1;
+        private static final int LITERAL = 2;
+
+        private final InputStream _input;
+        private final JsonStructureScanner _scanner;
+        private final long _end;
+        private final int _valueDepth;
+        private long _position;         // the position of the next byte read from the input
+        private int _pendingByte;       // a byte read past the end of a literal, to be processed again
+        private boolean _skipsLiteral;  // true while skipping the end of a literal started before the range
+        private byte[] _buffer;
+        private int _length;
+
+        JsonSplitReader(JsonSplit split, Configuration configuration) throws IOException {
+            _scanner = new JsonStructureScanner(split.getStartState(), split.getStartDepth());
+            _end = split.getEnd();
+            _valueDepth = split.getValueDepth();
+            _position = split.getStart();
+            if (_position > 0 && _scanner.isOutsideString()) {
+                // the state does not tell whether the range starts in the middle of a literal, e.g., a number,
+                // which then belongs to the previous range: this is known from the preceding byte
+                _input = split.open(configuration, _position - 1);
+                _skipsLiteral = isLiteralByte(_input.read());
+            } else {
+                _input = split.open(configuration);
+                _skipsLiteral = false;
+            }
+            _pendingByte = -1;
+            _buffer = new byte[1 << 12];
+            _length = 0;
+        }
+
+        /**
+         * Reads the bytes of the next value starting in the range into the buffer.
+         *
+         * @return false if no other value starts in the range
+         */
+        boolean readNextValue() throws IOException {
+            _length = 0;
+            int kind = -1;
+            while (true) {
+                int b;
+                long bytePosition;
+                if (_pendingByte >= 0) {
+                    b = _pendingByte;
+                    bytePosition = _position - 1;
+                    _pendingByte = -1;
+                } else {
+                    b = _input.read();
+                    bytePosition = _position++;
+                }
+                if (b < 0) {
+                    // the end of the file also ends a literal
+                    if (kind == LITERAL) {
+                        return true;
+                    }
+                    if (kind >= 0) {
+                        throw new SparksoniqRuntimeException("Unexpected end of file while parsing. JSON is not well-formed!");
+                    }
+                    return false;
+                }
+                if (_skipsLiteral) {
+                    if (isLiteralByte(b)) {
+                        continue;
+                    }
+                    _skipsLiteral = false;
+                }
+                if (kind < 0) {
+                    if (_scanner.isOutsideString() && _scanner.getDepth() == _valueDepth && isValueStart(b)) {
+                        if (bytePosition >= _end) {
+                            // this value, and all the following ones, belong to the next ranges
+                            return false;
+                        }
+                        kind = b == '{' || b == '[' ? STRUCTURED : b == '"' ? STRING : LITERAL;
+                    } else {
+                        _scanner.consume(b);
+                        if (b == ']' && _scanner.isOutsideString() && _scanner.getDepth() < _valueDepth) {
+                            // end of the top-level array, which must be the only value of the file
+                            checkEndOfFile();
+                            return false;
+                        }
+                        continue;
+                    }
+                }
+                if (kind == LITERAL && isLiteralEnd(b)) {
+                    _pendingByte = b;
+                    return true;
+                }
+                _scanner.consume(b);
+                append(b);
+                if (_scanner.isOutsideString() && _scanner.getDepth() == _valueDepth
+                        && (kind == STRUCTURED || (kind == STRING && _length > 1))) {
+                    return true;
+                }
+            }
+        }
+
+        private void checkEndOfFile() throws IOException {
+            int b;
+            do {
+                b = _input.read();
+            } while (isWhitespace(b));
+            if (b >= 0) {
+                throw new SparksoniqRuntimeException("Unexpected content after the top-level array. "
+                        + "A file starting with an array must only contain this array. JSON is not well-formed!");
+            }
+        }
+
+        private static boolean isValueStart(int b) {
+            return !isWhitespace(b) && b != ',' && b != ':' && b != ']' && b != '}';
+        }
+
+        private static boolean isLiteralByte(int b) {
+            return b >= 0 && isValueStart(b) && b != '{' && b != '[' && b != '"';
+        }
+
+        private static boolean isLiteralEnd(int b) {
+            return isWhitespace(b) || b == ',' || b == ']' || b == '}' || b == '[' || b == '{' || b == '"';
+        }
+
+        private static boolean isWhitespace(int b) {
+            return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+        }
+
+        private void append(int b) {
+            if (_length == _buffer.length) {
+                _buffer = Arrays.copyOf(_buffer, 2 * _buffer.length);
+            }
+            _buffer[_length++] = (byte) b;
+        }
+
+        byte[] getBuffer() {
+            return _buffer;
+        }
+
+        int getLength() {
+            return _length;
+        }
+
+        void close() throws IOException {
+            _input.close();
+        }
+    }
+}
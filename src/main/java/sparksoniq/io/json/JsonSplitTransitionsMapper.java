@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.io.json;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.spark.SerializableWritable;
+import org.apache.spark.api.java.function.Function;
+
+import java.io.InputStream;
+
+/**
+ * Scans a range of a JSON file, without knowing whether it starts inside a string, for each of the possible
+ * states at its beginning. This gives, for each of them, the state at the end of the range and the change
+ * of depth, from which the exact state at the beginning of every range of the file is then known.
+ *
+ * The result is the array of the end state followed by the change of depth, for each start state in turn.
+ */
+public class JsonSplitTransitionsMapper implements Function<JsonSplit, int[]> {
+
+	private static final long serialVersionUID = 1L;
+	private final SerializableWritable<Configuration> _configuration;
+
+    public JsonSplitTransitionsMapper(SerializableWritable<Configuration> configuration) {
+        _configuration = configuration;
+    }
+
+    @Override
+    public int[] call(JsonSplit split) throws Exception {
+        JsonStructureScanner[] scanners = new JsonStructureScanner[JsonStructureScanner.NUMBER_OF_STATES];
+        for (int state = 0; state < scanners.length; ++state) {
+            scanners[state] = new JsonStructureScanner(state, 0);
+        }
+        try (InputStream input = split.open(_configuration.value())) {
+            for (long position = split.getStart(); position < split.getEnd(); ++position) {
+                int b = input.read();
+                if (b < 0) {
+                    break;
+                }
+                for (JsonStructureScanner scanner : scanners) {
+                    scanner.consume(b);
+                }
+            }
+        }
+        int[] transitions = new int[2 * scanners.length];
+        for (int state = 0; state < scanners.length; ++state) {
+            transitions[2 * state] = scanners[state].getState();
+            transitions[2 * state + 1] = scanners[state].getDepth();
+        }
+        return transitions;
+    }
+}
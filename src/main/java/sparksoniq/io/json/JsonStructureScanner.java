@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.io.json;
+
+/**
+ * Follows the nesting depth of a JSON text byte by byte, without parsing it: braces and brackets are only
+ * counted outside of strings, and escaped quotes do not end strings. As UTF-8 continuation bytes never
+ * look like ASCII characters, the text does not need to be decoded.
+ */
+public class JsonStructureScanner {
+
+    public static final int OUTSIDE_STRING = 0;
+    public static final int IN_STRING = 1;
+    public static final int IN_STRING_ESCAPED = 2;
+    public static final int NUMBER_OF_STATES = 3;
+
+    private int _state;
+    private int _depth;
+
+    public JsonStructureScanner(int state, int depth) {
+        _state = state;
+        _depth = depth;
+    }
+
+    public void consume(int b) {
+        switch (_state) {
+            case OUTSIDE_STRING:
+                if (b == '"') {
+                    _state = IN_STRING;
+                } else if (b == '{' || b == '[') {
+                    ++_depth;
+                } else if (b == '}' || b == ']') {
+                    --_depth;
+                }
+                break;
+            case IN_STRING:
+                if (b == '\\') {
+                    _state = IN_STRING_ESCAPED;
+                } else if (b == '"') {
+                    _state = OUTSIDE_STRING;
+                }
+                break;
+            default:
+                _state = IN_STRING;
+        }
+    }
+
+    public int getState() {
+        return _state;
+    }
+
+    public int getDepth() {
+        return _depth;
+    }
+
+    public boolean isOutsideString() {
+        return _state == OUTSIDE_STRING;
+    }
+}
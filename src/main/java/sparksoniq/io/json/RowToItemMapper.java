@@ -21,35 +21,28 @@
 package sparksoniq.io.json;
 
 import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.sql.Row;
 import org.rumbledb.api.Item;
 
-import com.jsoniter.JsonIterator;
-
-import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
+import sparksoniq.spark.DataFrameUtils;
 
 import java.util.Iterator;
 
-public class StringToItemMapper implements FlatMapFunction<Iterator<String>, Item> {
+public class RowToItemMapper implements FlatMapFunction<Iterator<Row>, Item> {
 
 	private static final long serialVersionUID = 1L;
-	private final IteratorMetadata metadata;
-
-    public StringToItemMapper(IteratorMetadata metadata) {
-        this.metadata = metadata;
-    }
 
     @Override
-    public Iterator<Item> call(Iterator<String> stringIterator) throws Exception {
+    public Iterator<Item> call(Iterator<Row> rowIterator) throws Exception {
         return new Iterator<Item>() {
             @Override
             public boolean hasNext() {
-                return stringIterator.hasNext();
+                return rowIterator.hasNext();
             }
 
             @Override
             public Item next() {
-                JsonIterator object = JsonIterator.parse(stringIterator.next());
-                return JiqsItemParser.getItemFromObject(object, metadata);
+                return DataFrameUtils.convertRowToItem(rowIterator.next());
             }
 
             @Override
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.io.json;
+
+import org.apache.hadoop.io.Text;
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.rumbledb.api.Item;
+
+import com.jsoniter.JsonIterator;
+
+import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
+
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Parses the lines of a JSON Lines file directly from the bytes read by Hadoop, without decoding them into
+ * strings first: a single JsonIterator is reset over the buffer of every line, and only the keys and
+ * string values that end up in items are decoded.
+ */
+public class TextToItemMapper implements FlatMapFunction<Iterator<Text>, Item> {
+
+	private static final long serialVersionUID = 1L;
+	private final IteratorMetadata metadata;
+    private final Set<String> projectedKeys;
+
+    /**
+     * @param metadata the metadata of the calling iterator, for error reporting
+     * @param projectedKeys the only keys read from the objects of the input, or null if all are needed
+     */
+    public TextToItemMapper(IteratorMetadata metadata, Set<String> projectedKeys) {
+        this.metadata = metadata;
+        this.projectedKeys = projectedKeys;
+    }
+
+    @Override
+    public Iterator<Item> call(Iterator<Text> textIterator) throws Exception {
+        JsonIterator object = JsonIterator.parse(new byte[0]);
+        return new Iterator<Item>() {
+            @Override
+            public boolean hasNext() {
+                return textIterator.hasNext();
+            }
+
+            @Override
+            public Item next() {
+                // Hadoop reuses the same Text for all lines, so the line must be parsed before the next one is read
+                Text line = textIterator.next();
+                object.reset(line.getBytes(), 0, line.getLength());
+                return JiqsItemParser.getItemFromObject(object, metadata, projectedKeys);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -25,7 +25,9 @@ import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.TerminalNode;
 import sparksoniq.exceptions.JsoniqVersionException;
 import sparksoniq.exceptions.ModuleDeclarationException;
+import sparksoniq.exceptions.SemanticException;
 import sparksoniq.exceptions.UnsupportedFeatureException;
+import sparksoniq.exceptions.codes.ErrorCodes;
 import sparksoniq.jsoniq.compiler.parser.JsoniqParser;
 import sparksoniq.jsoniq.compiler.translator.expr.CommaExpression;
 import sparksoniq.jsoniq.compiler.translator.expr.Expression;
@@ -78,7 +80,9 @@ import sparksoniq.semantics.types.ItemTypes;
 import sparksoniq.semantics.types.SequenceType;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 
 //used to build AST, will override methods
@@ -89,6 +93,9 @@ public class JsoniqExpressionTreeVisitor extends sparksoniq.jsoniq.compiler.pars
     private PrimaryExpression currentPrimaryExpression;
     private PostfixExtension currentPostFixExtension;
     private FlworClause currentFlworClause;
+    private List<VariableReference> declaredVariables = new ArrayList<>();
+    private List<VariableReference> externalVariables = new ArrayList<>();
+    private Map<String, Expression> variableValues = new HashMap<>();
 
     public JsoniqExpressionTreeVisitor() {
     }
@@ -98,6 +105,30 @@ public class JsoniqExpressionTreeVisitor extends sparksoniq.jsoniq.compiler.pars
         return queryExpression;
     }
 
+    /**
+     * @return the variables declared in the prolog, external or not, in the order of their declarations
+     */
+    public List<VariableReference> getDeclaredVariables() {
+        return declaredVariables;
+    }
+
+    /**
+     * @return the variables declared as external in the prolog, in the order of their declarations
+     */
+    public List<VariableReference> getExternalVariables() {
+        return externalVariables;
+    }
+
+    /**
+     * The value of a variable declared in the prolog may refer to the variables declared before it.
+     *
+     * @return the values of the variables that are not external and the default values of the external variables
+     * that have one, by variable name
+     */
+    public Map<String, Expression> getVariableValues() {
+        return variableValues;
+    }
+
     @Override
     public Void visitModule(JsoniqParser.ModuleContext ctx) {
         if (!(ctx.vers == null) && !ctx.vers.isEmpty() && !ctx.vers.getText().trim().equals("1.0"))
@@ -106,6 +137,33 @@ public class JsoniqExpressionTreeVisitor extends sparksoniq.jsoniq.compiler.pars
         return null;
     }
 
+    @Override
+    public Void visitVarDecl(JsoniqParser.VarDeclContext ctx) {
+        boolean isExternal = false;
+        for (ParseTree child : ctx.children) {
+            if (child instanceof TerminalNode && child.getText().equals("external")) {
+                isExternal = true;
+            }
+        }
+        this.visitVarRef(ctx.varRef());
+        VariableReference variable = (VariableReference) this.currentPrimaryExpression;
+        for (VariableReference declaredVariable : declaredVariables) {
+            if (declaredVariable.getVariableName().equals(variable.getVariableName())) {
+                throw new SemanticException("Variable $" + variable.getVariableName() + " is declared twice",
+                        ErrorCodes.DuplicateVariableDeclarationErrorCode, createMetadataFromContext(ctx));
+            }
+        }
+        declaredVariables.add(variable);
+        if (isExternal) {
+            externalVariables.add(variable);
+        }
+        if (ctx.exprSingle() != null) {
+            this.visitExprSingle(ctx.exprSingle());
+            variableValues.put(variable.getVariableName(), this.currentExpression);
+        }
+        return null;
+    }
+
     @Override
     public Void visitModuleImport(JsoniqParser.ModuleImportContext ctx) {
         throw new ModuleDeclarationException("Modules are not supported in Sparksoniq", createMetadataFromContext(ctx));
@@ -103,13 +103,19 @@ public class ArrayItem extends JsonItem {
 
     @Override
     public void write(Kryo kryo, Output output) {
-        kryo.writeObject(output, this._arrayItems);
+        output.writeVarInt(this._arrayItems.size(), true);
+        for (Item item : this._arrayItems) {
+            kryo.writeClassAndObject(output, item);
+        }
     }
 
-    @SuppressWarnings("unchecked")
-	@Override
+    @Override
     public void read(Kryo kryo, Input input) {
-        this._arrayItems = kryo.readObject(input, ArrayList.class);
+        int size = input.readVarInt(true);
+        this._arrayItems = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            this._arrayItems.add((Item) kryo.readClassAndObject(input));
+        }
     }
     
     public boolean equals(Object otherItem)
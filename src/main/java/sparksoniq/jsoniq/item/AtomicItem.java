@@ -45,4 +45,30 @@ public abstract class AtomicItem extends Item {
         return false;
     }
 
+    /**
+     * Encodes an atomic item into a key such that two atomic items are equal if and only if their keys are equal:
+     * numbers are normalized to their decimal value, and the type of the other atomics is encoded in the key.
+     * This allows comparing atomics of different numeric types with hash-based structures.
+     *
+     * @param item an item
+     * @return the key of the item, or null if it is not atomic
+     */
+    public static String getComparisonKey(Item item) {
+        if (item.isNull()) {
+            return "null";
+        }
+        if (item.isNumeric()) {
+            if (item.isDouble() && (Double.isNaN(item.getDoubleValue()) || Double.isInfinite(item.getDoubleValue()))) {
+                return "d" + item.getDoubleValue();
+            }
+            return "n" + item.castToDecimalValue().stripTrailingZeros().toPlainString();
+        }
+        if (item.isString()) {
+            return "s" + item.getStringValue();
+        }
+        if (item.isBoolean()) {
+            return "b" + item.getBooleanValue();
+        }
+        return null;
+    }
 }
@@ -91,12 +91,13 @@ public class IntegerItem extends AtomicItem {
 
     @Override
     public void write(Kryo kryo, Output output) {
-        output.writeInt(this._value);
+        // zig-zag varint: small integers of either sign take one or two bytes
+        output.writeVarInt(this._value, false);
     }
 
     @Override
     public void read(Kryo kryo, Input input) {
-        this._value = input.readInt();
+        this._value = input.readVarInt(false);
     }
 
     public boolean equals(Object otherItem) {
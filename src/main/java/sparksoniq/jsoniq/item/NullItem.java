@@ -52,13 +52,11 @@ public class NullItem extends AtomicItem {
 
     @Override
     public void write(Kryo kryo, Output output) {
-        kryo.writeObjectOrNull(output, null, Item.class);
+        // the class tag is enough
     }
 
     @Override
     public void read(Kryo kryo, Input input) {
-        kryo.readObjectOrNull(input, Item.class);
-
     }
     
     public boolean equals(Object otherItem)
@@ -32,6 +32,7 @@ import sparksoniq.semantics.types.ItemType;
 import sparksoniq.semantics.types.ItemTypes;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,8 +41,10 @@ public class ObjectItem extends JsonItem {
 
 
 	private static final long serialVersionUID = 1L;
-	private List<Item> _values;
-    private List<String> _keys;
+	private static final String SHAPES = "objectItemShapes";
+	private static final String KEYS = "objectItemKeys";
+	private ObjectShape _shape;
+    private Item[] _values;
 
     public ObjectItem() {
         super();
@@ -49,9 +52,11 @@ public class ObjectItem extends JsonItem {
 
     public ObjectItem(List<String> keys, List<Item> values, ItemMetadata itemMetadata) {
         super();
-        checkForDuplicateKeys(keys, itemMetadata);
-        this._keys = keys;
-        this._values = values;
+        this._shape = ObjectShape.getShape(keys);
+        if (this._shape == null) {
+            checkForDuplicateKeys(keys, itemMetadata);
+        }
+        this._values = values.toArray(new Item[values.size()]);
     }
 
     /**
@@ -64,35 +69,50 @@ public class ObjectItem extends JsonItem {
         super();
 
         List<String> keyList = new ArrayList<>();
-        List<Item> valueList = new ArrayList<>();
+        Item[] valueArray = new Item[keyValuePairs.size()];
         for (String key : keyValuePairs.keySet()) {
-            // add all keys to the keyList
-            keyList.add(key);
             List<Item> values = keyValuePairs.get(key);
             // for each key, convert the lists of values into arrayItems
             if (values.size() > 1) {
                 Item valuesArray = ItemFactory.getInstance().createArrayItem(values);
-                valueList.add(valuesArray);
+                valueArray[keyList.size()] = valuesArray;
             } else if (values.size() == 1) {
                 Item value = values.get(0);
-                valueList.add(value);
+                valueArray[keyList.size()] = value;
             } else {
                 throw new RuntimeException("Unexpected list size found.");
             }
+            // add all keys to the keyList
+            keyList.add(key);
         }
 
-        this._keys = keyList;
-        this._values = valueList;
+        this._shape = ObjectShape.getShape(keyList);
+        this._values = valueArray;
     }
 
     @Override
     public List<String> getKeys() {
-        return _keys;
+        return _shape.getKeys();
     }
 
     @Override
     public List<Item> getValues() {
-        return _values;
+        return Arrays.asList(_values);
+    }
+
+    /**
+     * @return the shape shared by all the objects with the same keys in the same order.
+     */
+    public ObjectShape getShape() {
+        return _shape;
+    }
+
+    /**
+     * @param slot the position of a key in the shape of this object
+     * @return the value associated with this key
+     */
+    public Item getItemAt(int slot) {
+        return _values[slot];
     }
 
     private void checkForDuplicateKeys(List<String> keys, ItemMetadata metadata) {
@@ -108,20 +128,23 @@ public class ObjectItem extends JsonItem {
 
     @Override
     public Item getItemByKey(String s) {
-        if (_keys.contains(s))
-            return _values.get(_keys.indexOf(s));
+        int slot = _shape.getSlot(s);
+        if (slot >= 0)
+            return _values[slot];
         else
             return null;
     }
 
     @Override
     public void putItemByKey(String s, Item value) {
-        _values.replaceAll(item -> {
-            if (_values.indexOf(item) == _keys.indexOf(s))
-                return value;
-            else
-                return item;
-        });
+        int slot = _shape.getSlot(s);
+        if (slot >= 0) {
+            _values[slot] = value;
+            return;
+        }
+        _shape = _shape.withKey(s);
+        _values = Arrays.copyOf(_values, _values.length + 1);
+        _values[_values.length - 1] = value;
     }
 
     @Override
@@ -140,9 +163,10 @@ public class ObjectItem extends JsonItem {
     public String serialize() {
         StringBuilder sb = new StringBuilder();
         sb.append("{ ");
-        for (int i = 0; i < _keys.size(); ++i) {
-            String key = _keys.get(i);
-            Item value = _values.get(i);
+        List<String> keys = _shape.getKeys();
+        for (int i = 0; i < keys.size(); ++i) {
+            String key = keys.get(i);
+            Item value = _values[i];
             boolean isStringValue = value.isString();
             sb.append("\"" + StringEscapeUtils.escapeJson(key) + "\"" + " : ");
             if (isStringValue) {
@@ -153,7 +177,7 @@ public class ObjectItem extends JsonItem {
                 sb.append(value.serialize());
             }
 
-            if (i < _keys.size() - 1)
+            if (i < keys.size() - 1)
                 sb.append(", ");
             else
                 sb.append(" ");
@@ -164,15 +188,88 @@ public class ObjectItem extends JsonItem {
 
     @Override
     public void write(Kryo kryo, Output output) {
-        kryo.writeObject(output, _keys);
-        kryo.writeObject(output, _values);
+        // the keys of an object are written only once per serialized graph: objects with the same keys
+        // in the same order, e.g., all the objects of a grouped sequence, then only refer to it
+        Map<ObjectShape, Integer> shapes = getWrittenDictionary(kryo, SHAPES);
+        Integer shape = shapes.get(_shape);
+        if (shape != null) {
+            output.writeVarInt(shape + 1, true);
+        } else {
+            output.writeVarInt(0, true);
+            output.writeVarInt(_shape.size(), true);
+            Map<String, Integer> keys = getWrittenDictionary(kryo, KEYS);
+            for (String key : _shape.getKeys()) {
+                Integer keyIndex = keys.get(key);
+                if (keyIndex != null) {
+                    output.writeVarInt(keyIndex + 1, true);
+                } else {
+                    output.writeVarInt(0, true);
+                    output.writeString(key);
+                    keys.put(key, keys.size());
+                }
+            }
+            shapes.put(_shape, shapes.size());
+        }
+        for (Item value : _values) {
+            kryo.writeClassAndObject(output, value);
+        }
     }
 
-    @SuppressWarnings("unchecked")
-	@Override
+    @Override
     public void read(Kryo kryo, Input input) {
-        this._keys = kryo.readObject(input, ArrayList.class);
-        this._values = kryo.readObject(input, ArrayList.class);
+        List<ObjectShape> shapes = getReadDictionary(kryo, SHAPES);
+        int shape = input.readVarInt(true);
+        if (shape > 0) {
+            this._shape = shapes.get(shape - 1);
+        } else {
+            int size = input.readVarInt(true);
+            List<String> keys = getReadDictionary(kryo, KEYS);
+            List<String> shapeKeys = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                int keyIndex = input.readVarInt(true);
+                if (keyIndex > 0) {
+                    shapeKeys.add(keys.get(keyIndex - 1));
+                } else {
+                    String key = input.readString();
+                    keys.add(key);
+                    shapeKeys.add(key);
+                }
+            }
+            this._shape = ObjectShape.getShape(shapeKeys);
+            shapes.add(this._shape);
+        }
+        this._values = new Item[this._shape.size()];
+        for (int i = 0; i < this._values.length; ++i) {
+            this._values[i] = (Item) kryo.readClassAndObject(input);
+        }
+    }
+
+    /**
+     * Returns a dictionary that lives as long as the graph being serialized: a map from keys or key lists
+     * to their indices.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Map<T, Integer> getWrittenDictionary(Kryo kryo, String name) {
+        Object dictionary = kryo.getGraphContext().get(name);
+        if (dictionary == null) {
+            dictionary = new HashMap<T, Integer>();
+            kryo.getGraphContext().put(name, dictionary);
+        }
+        return (Map<T, Integer>) dictionary;
+    }
+
+    /**
+     * Returns a dictionary that lives as long as the graph being deserialized: the keys or key lists in the
+     * order in which they were first written.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> getReadDictionary(Kryo kryo, String name) {
+        Object dictionary = kryo.getGraphContext().get(name);
+        if (dictionary == null) {
+            dictionary = new ArrayList<T>();
+            kryo.getGraphContext().put(name, dictionary);
+        }
+        return (List<T>) dictionary;
     }
     
     public boolean equals(Object otherItem)
@@ -186,26 +283,22 @@ public class ObjectItem extends JsonItem {
         {
             return false;
         }
-        for(String s : getKeys())
+        if(o instanceof ObjectItem && ((ObjectItem) o)._shape.equals(_shape))
         {
-            Item v = o.getItemByKey(s);
-            if(v == null)
-            {
-                return false;
-            }
-            if(!getItemByKey(s).equals(v))
-            {
-                return false;
-            }
+            return Arrays.equals(_values, ((ObjectItem) o)._values);
+        }
+        if(o.getKeys().size() != _values.length)
+        {
+            return false;
         }
-        for(String s : o.getKeys())
+        for(int i = 0; i < _values.length; ++i)
         {
-            Item v = getItemByKey(s);
+            Item v = o.getItemByKey(_shape.getKeys().get(i));
             if(v == null)
             {
                 return false;
             }
-            if(!o.getItemByKey(s).equals(v))
+            if(!_values[i].equals(v))
             {
                 return false;
             }
@@ -216,10 +309,10 @@ public class ObjectItem extends JsonItem {
     public int hashCode()
     {
         int result = 0;
-        result += getSize();
-        for(String s : getKeys())
+        result += _values.length;
+        for(Item value : _values)
         {
-            result += getItemByKey(s).hashCode();
+            result += value.hashCode();
         }
         return result;
     }
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.jsoniq.item;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The ordered keys of an object item, together with the slot of each key in the values of the object.
+ *
+ * Shapes are immutable and interned, so that all the objects with the same keys in the same order,
+ * e.g., the objects of a JSON Lines file, share a single shape and only store their values.
+ */
+public class ObjectShape implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    // beyond this number of distinct shapes, new shapes are no longer interned, to bound the memory used
+    private static final int MAX_INTERNED_SHAPES = 10000;
+    private static final Map<List<String>, ObjectShape> _internedShapes = new ConcurrentHashMap<>();
+    public static final ObjectShape EMPTY = getShape(Collections.emptyList());
+
+    private final List<String> _keys;
+    private final Map<String, Integer> _slots;
+    private final int _hashCode;
+
+    private ObjectShape(List<String> keys, Map<String, Integer> slots) {
+        _keys = keys;
+        _slots = slots;
+        _hashCode = keys.hashCode();
+    }
+
+    /**
+     * @param keys the keys of an object, in order
+     * @return the shape with these keys, or null if some keys are duplicated
+     */
+    public static ObjectShape getShape(List<String> keys) {
+        ObjectShape shape = _internedShapes.get(keys);
+        if (shape != null) {
+            return shape;
+        }
+        List<String> keysCopy = Collections.unmodifiableList(new ArrayList<>(keys));
+        Map<String, Integer> slots = new HashMap<>(keysCopy.size() * 2);
+        for (int i = 0; i < keysCopy.size(); ++i) {
+            if (slots.put(keysCopy.get(i), i) != null) {
+                return null;
+            }
+        }
+        shape = new ObjectShape(keysCopy, slots);
+        if (_internedShapes.size() >= MAX_INTERNED_SHAPES) {
+            return shape;
+        }
+        ObjectShape existingShape = _internedShapes.putIfAbsent(keysCopy, shape);
+        return existingShape != null ? existingShape : shape;
+    }
+
+    /**
+     * @param key a key
+     * @return the shape with the keys of this shape followed by key, or null if this shape already has key
+     */
+    public ObjectShape withKey(String key) {
+        if (_slots.containsKey(key)) {
+            return null;
+        }
+        List<String> keys = new ArrayList<>(_keys.size() + 1);
+        keys.addAll(_keys);
+        keys.add(key);
+        return getShape(keys);
+    }
+
+    public List<String> getKeys() {
+        return _keys;
+    }
+
+    /**
+     * @param key a key
+     * @return the position of the value associated with key in the objects of this shape, or -1 if there is none
+     */
+    public int getSlot(String key) {
+        Integer slot = _slots.get(key);
+        return slot == null ? -1 : slot;
+    }
+
+    public int size() {
+        return _keys.size();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ObjectShape)) {
+            return false;
+        }
+        ObjectShape otherShape = (ObjectShape) other;
+        return _hashCode == otherShape._hashCode && _keys.equals(otherShape._keys);
+    }
+
+    @Override
+    public int hashCode() {
+        return _hashCode;
+    }
+
+    private Object readResolve() {
+        return getShape(_keys);
+    }
+}
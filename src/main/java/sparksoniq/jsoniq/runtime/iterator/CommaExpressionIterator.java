@@ -23,6 +23,7 @@ package sparksoniq.jsoniq.runtime.iterator;
 import sparksoniq.exceptions.IteratorFlowException;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.semantics.DynamicContext;
+import sparksoniq.semantics.types.ItemTypes;
 
 import java.util.List;
 
@@ -40,7 +41,7 @@ public class CommaExpressionIterator extends LocalRuntimeIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (_hasNext == true) {
             Item result = _nextResult;  // save the result to be returned
             setNextResult();            // calculate and store the next result
@@ -82,4 +83,17 @@ public class CommaExpressionIterator extends LocalRuntimeIterator {
             this._hasNext = true;
         }
     }
+
+    @Override
+    public ItemTypes getStaticItemType() {
+        ItemTypes result = null;
+        for (RuntimeIterator child : this._children) {
+            ItemTypes childType = child.getStaticItemType();
+            if (childType == null || (result != null && result != childType)) {
+                return null;
+            }
+            result = childType;
+        }
+        return result;
+    }
 }
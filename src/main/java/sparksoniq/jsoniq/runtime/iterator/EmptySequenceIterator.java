@@ -40,7 +40,7 @@ public class EmptySequenceIterator extends LocalRuntimeIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         throw new IteratorFlowException("Invalid next() call on Empty Sequence", getMetadata());
     }
 }
@@ -21,6 +21,8 @@
 package sparksoniq.jsoniq.runtime.iterator;
 
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
 import org.rumbledb.api.Item;
 
 import sparksoniq.Main;
@@ -64,7 +66,7 @@ public abstract class HybridRuntimeIterator extends RuntimeIterator {
     }
 
     @Override
-    public boolean getDataFrame() {
+    public Dataset<Row> getDataFrame(DynamicContext context) {
         throw new SparkRuntimeException("Iterator has no DataFrames", getMetadata());
     }
 
@@ -103,9 +105,8 @@ public abstract class HybridRuntimeIterator extends RuntimeIterator {
         }
         if (result == null) {
             currentResultIndex = 0;
-            this._rdd = this.getRDD(_currentDynamicContext);
             if (SparkSessionManager.LIMIT_COLLECT()) {
-                result = _rdd.take(SparkSessionManager.COLLECT_ITEM_LIMIT);
+                result = getFirstItems(_currentDynamicContext, SparkSessionManager.COLLECT_ITEM_LIMIT);
                 if (result.size() == SparkSessionManager.COLLECT_ITEM_LIMIT) {
                     if (Main.terminal == null) {
                         System.out.println("Results have been truncated to:" + SparkSessionManager.COLLECT_ITEM_LIMIT
@@ -116,7 +117,8 @@ public abstract class HybridRuntimeIterator extends RuntimeIterator {
                     }
                 }
             } else {
-                result = _rdd.collect();
+                this._rdd = this.getRDD(_currentDynamicContext);
+                result = IteratorStatistics.runSparkAction(_statistics, () -> _rdd.collect());
             }
             _hasNext = !result.isEmpty();
         }
@@ -126,7 +128,10 @@ public abstract class HybridRuntimeIterator extends RuntimeIterator {
     @Override
     public Item next() {
         if (!_isRDD) {
-            return nextLocal();
+            Item item = nextLocal();
+            if (_statistics != null)
+                _statistics.recordItem();
+            return item;
         }
         if (!this._isOpen)
             throw new IteratorFlowException("Runtime iterator is not open", getMetadata());
@@ -139,6 +144,8 @@ public abstract class HybridRuntimeIterator extends RuntimeIterator {
 
         Item item = result.get(currentResultIndex);
         currentResultIndex++;
+        if (_statistics != null)
+            _statistics.recordItem();
         return item;
     }
 
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.jsoniq.runtime.iterator;
+
+import org.apache.spark.SparkJobInfo;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.util.LongAccumulator;
+
+import sparksoniq.spark.SparkSessionManager;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The runtime statistics of an iterator or a tuple iterator, printed with the iterator tree after the execution
+ * of a query when it runs with --explain-analyze yes.
+ *
+ * The counters are Spark accumulators, so that the opens, resets, items and time of the iterators evaluated on
+ * the executors, e.g., the expressions of a where clause evaluated in a UDF, are added to those on the driver.
+ * The Spark jobs triggered by an iterator are tagged with a job group specific to this iterator.
+ *
+ * Opens, resets and items are counted for all iterators and tuple iterators. The time is the wall time between
+ * open() and close(), including the time spent in the children.
+ */
+public class IteratorStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final String JOB_GROUP_PROPERTY = "spark.jobGroup.id";
+    private static final String JOB_DESCRIPTION_PROPERTY = "spark.job.description";
+    private static final AtomicInteger _nextId = new AtomicInteger();
+
+    private final String _jobGroup;
+    private final String _iteratorName;
+    private final LongAccumulator _opens;
+    private final LongAccumulator _resets;
+    private final LongAccumulator _items;
+    private final LongAccumulator _nanoseconds;
+    private transient long _openTime;
+
+    private IteratorStatistics(String iteratorName) {
+        _iteratorName = iteratorName;
+        _jobGroup = "rumble-iterator-" + _nextId.incrementAndGet();
+        JavaSparkContext sparkContext = SparkSessionManager.getInstance().getJavaSparkContext();
+        _opens = sparkContext.sc().longAccumulator(_jobGroup + "-opens");
+        _resets = sparkContext.sc().longAccumulator(_jobGroup + "-resets");
+        _items = sparkContext.sc().longAccumulator(_jobGroup + "-items");
+        _nanoseconds = sparkContext.sc().longAccumulator(_jobGroup + "-nanoseconds");
+    }
+
+    /**
+     * @param iterator an iterator or tuple iterator built with runtime statistics
+     * @return new statistics for the iterator
+     */
+    public static IteratorStatistics create(Object iterator) {
+        return new IteratorStatistics(iterator.getClass().getSimpleName());
+    }
+
+    public void recordOpen() {
+        _opens.add(1);
+        _openTime = System.nanoTime();
+    }
+
+    public void recordReset() {
+        _resets.add(1);
+    }
+
+    public void recordClose() {
+        if (_openTime != 0) {
+            _nanoseconds.add(System.nanoTime() - _openTime);
+            _openTime = 0;
+        }
+    }
+
+    public void recordItem() {
+        _items.add(1);
+    }
+
+    /**
+     * Runs a Spark action of an iterator, so that the jobs it triggers are tagged with the job group of the iterator.
+     *
+     * @param statistics the statistics of the iterator, or null if statistics are not enabled
+     * @param action     the Spark action
+     * @param <T>        the type of the result of the action
+     * @return the result of the action
+     */
+    public static <T> T runSparkAction(IteratorStatistics statistics, Supplier<T> action) {
+        if (statistics == null) {
+            return action.get();
+        }
+        JavaSparkContext sparkContext = SparkSessionManager.getInstance().getJavaSparkContext();
+        String previousJobGroup = sparkContext.getLocalProperty(JOB_GROUP_PROPERTY);
+        String previousDescription = sparkContext.getLocalProperty(JOB_DESCRIPTION_PROPERTY);
+        sparkContext.setJobGroup(statistics._jobGroup, statistics._iteratorName, false);
+        try {
+            return action.get();
+        } finally {
+            if (previousJobGroup == null) {
+                sparkContext.clearJobGroup();
+            } else {
+                sparkContext.setJobGroup(previousJobGroup, previousDescription, false);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append("opens: " + _opens.value());
+        result.append(", resets: " + _resets.value());
+        result.append(", items: " + _items.value());
+        long nanoseconds = _nanoseconds.value();
+        if (_openTime != 0) {
+            // the iterator has not been closed, e.g., the root iterator after its items were output
+            nanoseconds += System.nanoTime() - _openTime;
+        }
+        result.append(", time: " + (nanoseconds / 1000000) + " ms");
+        JavaSparkContext sparkContext = SparkSessionManager.getInstance().getJavaSparkContext();
+        int[] jobIds = sparkContext.statusTracker().getJobIdsForGroup(_jobGroup);
+        if (jobIds.length > 0) {
+            List<Integer> jobs = new ArrayList<>();
+            List<Integer> stages = new ArrayList<>();
+            for (int jobId : jobIds) {
+                jobs.add(jobId);
+                SparkJobInfo jobInfo = sparkContext.statusTracker().getJobInfo(jobId);
+                if (jobInfo != null) {
+                    for (int stageId : jobInfo.stageIds()) {
+                        stages.add(stageId);
+                    }
+                }
+            }
+            jobs.sort(null);
+            stages.sort(null);
+            result.append(", Spark jobs: " + jobs);
+            result.append(", Spark stages: " + stages);
+        }
+        return result.toString();
+    }
+}
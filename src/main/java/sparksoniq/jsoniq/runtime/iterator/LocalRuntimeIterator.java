@@ -21,6 +21,8 @@
 package sparksoniq.jsoniq.runtime.iterator;
 
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
 import org.rumbledb.api.Item;
 
 import sparksoniq.exceptions.SparkRuntimeException;
@@ -37,6 +39,16 @@ public abstract class LocalRuntimeIterator extends RuntimeIterator {
         super(children, iteratorMetadata);
     }
 
+    @Override
+    public final Item next() {
+        Item item = nextLocal();
+        if (_statistics != null)
+            _statistics.recordItem();
+        return item;
+    }
+
+    protected abstract Item nextLocal();
+
     @Override
     public JavaRDD<Item> getRDD(DynamicContext dynamicContext) {
         throw new SparkRuntimeException("Iterator has no RDDs", getMetadata());
@@ -51,7 +63,7 @@ public abstract class LocalRuntimeIterator extends RuntimeIterator {
     }
 
     @Override
-    public boolean getDataFrame() {
+    public Dataset<Row> getDataFrame(DynamicContext context) {
         throw new SparkRuntimeException("Iterator has no DataFrames", getMetadata());
     }
 }
@@ -25,6 +25,8 @@ import com.esotericsoftware.kryo.KryoSerializable;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
 import org.rumbledb.api.Item;
 
 import sparksoniq.exceptions.InvalidArgumentTypeException;
@@ -33,22 +35,31 @@ import sparksoniq.exceptions.SparksoniqRuntimeException;
 import sparksoniq.exceptions.UnexpectedTypeException;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.semantics.DynamicContext;
+import sparksoniq.semantics.types.ItemTypes;
+import sparksoniq.spark.closures.PartitionCountClosure;
+import sparksoniq.spark.closures.PartitionRangeClosure;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 public abstract class RuntimeIterator implements RuntimeIteratorInterface, KryoSerializable {
 
 	private static final long serialVersionUID = 1L;
 	protected static final String FLOW_EXCEPTION_MESSAGE = "Invalid next() call; ";
+    // up to this position, ranges of items are taken from the first items, which is cheaper than counting the
+    // items of every partition of an RDD
+    private static final int MAX_RANGE_END_FROM_FIRST_ITEMS = 1000;
     private final IteratorMetadata metadata;
     protected boolean _hasNext;
     protected boolean _isOpen;
     protected List<RuntimeIterator> _children;
     protected DynamicContext _currentDynamicContext;
+    protected IteratorStatistics _statistics;
 
     protected RuntimeIterator(List<RuntimeIterator> children, IteratorMetadata metadata) {
         this.metadata = metadata;
@@ -116,14 +127,20 @@ public abstract class RuntimeIterator implements RuntimeIteratorInterface, KryoS
         this._isOpen = true;
         this._hasNext = true;
         this._currentDynamicContext = context;
+        if (this._statistics != null)
+            this._statistics.recordOpen();
     }
 
     public void close() {
         this._isOpen = false;
         this._children.forEach(c -> c.close());
+        if (this._statistics != null)
+            this._statistics.recordClose();
     }
 
     public void reset(DynamicContext context) {
+        if (this._statistics != null)
+            this._statistics.recordReset();
         this._hasNext = true;
         this._currentDynamicContext = context;
         this._children.forEach(c -> c.reset(context));
@@ -154,6 +171,28 @@ public abstract class RuntimeIterator implements RuntimeIteratorInterface, KryoS
         return _isOpen;
     }
 
+    /**
+     * Makes the iterator and its descendants collect runtime statistics, printed with the iterator tree.
+     */
+    public void enableStatistics() {
+        if (this._statistics != null)
+            return;
+        this._statistics = IteratorStatistics.create(this);
+        for (RuntimeIterator child : this._children)
+            child.enableStatistics();
+    }
+
+    /**
+     * @return the runtime statistics of the iterator, or null if statistics are not enabled
+     */
+    public IteratorStatistics getStatistics() {
+        return _statistics;
+    }
+
+    public List<RuntimeIterator> getChildren() {
+        return _children;
+    }
+
     public IteratorMetadata getMetadata() {
         return metadata;
     }
@@ -164,10 +203,95 @@ public abstract class RuntimeIterator implements RuntimeIteratorInterface, KryoS
 
     public abstract boolean isDataFrame();
 
-    public abstract boolean getDataFrame();
+    public abstract Dataset<Row> getDataFrame(DynamicContext context);
 
     public abstract Item next();
 
+    /**
+     * Computes the first items of the sequence returned by this iterator, for consumers that do not need the
+     * others, such as head() and subsequence(). Iterators that can compute a prefix of their output more cheaply
+     * than the whole sequence override this method.
+     *
+     * @param context the dynamic context in which to evaluate the iterator
+     * @param limit   the maximum number of items to return
+     * @return the first items, at most limit of them
+     */
+    public List<Item> getFirstItems(DynamicContext context, int limit) {
+        if (isRDD()) {
+            return IteratorStatistics.runSparkAction(_statistics, () -> getRDD(context).take(limit));
+        }
+        List<Item> result = new ArrayList<>();
+        open(context);
+        while (result.size() < limit && hasNext())
+            result.add(next());
+        close();
+        return result;
+    }
+
+    /**
+     * Computes the items of the sequence returned by this iterator within a range of positions, for positional
+     * predicates and subsequence(). On RDDs, unless the range is among the first items, the number of items in
+     * every partition is computed first, so that only the partitions holding the range are then computed again
+     * and sent to the driver.
+     *
+     * @param context the dynamic context in which to evaluate the iterator
+     * @param start   the position of the first item of the range, starting at 1
+     * @param length  the maximum number of items to return
+     * @return the items at positions start to start + length - 1, which may be fewer
+     */
+    public List<Item> getItemRange(DynamicContext context, long start, int length) {
+        List<Item> result = new ArrayList<>();
+        if (start < 1 || length <= 0) {
+            return result;
+        }
+        long end = start + length - 1;
+        if (end <= MAX_RANGE_END_FROM_FIRST_ITEMS) {
+            List<Item> items = getFirstItems(context, (int) end);
+            for (int index = (int) start - 1; index < items.size(); ++index) {
+                result.add(items.get(index));
+            }
+            return result;
+        }
+        if (isRDD()) {
+            JavaRDD<Item> rdd = getRDD(context);
+            List<Long> counts = IteratorStatistics.runSparkAction(_statistics,
+                    () -> rdd.mapPartitions(new PartitionCountClosure()).collect());
+            long[] partitionStarts = new long[counts.size()];
+            List<Integer> partitions = new ArrayList<>();
+            long partitionStart = 1;
+            for (int partition = 0; partition < counts.size(); ++partition) {
+                partitionStarts[partition] = partitionStart;
+                long partitionEnd = partitionStart + counts.get(partition) - 1;
+                if (partitionStart <= partitionEnd && partitionStart <= end && partitionEnd >= start) {
+                    partitions.add(partition);
+                }
+                partitionStart = partitionEnd + 1;
+            }
+            if (partitions.isEmpty()) {
+                return result;
+            }
+            int[] partitionIds = partitions.stream().mapToInt(Integer::intValue).toArray();
+            List<Item>[] ranges = IteratorStatistics.runSparkAction(_statistics, () -> rdd
+                    .mapPartitionsWithIndex(new PartitionRangeClosure(partitionStarts, start, end), true)
+                    .collectPartitions(partitionIds));
+            for (List<Item> range : ranges) {
+                result.addAll(range);
+            }
+            return result;
+        }
+        open(context);
+        long position = 1;
+        while (position <= end && hasNext()) {
+            Item item = next();
+            if (position >= start) {
+                result.add(item);
+            }
+            ++position;
+        }
+        close();
+        return result;
+    }
+
     protected List<Item> runChildrenIterators(DynamicContext context) {
         List<Item> values = new ArrayList<>();
         for (RuntimeIterator iterator : this._children) {
@@ -215,10 +339,95 @@ public abstract class RuntimeIterator implements RuntimeIteratorInterface, KryoS
         Map<String, DynamicContext.VariableDependency> result = new TreeMap<String, DynamicContext.VariableDependency>();
         for(RuntimeIterator iterator : _children)
         {
-            result.putAll(iterator.getVariableDependencies());
+            mergeVariableDependencies(result, iterator.getVariableDependencies());
+        }
+        return result;
+    }
+
+    /**
+     * Adds the dependencies of a subexpression. If a variable is used in different ways, e.g., with both
+     * count() and sum(), the full sequence of items is needed.
+     */
+    protected static void mergeVariableDependencies(
+            Map<String, DynamicContext.VariableDependency> result,
+            Map<String, DynamicContext.VariableDependency> dependencies)
+    {
+        for(Map.Entry<String, DynamicContext.VariableDependency> dependency : dependencies.entrySet())
+        {
+            DynamicContext.VariableDependency existingDependency = result.get(dependency.getKey());
+            if(existingDependency != null && existingDependency != dependency.getValue())
+            {
+                result.put(dependency.getKey(), DynamicContext.VariableDependency.FULL);
+            } else {
+                result.put(dependency.getKey(), dependency.getValue());
+            }
+        }
+    }
+    
+    /**
+     * Returns the keys that this iterator looks up in the objects bound to a variable, which allows structured
+     * inputs to only read these keys.
+     *
+     * @param variableName the name of the variable, including the $ sign
+     * @return the keys looked up, or null if the items bound to the variable are used in any other way.
+     */
+    public Set<String> getLookedUpKeys(String variableName)
+    {
+        Set<String> result = new HashSet<String>();
+        for(RuntimeIterator iterator : _children)
+        {
+            if(!iterator.getVariableDependencies().containsKey(variableName))
+            {
+                continue;
+            }
+            Set<String> keys = iterator.getLookedUpKeys(variableName);
+            if(keys == null)
+            {
+                return null;
+            }
+            result.addAll(keys);
         }
         return result;
     }
+
+    /**
+     * Returns the keys with which this iterator looks up values in the items bound to a variable before
+     * aggregating them, e.g. ["amount"] for sum($x.amount), which allows a group by clause to aggregate the
+     * looked-up values before they are shuffled.
+     *
+     * @param variableName the name of the variable, including the $ sign
+     * @return the lookup chains, an empty list standing for an aggregation of the variable itself,
+     * or null if the items bound to the variable are used in any other way.
+     */
+    public Set<List<String>> getAggregatedLookupKeys(String variableName)
+    {
+        Set<List<String>> result = new HashSet<List<String>>();
+        for(RuntimeIterator iterator : _children)
+        {
+            if(!iterator.getVariableDependencies().containsKey(variableName))
+            {
+                continue;
+            }
+            Set<List<String>> keys = iterator.getAggregatedLookupKeys(variableName);
+            if(keys == null)
+            {
+                return null;
+            }
+            result.addAll(keys);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the type that all items returned by this iterator are known to have before execution,
+     * which allows FLWOR clauses to store them in native DataFrame columns instead of binary ones.
+     *
+     * @return the statically known item type, or null if it is unknown or not the same for all items.
+     */
+    public ItemTypes getStaticItemType()
+    {
+        return null;
+    }
     
     public void print(StringBuffer buffer, int indent)
     {
@@ -235,6 +444,11 @@ public abstract class RuntimeIterator implements RuntimeIteratorInterface, KryoS
         {
           buffer.append(v + "(" + dependencies.get(v) + ")"  + " ");
         }
+        if (_statistics != null)
+        {
+            buffer.append(" | ");
+            buffer.append(_statistics);
+        }
         buffer.append("\n");
         for (RuntimeIterator iterator : this._children) {
             iterator.print(buffer, indent + 1);
@@ -21,6 +21,8 @@
 package sparksoniq.jsoniq.runtime.iterator;
 
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
 import org.rumbledb.api.Item;
 
 import sparksoniq.Main;
@@ -58,7 +60,7 @@ public abstract class SparkRuntimeIterator extends RuntimeIterator {
     }
 
     @Override
-    public boolean getDataFrame() {
+    public Dataset<Row> getDataFrame(DynamicContext context) {
         throw new SparkRuntimeException("Iterator has no DataFrames", getMetadata());
     }
 
@@ -78,9 +80,8 @@ public abstract class SparkRuntimeIterator extends RuntimeIterator {
     public boolean hasNext() {
         if (result == null) {
             currentResultIndex = 0;
-            this._rdd = this.getRDD(_currentDynamicContext);
             if (SparkSessionManager.LIMIT_COLLECT()) {
-                result = _rdd.take(SparkSessionManager.COLLECT_ITEM_LIMIT);
+                result = getFirstItems(_currentDynamicContext, SparkSessionManager.COLLECT_ITEM_LIMIT);
                 if (result.size() == SparkSessionManager.COLLECT_ITEM_LIMIT) {
                     if (Main.terminal == null) {
                         System.out.println("Results have been truncated to:" + SparkSessionManager.COLLECT_ITEM_LIMIT
@@ -91,7 +92,8 @@ public abstract class SparkRuntimeIterator extends RuntimeIterator {
                     }
                 }
             } else {
-                result = _rdd.collect();
+                this._rdd = this.getRDD(_currentDynamicContext);
+                result = IteratorStatistics.runSparkAction(_statistics, () -> _rdd.collect());
             }
             _hasNext = !result.isEmpty();
         }
@@ -111,6 +113,8 @@ public abstract class SparkRuntimeIterator extends RuntimeIterator {
 
         Item item = result.get(currentResultIndex);
         currentResultIndex++;
+        if (_statistics != null)
+            _statistics.recordItem();
         return item;
     }
 }
@@ -26,7 +26,6 @@ import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.semantics.DynamicContext;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.rumbledb.api.Item;
@@ -50,38 +49,41 @@ public class IfRuntimeIterator extends LocalRuntimeIterator {
     @Override
     public void reset(DynamicContext context) {
         super.reset(context);
-        this.result = null;
+        setResult();
     }
 
     @Override
     public void open(DynamicContext context) {
         super.open(context);
-        this.result = null;
+        setResult();
     }
 
     @Override
-    public Item next() {
-        if (result == null) {
-            currentIndex = 0;
-            RuntimeIterator condition = this._children.get(0);
-            RuntimeIterator branch = this._children.get(1);
-            RuntimeIterator elseBranch = null;
-            if (this._children.size() > 2)
-                elseBranch = this._children.get(2);
-            condition.open(_currentDynamicContext);
-            boolean effectiveBooleanValue = getEffectiveBooleanValue(condition);
-            condition.close();
-            result = new ArrayList<>();
-            if (effectiveBooleanValue) {
-                result = getItemsFromIteratorWithCurrentContext(branch);
-            } else {
-                result = getItemsFromIteratorWithCurrentContext(elseBranch);
-            }
+    protected Item nextLocal() {
+        if (this._hasNext) {
+            Item item = result.get(currentIndex++);
+            this._hasNext = currentIndex < result.size();
+            return item;
         }
-        if (currentIndex > result.size() - 1)
-            throw new IteratorFlowException(RuntimeIterator.FLOW_EXCEPTION_MESSAGE + "If expr", getMetadata());
-        if (currentIndex == result.size() - 1)
-            this._hasNext = false;
-        return result.get(currentIndex++);
+        throw new IteratorFlowException(RuntimeIterator.FLOW_EXCEPTION_MESSAGE + "If expr", getMetadata());
+    }
+
+    // the branch is evaluated beforehand, so that hasNext() is false if it returns the empty sequence
+    private void setResult() {
+        currentIndex = 0;
+        RuntimeIterator condition = this._children.get(0);
+        RuntimeIterator branch = this._children.get(1);
+        RuntimeIterator elseBranch = null;
+        if (this._children.size() > 2)
+            elseBranch = this._children.get(2);
+        condition.open(_currentDynamicContext);
+        boolean effectiveBooleanValue = getEffectiveBooleanValue(condition);
+        condition.close();
+        if (effectiveBooleanValue) {
+            result = getItemsFromIteratorWithCurrentContext(branch);
+        } else {
+            result = getItemsFromIteratorWithCurrentContext(elseBranch);
+        }
+        this._hasNext = !result.isEmpty();
     }
 }
@@ -62,7 +62,7 @@ public class SwitchRuntimeIterator extends LocalRuntimeIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             matchingIterator.open(_currentDynamicContext);
             Item nextItem = matchingIterator.next();
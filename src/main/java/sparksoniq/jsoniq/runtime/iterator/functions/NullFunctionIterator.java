@@ -39,7 +39,7 @@ public class NullFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         return ItemFactory.getInstance().createNullItem();
     }
 }
@@ -57,7 +57,7 @@ public class ArrayDescendantFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             Item result = _nextResults.remove();  // save the result to be returned
             if (_nextResults.isEmpty()) {
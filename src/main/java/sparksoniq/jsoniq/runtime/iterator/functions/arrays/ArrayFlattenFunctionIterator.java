@@ -45,7 +45,7 @@ public class ArrayFlattenFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (_hasNext == true) {
             Item result = _nextResults.remove();  // save the result to be returned
             if (_nextResults.isEmpty()) {
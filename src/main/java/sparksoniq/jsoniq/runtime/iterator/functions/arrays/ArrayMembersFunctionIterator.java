@@ -55,7 +55,7 @@ public class ArrayMembersFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (_hasNext == true) {
             Item result = _nextResults.remove();  // save the result to be returned
             if (_nextResults.isEmpty()) {
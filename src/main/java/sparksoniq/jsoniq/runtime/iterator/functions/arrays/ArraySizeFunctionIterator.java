@@ -58,7 +58,7 @@ public class ArraySizeFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             this._hasNext = false;
 
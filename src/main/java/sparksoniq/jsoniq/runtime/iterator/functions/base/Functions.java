@@ -87,7 +87,12 @@ import sparksoniq.jsoniq.runtime.iterator.functions.strings.SubstringFunctionIte
 import sparksoniq.jsoniq.runtime.iterator.functions.strings.TokenizeFunctionIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.spark.iterator.function.ParallelizeFunctionIterator;
+import sparksoniq.spark.iterator.function.ParseAvroFunctionIterator;
+import sparksoniq.spark.iterator.function.ParseCsvFunctionIterator;
 import sparksoniq.spark.iterator.function.ParseJsonFunctionIterator;
+import sparksoniq.spark.iterator.function.ParseMultiLineJsonFunctionIterator;
+import sparksoniq.spark.iterator.function.ParseParquetFunctionIterator;
+import sparksoniq.spark.iterator.function.ParseStructuredJsonFunctionIterator;
 import sparksoniq.spark.iterator.function.ParseTextFunctionIterator;
 
 import java.util.HashMap;
@@ -100,12 +105,14 @@ import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.Functi
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.ATAN;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.ATAN2;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.AVG;
+import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.AVRO_FILE;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.BOOLEAN;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.CEILING;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.CONCAT;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.CONTAINS;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.COS;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.COUNT;
+import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.CSV_FILE;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.DEEPEQUAL;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.DESCENDANTARRAYS;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.DESCENDANTOBJECTS;
@@ -131,10 +138,12 @@ import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.Functi
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.MATCHES;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.MEMBERS;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.MIN;
+import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.MULTILINE_JSON_FILE;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.NORMALIZESPACE;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.NULL;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.ONEORMORE;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.PARALLELIZE;
+import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.PARQUET_FILE;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.PI;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.POW;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.PROJECT;
@@ -150,6 +159,7 @@ import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.Functi
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.STRINGJOIN;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.STRINGLENGTH;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.SUBSEQUENCE;
+import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.STRUCTURED_JSON_FILE;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.SUBSTRING;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.SUM;
 import static sparksoniq.jsoniq.runtime.iterator.functions.base.Functions.FunctionNames.TAIL;
@@ -166,6 +176,14 @@ public class Functions {
         buildInFunctions = new HashMap<>();
         buildInFunctions.put(new SparksoniqFunctionSignature(JSON_FILE, 1), ParseJsonFunctionIterator.class);
         buildInFunctions.put(new SparksoniqFunctionSignature(JSON_FILE, 2), ParseJsonFunctionIterator.class);
+        buildInFunctions.put(new SparksoniqFunctionSignature(MULTILINE_JSON_FILE, 1), ParseMultiLineJsonFunctionIterator.class);
+        buildInFunctions.put(new SparksoniqFunctionSignature(MULTILINE_JSON_FILE, 2), ParseMultiLineJsonFunctionIterator.class);
+        buildInFunctions.put(new SparksoniqFunctionSignature(STRUCTURED_JSON_FILE, 1), ParseStructuredJsonFunctionIterator.class);
+        buildInFunctions.put(new SparksoniqFunctionSignature(STRUCTURED_JSON_FILE, 2), ParseStructuredJsonFunctionIterator.class);
+        buildInFunctions.put(new SparksoniqFunctionSignature(PARQUET_FILE, 1), ParseParquetFunctionIterator.class);
+        buildInFunctions.put(new SparksoniqFunctionSignature(CSV_FILE, 1), ParseCsvFunctionIterator.class);
+        buildInFunctions.put(new SparksoniqFunctionSignature(CSV_FILE, 2), ParseCsvFunctionIterator.class);
+        buildInFunctions.put(new SparksoniqFunctionSignature(AVRO_FILE, 1), ParseAvroFunctionIterator.class);
         buildInFunctions.put(new SparksoniqFunctionSignature(TEXT_FILE, 1), ParseTextFunctionIterator.class);
         buildInFunctions.put(new SparksoniqFunctionSignature(TEXT_FILE, 2), ParseTextFunctionIterator.class);
         buildInFunctions.put(new SparksoniqFunctionSignature(PARALLELIZE, 1), ParallelizeFunctionIterator.class);
@@ -268,6 +286,26 @@ public class Functions {
          * function that parses a JSON lines file
          */
         public static final String JSON_FILE = "json-file";
+        /**
+         * function that parses files of JSON values spanning several lines, or of a single array of values
+         */
+        public static final String MULTILINE_JSON_FILE = "multiline-json-file";
+        /**
+         * function that reads a JSON lines file into a DataFrame with a given or inferred schema
+         */
+        public static final String STRUCTURED_JSON_FILE = "structured-json-file";
+        /**
+         * function that reads Parquet files into a DataFrame
+         */
+        public static final String PARQUET_FILE = "parquet-file";
+        /**
+         * function that reads CSV files with a header into a DataFrame with a given or inferred schema
+         */
+        public static final String CSV_FILE = "csv-file";
+        /**
+         * function that reads Avro files into a DataFrame
+         */
+        public static final String AVRO_FILE = "avro-file";
         /**
          * function that parses a text file
          */
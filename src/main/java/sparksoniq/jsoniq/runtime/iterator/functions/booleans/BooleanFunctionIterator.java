@@ -39,7 +39,7 @@ public class BooleanFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             this._hasNext = false;
             RuntimeIterator iterator = this._children.get(0);
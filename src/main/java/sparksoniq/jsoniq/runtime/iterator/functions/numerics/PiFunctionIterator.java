@@ -39,7 +39,7 @@ public class PiFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             this._hasNext = false;
             return ItemFactory.getInstance().createDoubleItem(Math.PI);
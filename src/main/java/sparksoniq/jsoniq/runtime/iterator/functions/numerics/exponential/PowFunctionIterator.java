@@ -56,7 +56,7 @@ public class PowFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             Item base = this.getSingleItemOfTypeFromIterator(_iterator, Item.class);
             Item exponent;
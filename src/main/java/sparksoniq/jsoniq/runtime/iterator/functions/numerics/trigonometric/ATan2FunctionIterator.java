@@ -40,7 +40,7 @@ public class ATan2FunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             Item y;
             RuntimeIterator yIterator = this._children.get(0);
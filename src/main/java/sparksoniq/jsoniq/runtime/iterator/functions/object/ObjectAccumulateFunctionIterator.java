@@ -43,7 +43,7 @@ public class ObjectAccumulateFunctionIterator extends LocalFunctionCallIterator
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             RuntimeIterator sequenceIterator = this._children.get(0);
             List<Item> items = getItemsFromIteratorWithCurrentContext(sequenceIterator);
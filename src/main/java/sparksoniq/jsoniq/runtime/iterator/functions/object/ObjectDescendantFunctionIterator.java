@@ -56,7 +56,7 @@ public class ObjectDescendantFunctionIterator extends LocalFunctionCallIterator
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             Item result = _nextResults.remove();  // save the result to be returned
             if (_nextResults.isEmpty()) {
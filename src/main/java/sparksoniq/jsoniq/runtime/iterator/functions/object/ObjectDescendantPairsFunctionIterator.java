@@ -59,7 +59,7 @@ public class ObjectDescendantPairsFunctionIterator extends LocalFunctionCallIter
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             Item result = _nextResults.remove();  // save the result to be returned
             if (_nextResults.isEmpty()) {
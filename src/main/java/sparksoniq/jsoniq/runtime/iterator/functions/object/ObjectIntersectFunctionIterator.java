@@ -44,7 +44,7 @@ public class ObjectIntersectFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             RuntimeIterator sequenceIterator = this._children.get(0);
             List<Item> items = getItemsFromIteratorWithCurrentContext(sequenceIterator);
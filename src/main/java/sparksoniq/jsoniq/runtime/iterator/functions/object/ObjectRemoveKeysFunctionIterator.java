@@ -72,7 +72,7 @@ public class ObjectRemoveKeysFunctionIterator extends LocalFunctionCallIterator
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             Item result = _nextResult;  // save the result to be returned
             setNextResult();            // calculate and store the next result
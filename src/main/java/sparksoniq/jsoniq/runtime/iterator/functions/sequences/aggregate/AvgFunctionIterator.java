@@ -20,18 +20,19 @@
 
 package sparksoniq.jsoniq.runtime.iterator.functions.sequences.aggregate;
 
-import sparksoniq.exceptions.InvalidArgumentTypeException;
 import sparksoniq.exceptions.IteratorFlowException;
-import sparksoniq.jsoniq.item.ItemFactory;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
+import sparksoniq.jsoniq.runtime.iterator.postfix.ObjectLookupIterator;
 import sparksoniq.jsoniq.runtime.iterator.primary.VariableReferenceIterator;
 import sparksoniq.jsoniq.runtime.iterator.functions.base.LocalFunctionCallIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.semantics.DynamicContext;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 import org.rumbledb.api.Item;
@@ -41,6 +42,7 @@ public class AvgFunctionIterator extends LocalFunctionCallIterator {
 
 	private static final long serialVersionUID = 1L;
 	private RuntimeIterator _iterator;
+    private NumericAccumulator _sum;
 
     public AvgFunctionIterator(List<RuntimeIterator> arguments, IteratorMetadata iteratorMetadata) {
         super(arguments, iteratorMetadata);
@@ -49,38 +51,27 @@ public class AvgFunctionIterator extends LocalFunctionCallIterator {
     @Override
     public void open(DynamicContext context) {
         super.open(context);
+        setSum();
+    }
+
+    @Override
+    public void reset(DynamicContext context) {
+        super.reset(context);
+        setSum();
+    }
 
+    private void setSum() {
         _iterator = this._children.get(0);
-        _iterator.open(_currentDynamicContext);
-        if (_iterator.hasNext()) {
-            this._hasNext = true;
-        } else {
-            this._hasNext = false;
-        }
-        _iterator.close();
+        _sum = NumericAccumulator.accumulate(_iterator, _currentDynamicContext,
+                "Average expression has non numeric args ", getMetadata(), _statistics);
+        this._hasNext = _sum.getCount() > 0;
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
-            List<Item> results = getItemsFromIteratorWithCurrentContext(_iterator);
             this._hasNext = false;
-            results.forEach(r -> {
-                if (!r.isNumeric())
-                    throw new InvalidArgumentTypeException("Average expression has non numeric args " +
-                            r.serialize(), getMetadata());
-            });
-            try {
-                //TODO check numeric types conversions
-                BigDecimal sum = new BigDecimal(0);
-                for (Item r : results)
-                    sum = sum.add(r.castToDecimalValue());
-
-                return ItemFactory.getInstance().createDecimalItem(sum.divide(new BigDecimal(results.size())));
-
-            } catch (IteratorFlowException e) {
-                throw new IteratorFlowException(e.getJSONiqErrorMessage(), getMetadata());
-            }
+            return _sum.getAverage();
         }
         throw new IteratorFlowException(FLOW_EXCEPTION_MESSAGE + "AVG function",
                 getMetadata());
@@ -94,8 +85,35 @@ public class AvgFunctionIterator extends LocalFunctionCallIterator {
             Map<String, DynamicContext.VariableDependency> result = new TreeMap<String, DynamicContext.VariableDependency>();
             result.put(expr.getVariableName(), DynamicContext.VariableDependency.AVG);
             return result;
+        } else if(_children.get(0) instanceof ObjectLookupIterator
+                && ((ObjectLookupIterator) _children.get(0)).getLookupChainVariableName() != null)
+        {
+            // only the looked-up values are aggregated, e.g. in avg($x.amount)
+            ObjectLookupIterator expr = (ObjectLookupIterator) _children.get(0);
+            Map<String, DynamicContext.VariableDependency> result = new TreeMap<String, DynamicContext.VariableDependency>();
+            result.put(expr.getLookupChainVariableName(), DynamicContext.VariableDependency.AVG);
+            return result;
         } else {
             return super.getVariableDependencies();
         }
     }
+
+    public Set<List<String>> getAggregatedLookupKeys(String variableName)
+    {
+        if(_children.get(0) instanceof VariableReferenceIterator
+                && ((VariableReferenceIterator) _children.get(0)).getVariableName().equals(variableName))
+        {
+            Set<List<String>> result = new HashSet<List<String>>();
+            result.add(new ArrayList<String>());
+            return result;
+        }
+        if(_children.get(0) instanceof ObjectLookupIterator
+                && variableName.equals(((ObjectLookupIterator) _children.get(0)).getLookupChainVariableName()))
+        {
+            Set<List<String>> result = new HashSet<List<String>>();
+            result.add(((ObjectLookupIterator) _children.get(0)).getLookupChainKeys());
+            return result;
+        }
+        return super.getAggregatedLookupKeys(variableName);
+    }
 }
@@ -23,14 +23,17 @@ package sparksoniq.jsoniq.runtime.iterator.functions.sequences.aggregate;
 import sparksoniq.exceptions.IteratorFlowException;
 import sparksoniq.exceptions.SparksoniqRuntimeException;
 import sparksoniq.jsoniq.item.ItemFactory;
+import sparksoniq.jsoniq.runtime.iterator.IteratorStatistics;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.jsoniq.runtime.iterator.primary.VariableReferenceIterator;
 import sparksoniq.jsoniq.runtime.iterator.functions.base.LocalFunctionCallIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.semantics.DynamicContext;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 import org.rumbledb.api.Item;
@@ -46,7 +49,7 @@ public class CountFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             RuntimeIterator iterator = this._children.get(0);
             if (!iterator.isRDD()) {
@@ -60,7 +63,8 @@ public class CountFunctionIterator extends LocalFunctionCallIterator {
                 this._hasNext = false;
                 return ItemFactory.getInstance().createIntegerItem(results.size());
             } else {
-                Long count = iterator.getRDD(_currentDynamicContext).count();
+                Long count = IteratorStatistics.runSparkAction(_statistics,
+                        () -> iterator.getRDD(_currentDynamicContext).count());
                 this._hasNext = false;
                 if (count > (long) Integer.MAX_VALUE) {
                     // TODO: handle too big x values
@@ -86,4 +90,14 @@ public class CountFunctionIterator extends LocalFunctionCallIterator {
             return super.getVariableDependencies();
         }
     }
+
+    public Set<String> getLookedUpKeys(String variableName)
+    {
+        if(_children.get(0) instanceof VariableReferenceIterator)
+        {
+            // only the number of items is needed
+            return new HashSet<String>();
+        }
+        return super.getLookedUpKeys(variableName);
+    }
 }
@@ -24,15 +24,19 @@ import sparksoniq.exceptions.InvalidArgumentTypeException;
 import sparksoniq.exceptions.IteratorFlowException;
 import sparksoniq.exceptions.SparksoniqRuntimeException;
 import sparksoniq.jsoniq.item.ItemComparatorForSequences;
+import sparksoniq.jsoniq.runtime.iterator.IteratorStatistics;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.jsoniq.runtime.iterator.primary.VariableReferenceIterator;
 import sparksoniq.jsoniq.runtime.iterator.functions.base.LocalFunctionCallIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.semantics.DynamicContext;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 import org.rumbledb.api.Item;
@@ -62,7 +66,7 @@ public class MaxFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             this._hasNext = false;
             ItemComparatorForSequences comparator = new ItemComparatorForSequences();
@@ -76,7 +80,8 @@ public class MaxFunctionIterator extends LocalFunctionCallIterator {
                 }
             } else {
                 try {
-                    return _iterator.getRDD(_currentDynamicContext).max(comparator);
+                    return IteratorStatistics.runSparkAction(_statistics,
+                            () -> _iterator.getRDD(_currentDynamicContext).max(comparator));
                 } catch (SparksoniqRuntimeException e) {
                     throw new InvalidArgumentTypeException("Max expression input error. Input has to be non-null atomics of matching types: " + e.getMessage(), getMetadata());
                 }
@@ -98,4 +103,16 @@ public class MaxFunctionIterator extends LocalFunctionCallIterator {
             return super.getVariableDependencies();
         }
     }
+
+    public Set<List<String>> getAggregatedLookupKeys(String variableName)
+    {
+        if(_children.get(0) instanceof VariableReferenceIterator
+                && ((VariableReferenceIterator) _children.get(0)).getVariableName().equals(variableName))
+        {
+            Set<List<String>> result = new HashSet<List<String>>();
+            result.add(new ArrayList<String>());
+            return result;
+        }
+        return super.getAggregatedLookupKeys(variableName);
+    }
 }
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.jsoniq.runtime.iterator.functions.sequences.aggregate;
+
+import org.apache.spark.api.java.function.Function2;
+import org.rumbledb.api.Item;
+
+import sparksoniq.exceptions.InvalidArgumentTypeException;
+import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
+
+/**
+ * Adds the items of a partition to its accumulator, checking that they are numeric.
+ */
+public class NumericAccumulateClosure implements Function2<NumericAccumulator, Item, NumericAccumulator> {
+
+	private static final long serialVersionUID = 1L;
+	private final String _errorMessage;
+    private final IteratorMetadata _metadata;
+
+    /**
+     * @param errorMessage the beginning of the error message if an item is not numeric
+     * @param metadata the metadata of the aggregation function, for error reporting
+     */
+    public NumericAccumulateClosure(String errorMessage, IteratorMetadata metadata) {
+        _errorMessage = errorMessage;
+        _metadata = metadata;
+    }
+
+    @Override
+    public NumericAccumulator call(NumericAccumulator accumulator, Item item) {
+        if (!item.isNumeric()) {
+            throw new InvalidArgumentTypeException(_errorMessage + item.serialize(), _metadata);
+        }
+        accumulator.add(item);
+        return accumulator;
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.jsoniq.runtime.iterator.functions.sequences.aggregate;
+
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.expressions.MutableAggregationBuffer;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
+import org.rumbledb.api.Item;
+
+import sparksoniq.exceptions.InvalidArgumentTypeException;
+import sparksoniq.jsoniq.item.ItemFactory;
+import sparksoniq.jsoniq.runtime.iterator.IteratorStatistics;
+import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
+import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
+import sparksoniq.semantics.DynamicContext;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The running sum and count of numeric items, for sum(), avg() and their aggregation in group by clauses.
+ *
+ * The sum is held in a primitive long as long as all the items are integers, and in a primitive double as soon
+ * as one of them is a double. It is only promoted to a BigDecimal when a decimal arrives or the long overflows,
+ * so that summing integers or doubles does not allocate. Accumulators computed on different partitions can be
+ * merged, so that only one of them per partition is sent to the driver.
+ */
+public class NumericAccumulator implements Serializable {
+
+    private enum State {
+        INTEGER,
+        DECIMAL,
+        DOUBLE
+    }
+
+	private static final long serialVersionUID = 1L;
+    private State _state;
+	private long _longSum;              // only used in the INTEGER state
+    private BigDecimal _decimalSum;     // only used in the DECIMAL state
+    private double _doubleSum;          // only used in the DOUBLE state
+    private long _count;
+
+    public NumericAccumulator() {
+        clear();
+    }
+
+    public void clear() {
+        _state = State.INTEGER;
+        _longSum = 0;
+        _decimalSum = null;
+        _doubleSum = 0;
+        _count = 0;
+    }
+
+    /**
+     * Accumulates the items of a sequence, on the executors if it is an RDD.
+     *
+     * @param iterator the iterator returning the sequence
+     * @param context the dynamic context in which to evaluate it
+     * @param errorMessage the beginning of the error message if an item is not numeric
+     * @param metadata the metadata of the aggregation function, for error reporting
+     * @param statistics the statistics of the aggregation function, or null if statistics are not enabled
+     * @return the sum and count of the items
+     */
+    public static NumericAccumulator accumulate(
+            RuntimeIterator iterator,
+            DynamicContext context,
+            String errorMessage,
+            IteratorMetadata metadata,
+            IteratorStatistics statistics) {
+        if (iterator.isRDD()) {
+            JavaRDD<Item> rdd = iterator.getRDD(context);
+            return IteratorStatistics.runSparkAction(statistics, () -> rdd.treeAggregate(
+                    new NumericAccumulator(),
+                    new NumericAccumulateClosure(errorMessage, metadata),
+                    new NumericMergeClosure()));
+        }
+        NumericAccumulator accumulator = new NumericAccumulator();
+        iterator.open(context);
+        while (iterator.hasNext()) {
+            Item item = iterator.next();
+            if (!item.isNumeric()) {
+                iterator.close();
+                throw new InvalidArgumentTypeException(errorMessage + item.serialize(), metadata);
+            }
+            accumulator.add(item);
+        }
+        iterator.close();
+        return accumulator;
+    }
+
+    /**
+     * @param item a numeric item
+     */
+    public void add(Item item) {
+        ++_count;
+        if (item.isDouble()) {
+            promoteToDouble();
+        }
+        switch (_state) {
+            case DOUBLE:
+                _doubleSum += item.castToDoubleValue();
+                return;
+            case INTEGER:
+                if (item.isInteger() && addToLongSum(item.getIntegerValue())) {
+                    return;
+                }
+                promoteToDecimal();
+                // fall through
+            default:
+                _decimalSum = _decimalSum.add(item.castToDecimalValue());
+        }
+    }
+
+    public void merge(NumericAccumulator other) {
+        _count += other._count;
+        if (_state == State.DOUBLE || other._state == State.DOUBLE) {
+            promoteToDouble();
+            _doubleSum += other.getDoubleSum();
+            return;
+        }
+        if (_state == State.INTEGER && other._state == State.INTEGER && addToLongSum(other._longSum)) {
+            return;
+        }
+        promoteToDecimal();
+        _decimalSum = _decimalSum.add(other.getDecimalSum());
+    }
+
+    /**
+     * @return the sum, as a double if one of the items was a double, as an integer if all items were integers
+     * and the sum fits in one, and as a decimal otherwise
+     */
+    public Item getSum() {
+        if (_state == State.DOUBLE) {
+            return ItemFactory.getInstance().createDoubleItem(_doubleSum);
+        }
+        if (_state == State.INTEGER && _longSum == (int) _longSum) {
+            return ItemFactory.getInstance().createIntegerItem((int) _longSum);
+        }
+        return ItemFactory.getInstance().createDecimalItem(getDecimalSum());
+    }
+
+    /**
+     * @return the average, as a double if one of the items was a double and as a decimal otherwise,
+     * rounded to 34 significant digits if it does not terminate
+     */
+    public Item getAverage() {
+        if (_state == State.DOUBLE) {
+            return ItemFactory.getInstance().createDoubleItem(_doubleSum / _count);
+        }
+        return ItemFactory.getInstance().createDecimalItem(
+                getDecimalSum().divide(BigDecimal.valueOf(_count), MathContext.DECIMAL128));
+    }
+
+    public long getCount() {
+        return _count;
+    }
+
+    /**
+     * @return the fields of a Spark SQL aggregation buffer holding an accumulator, see load() and store()
+     */
+    public static List<StructField> getBufferFields() {
+        List<StructField> fields = new ArrayList<>();
+        fields.add(DataTypes.createStructField("count", DataTypes.LongType, false));
+        fields.add(DataTypes.createStructField("integerSum", DataTypes.LongType, false));
+        // null unless the sum is a double or a decimal, respectively
+        fields.add(DataTypes.createStructField("doubleSum", DataTypes.DoubleType, true));
+        fields.add(DataTypes.createStructField("decimalSum", DataTypes.StringType, true));
+        return fields;
+    }
+
+    /**
+     * Replaces the state of this accumulator with the one stored in an aggregation buffer.
+     *
+     * @param buffer the aggregation buffer
+     * @param firstField the position of the first of the fields returned by getBufferFields() in the buffer
+     */
+    public void load(Row buffer, int firstField) {
+        clear();
+        _count = buffer.getLong(firstField);
+        if (!buffer.isNullAt(firstField + 2)) {
+            _state = State.DOUBLE;
+            _doubleSum = buffer.getDouble(firstField + 2);
+        } else if (!buffer.isNullAt(firstField + 3)) {
+            _state = State.DECIMAL;
+            _decimalSum = new BigDecimal(buffer.getString(firstField + 3));
+        } else {
+            _longSum = buffer.getLong(firstField + 1);
+        }
+    }
+
+    /**
+     * Stores the state of this accumulator in an aggregation buffer.
+     *
+     * @param buffer the aggregation buffer
+     * @param firstField the position of the first of the fields returned by getBufferFields() in the buffer
+     */
+    public void store(MutableAggregationBuffer buffer, int firstField) {
+        buffer.update(firstField, _count);
+        buffer.update(firstField + 1, _longSum);
+        buffer.update(firstField + 2, _state == State.DOUBLE ? _doubleSum : null);
+        buffer.update(firstField + 3, _state == State.DECIMAL ? _decimalSum.toString() : null);
+    }
+
+    private boolean addToLongSum(long value) {
+        long sum = _longSum + value;
+        // the sum only overflows if both operands have the same sign and the result a different one
+        if (((_longSum ^ sum) & (value ^ sum)) < 0) {
+            return false;
+        }
+        _longSum = sum;
+        return true;
+    }
+
+    private void promoteToDecimal() {
+        if (_state == State.INTEGER) {
+            _decimalSum = BigDecimal.valueOf(_longSum);
+            _state = State.DECIMAL;
+        }
+    }
+
+    private void promoteToDouble() {
+        if (_state != State.DOUBLE) {
+            _doubleSum = getDoubleSum();
+            _decimalSum = null;
+            _state = State.DOUBLE;
+        }
+    }
+
+    private double getDoubleSum() {
+        switch (_state) {
+            case DOUBLE:
+                return _doubleSum;
+            case DECIMAL:
+                return _decimalSum.doubleValue();
+            default:
+                return _longSum;
+        }
+    }
+
+    private BigDecimal getDecimalSum() {
+        return _state == State.DECIMAL ? _decimalSum : BigDecimal.valueOf(_longSum);
+    }
+}
@@ -20,19 +20,20 @@
 
 package sparksoniq.jsoniq.runtime.iterator.functions.sequences.aggregate;
 
-import sparksoniq.exceptions.InvalidArgumentTypeException;
 import sparksoniq.exceptions.IteratorFlowException;
 import sparksoniq.exceptions.NonAtomicKeyException;
-import sparksoniq.jsoniq.item.ItemFactory;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
+import sparksoniq.jsoniq.runtime.iterator.postfix.ObjectLookupIterator;
 import sparksoniq.jsoniq.runtime.iterator.primary.VariableReferenceIterator;
 import sparksoniq.jsoniq.runtime.iterator.functions.base.LocalFunctionCallIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.semantics.DynamicContext;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 import org.rumbledb.api.Item;
@@ -43,6 +44,7 @@ public class SumFunctionIterator extends LocalFunctionCallIterator {
 	private static final long serialVersionUID = 1L;
 	private RuntimeIterator _iterator;
     private Item _zeroItem;
+    private NumericAccumulator _sum;
 
     public SumFunctionIterator(List<RuntimeIterator> arguments, IteratorMetadata iteratorMetadata) {
         super(arguments, iteratorMetadata);
@@ -51,56 +53,47 @@ public class SumFunctionIterator extends LocalFunctionCallIterator {
     @Override
     public void open(DynamicContext context) {
         super.open(context);
+        setSum();
+    }
+
+    @Override
+    public void reset(DynamicContext context) {
+        super.reset(context);
+        setSum();
+    }
 
+    private void setSum() {
         _iterator = this._children.get(0);
-        _iterator.open(context);
-        if (!_iterator.hasNext()) {
-            if (this._children.size() > 1) {
-                RuntimeIterator zeroIterator = this._children.get(1);
-                zeroIterator.open(_currentDynamicContext);
-                if (!zeroIterator.hasNext()) {
-                    this._hasNext = false;
-                    return;
-                } else {
-                    _zeroItem = zeroIterator.next();
-                    if (!_zeroItem.isAtomic()) {
-                        throw new NonAtomicKeyException("Invalid args. Zero item has to be of an atomic type", getMetadata().getExpressionMetadata());
-                    }
-                }
+        _zeroItem = null;
+        _sum = NumericAccumulator.accumulate(_iterator, _currentDynamicContext,
+                "Sum expression has non numeric args ", getMetadata(), _statistics);
+        if (_sum.getCount() == 0 && this._children.size() > 1) {
+            RuntimeIterator zeroIterator = this._children.get(1);
+            zeroIterator.open(_currentDynamicContext);
+            if (!zeroIterator.hasNext()) {
+                zeroIterator.close();
+                this._hasNext = false;
+                return;
+            }
+            _zeroItem = zeroIterator.next();
+            zeroIterator.close();
+            if (!_zeroItem.isAtomic()) {
+                throw new NonAtomicKeyException("Invalid args. Zero item has to be of an atomic type", getMetadata().getExpressionMetadata());
             }
         }
-        _iterator.close();
         this._hasNext = true;
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             this._hasNext = false;
-            List<Item> results = getItemsFromIteratorWithCurrentContext(_iterator);
-
             // if input is empty sequence and _zeroItem is given
-            if (results.size() == 0 && _zeroItem != null) {
+            if (_zeroItem != null) {
                 return _zeroItem;
             }
-
-            results.forEach(r -> {
-                if (!r.isNumeric())
-                    throw new InvalidArgumentTypeException("Sum expression has non numeric args " +
-                            r.serialize(), getMetadata());
-            });
-            try {
-                // if input is empty sequence and _zeroItem is not given 0 is returned
-                BigDecimal sumResult = new BigDecimal(0);
-                for (Item r : results) {
-                    BigDecimal current = r.castToDecimalValue();
-                    sumResult = sumResult.add(current);
-                }
-                return ItemFactory.getInstance().createDecimalItem(sumResult);
-
-            } catch (IteratorFlowException e) {
-                throw new IteratorFlowException(e.getJSONiqErrorMessage(), getMetadata());
-            }
+            // if input is empty sequence and _zeroItem is not given 0 is returned
+            return _sum.getSum();
         } else
             throw new IteratorFlowException(FLOW_EXCEPTION_MESSAGE + "SUM function",
                     getMetadata());
@@ -114,8 +107,35 @@ public class SumFunctionIterator extends LocalFunctionCallIterator {
             Map<String, DynamicContext.VariableDependency> result = new TreeMap<String, DynamicContext.VariableDependency>();
             result.put(expr.getVariableName(), DynamicContext.VariableDependency.SUM);
             return result;
+        } else if(_children.get(0) instanceof ObjectLookupIterator
+                && ((ObjectLookupIterator) _children.get(0)).getLookupChainVariableName() != null)
+        {
+            // only the looked-up values are aggregated, e.g. in sum($x.amount)
+            ObjectLookupIterator expr = (ObjectLookupIterator) _children.get(0);
+            Map<String, DynamicContext.VariableDependency> result = new TreeMap<String, DynamicContext.VariableDependency>();
+            result.put(expr.getLookupChainVariableName(), DynamicContext.VariableDependency.SUM);
+            return result;
         } else {
             return super.getVariableDependencies();
         }
     }
+
+    public Set<List<String>> getAggregatedLookupKeys(String variableName)
+    {
+        if(_children.get(0) instanceof VariableReferenceIterator
+                && ((VariableReferenceIterator) _children.get(0)).getVariableName().equals(variableName))
+        {
+            Set<List<String>> result = new HashSet<List<String>>();
+            result.add(new ArrayList<String>());
+            return result;
+        }
+        if(_children.get(0) instanceof ObjectLookupIterator
+                && variableName.equals(((ObjectLookupIterator) _children.get(0)).getLookupChainVariableName()))
+        {
+            Set<List<String>> result = new HashSet<List<String>>();
+            result.add(((ObjectLookupIterator) _children.get(0)).getLookupChainKeys());
+            return result;
+        }
+        return super.getAggregatedLookupKeys(variableName);
+    }
 }
@@ -25,6 +25,7 @@ import org.rumbledb.api.Item;
 
 import sparksoniq.exceptions.IteratorFlowException;
 import sparksoniq.exceptions.SequenceExceptionExactlyOne;
+import sparksoniq.jsoniq.runtime.iterator.IteratorStatistics;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.semantics.DynamicContext;
@@ -42,7 +43,7 @@ public class ExactlyOneIterator extends CardinalityFunctionIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             this._hasNext = false;
             return _nextResult;
@@ -72,7 +73,7 @@ public class ExactlyOneIterator extends CardinalityFunctionIterator {
             sequenceIterator.close();
         } else {
             JavaRDD<Item> rdd = sequenceIterator.getRDD(_currentDynamicContext);
-            List<Item> results = rdd.take(2);
+            List<Item> results = IteratorStatistics.runSparkAction(_statistics, () -> rdd.take(2));
             if (results.size() == 1) {
                 this._hasNext = true;
                 _nextResult = results.get(0);
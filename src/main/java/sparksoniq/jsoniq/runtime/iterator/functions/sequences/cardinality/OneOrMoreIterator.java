@@ -54,7 +54,7 @@ public class OneOrMoreIterator extends CardinalityFunctionIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             Item result = _nextResult;  // save the result to be returned
             setNextResult();            // calculate and store the next result
@@ -23,6 +23,7 @@ package sparksoniq.jsoniq.runtime.iterator.functions.sequences.general;
 import sparksoniq.exceptions.IteratorFlowException;
 import sparksoniq.jsoniq.item.BooleanItem;
 import sparksoniq.jsoniq.item.ItemFactory;
+import sparksoniq.jsoniq.runtime.iterator.IteratorStatistics;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.jsoniq.runtime.iterator.functions.base.LocalFunctionCallIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
@@ -41,12 +42,13 @@ public class ExistsFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this.hasNext()) {
             this._hasNext = false;
             if(_sequenceIterator.isRDD())
             {
-                List<Item> i = _sequenceIterator.getRDD(_currentDynamicContext).take(1);
+                List<Item> i = IteratorStatistics.runSparkAction(_statistics,
+                        () -> _sequenceIterator.getRDD(_currentDynamicContext).take(1));
                 return new BooleanItem(!i.isEmpty());
             }
             _sequenceIterator.open(_currentDynamicContext);
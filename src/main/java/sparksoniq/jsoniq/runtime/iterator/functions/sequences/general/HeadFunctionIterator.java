@@ -43,7 +43,7 @@ public class HeadFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this.hasNext()) {
             this._hasNext = false;
             return _result;
@@ -64,25 +64,13 @@ public class HeadFunctionIterator extends LocalFunctionCallIterator {
     }
     
     public void setResult() {
-        if(_iterator.isRDD())
-        {
-            List<Item> i = _iterator.getRDD(_currentDynamicContext).take(1);
-            if(i.isEmpty())
-            {
-                this._hasNext = false;
-                return;
-            }
-            this._hasNext = true;
-            _result = i.get(0);
-        }
-        _iterator.open(_currentDynamicContext);
-        if (_iterator.hasNext()) {
-            this._hasNext = true;
-            _result = _iterator.next();
-        } else {
+        List<Item> items = _iterator.getFirstItems(_currentDynamicContext, 1);
+        if (items.isEmpty()) {
             this._hasNext = false;
+        } else {
+            this._hasNext = true;
+            _result = items.get(0);
         }
-        _iterator.close();
     }
     
 }
@@ -50,7 +50,7 @@ public class InsertBeforeFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this.hasNext()) {
             Item result = _nextResult;  // save the result to be returned
             setNextResult();            // calculate and store the next result
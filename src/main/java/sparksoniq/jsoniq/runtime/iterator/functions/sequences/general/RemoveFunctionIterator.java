@@ -48,7 +48,7 @@ public class RemoveFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this.hasNext()) {
             Item result = _nextResult;  // save the result to be returned
             setNextResult();            // calculate and store the next result
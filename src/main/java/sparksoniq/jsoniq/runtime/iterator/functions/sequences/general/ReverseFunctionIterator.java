@@ -43,7 +43,7 @@ public class ReverseFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this.hasNext()) {
             return getResult();
         }
@@ -43,6 +43,8 @@ public class SubsequenceFunctionIterator extends LocalFunctionCallIterator {
     private int _currentPosition;
     private int _startPosition;
     private int _length;
+    private List<Item> _subsequence;
+    private int _subsequenceIndex;
 
     public SubsequenceFunctionIterator(List<RuntimeIterator> parameters, IteratorMetadata iteratorMetadata) {
         super(parameters, iteratorMetadata);
@@ -53,6 +55,7 @@ public class SubsequenceFunctionIterator extends LocalFunctionCallIterator {
         super.open(context);
 
         _currentPosition = 1;   // JSONiq indices start from 1
+        _subsequence = null;
 
         _length = -1;   // unassigned
         // if length param is given, process it
@@ -122,6 +125,17 @@ public class SubsequenceFunctionIterator extends LocalFunctionCallIterator {
         if (_length == 0) {
             this._hasNext = false;
             return;
+        } else if (_length > 0) {
+            // only the items of the subsequence are needed, and the positions before 1 are part of the length
+            long lastPosition = (long) _startPosition + _length - 1;
+            int firstPosition = Math.max(_startPosition, 1);
+            _subsequence = this._children.get(0).getItemRange(
+                    context,
+                    firstPosition,
+                    (int) Math.max(lastPosition - firstPosition + 1, 0));
+            _subsequenceIndex = 0;
+            setNextResult();
+            return;
         } else {
             _sequenceIterator = this._children.get(0);
             _sequenceIterator.open(context);
@@ -152,7 +166,7 @@ public class SubsequenceFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this.hasNext()) {
             Item result = _nextResult;  // save the result to be returned
             setNextResult();            // calculate and store the next result
@@ -164,6 +178,14 @@ public class SubsequenceFunctionIterator extends LocalFunctionCallIterator {
     public void setNextResult() {
         _nextResult = null;
 
+        if (_subsequence != null) {
+            if (_subsequenceIndex < _subsequence.size()) {
+                _nextResult = _subsequence.get(_subsequenceIndex++);
+            }
+            this._hasNext = _nextResult != null;
+            return;
+        }
+
         if (_length != 0) {
             if (_sequenceIterator.hasNext()) {
                 if (_length > 0) {      // take _length many items -> decrement the value for each item until 0
@@ -22,16 +22,17 @@ package sparksoniq.jsoniq.runtime.iterator.functions.sequences.value;
 
 import sparksoniq.exceptions.IteratorFlowException;
 import sparksoniq.exceptions.NonAtomicKeyException;
+import sparksoniq.jsoniq.item.AtomicItem;
 import sparksoniq.jsoniq.runtime.iterator.HybridRuntimeIterator;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.semantics.DynamicContext;
 
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.spark.api.java.JavaRDD;
-import org.apache.spark.api.java.function.Function;
 import org.rumbledb.api.Item;
 
 public class DistinctValuesFunctionIterator extends HybridRuntimeIterator {
@@ -40,7 +41,7 @@ public class DistinctValuesFunctionIterator extends HybridRuntimeIterator {
 	private static final long serialVersionUID = 1L;
 	private RuntimeIterator _sequenceIterator;
     private Item _nextResult;
-    private List<Item> _prevResults;
+    private Set<String> _prevResults;     // the comparison keys of the items returned so far
 
     public DistinctValuesFunctionIterator(List<RuntimeIterator> arguments, IteratorMetadata iteratorMetadata) {
         super(arguments, iteratorMetadata);
@@ -63,6 +64,7 @@ public class DistinctValuesFunctionIterator extends HybridRuntimeIterator {
 
     @Override
     protected void resetLocal(DynamicContext context) {
+        _prevResults.clear();
         _sequenceIterator.reset(_currentDynamicContext);
         setNextResult();
     }
@@ -75,7 +77,7 @@ public class DistinctValuesFunctionIterator extends HybridRuntimeIterator {
     
     @Override
     public void openLocal(DynamicContext context) {
-        _prevResults = new ArrayList<>();
+        _prevResults = new HashSet<>();
 
         _sequenceIterator.open(_currentDynamicContext);
 
@@ -90,8 +92,7 @@ public class DistinctValuesFunctionIterator extends HybridRuntimeIterator {
             if (!item.isAtomic()) {
                 throw new NonAtomicKeyException("Invalid args. distinct-values can't be performed on non-atomics", getMetadata().getExpressionMetadata());
             } else {
-                if (!_prevResults.contains(item)) {
-                    _prevResults.add(item);
+                if (_prevResults.add(AtomicItem.getComparisonKey(item))) {
                     _nextResult = item;
                     break;
                 }
@@ -110,12 +111,11 @@ public class DistinctValuesFunctionIterator extends HybridRuntimeIterator {
     public JavaRDD<Item> getRDD(DynamicContext dynamicContext) {
         _currentDynamicContext = dynamicContext;
         JavaRDD<Item> childRDD = _sequenceIterator.getRDD(dynamicContext);
-        Function<Item, Boolean> transformation = new FilterNonAtomicClosure();
-        if(childRDD.filter(transformation).count() == 0)
-        {
-            return childRDD.distinct();
-        }
-        throw new NonAtomicKeyException("Invalid args. distinct-values can't be performed on non-atomics", getMetadata().getExpressionMetadata());
+        // non-atomic items are rejected by the key closure, so that the input is only scanned once
+        return childRDD
+                .mapToPair(new DistinctValuesKeyClosure(getMetadata()))
+                .reduceByKey(new DistinctValuesReduceClosure())
+                .values();
     }
 
     @Override
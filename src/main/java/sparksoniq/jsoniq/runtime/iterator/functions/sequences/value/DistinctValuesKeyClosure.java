@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.jsoniq.runtime.iterator.functions.sequences.value;
+
+import org.apache.spark.api.java.function.PairFunction;
+import org.rumbledb.api.Item;
+
+import scala.Tuple2;
+import sparksoniq.exceptions.NonAtomicKeyException;
+import sparksoniq.jsoniq.item.AtomicItem;
+import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
+
+/**
+ * Pairs every item with its comparison key, checking that it is atomic within the distinct-values job itself.
+ */
+public class DistinctValuesKeyClosure implements PairFunction<Item, String, Item> {
+
+
+	private static final long serialVersionUID = 1L;
+	private final IteratorMetadata _metadata;
+
+	public DistinctValuesKeyClosure(IteratorMetadata metadata) {
+        _metadata = metadata;
+    }
+
+    public Tuple2<String, Item> call(Item item) throws Exception {
+        if (!item.isAtomic()) {
+            throw new NonAtomicKeyException("Invalid args. distinct-values can't be performed on non-atomics", _metadata.getExpressionMetadata());
+        }
+        return new Tuple2<>(AtomicItem.getComparisonKey(item), item);
+    }
+};
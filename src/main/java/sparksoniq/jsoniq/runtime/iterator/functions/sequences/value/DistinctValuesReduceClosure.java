@@ -20,18 +20,21 @@
 
 package sparksoniq.jsoniq.runtime.iterator.functions.sequences.value;
 
-import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.Function2;
 import org.rumbledb.api.Item;
 
-public class FilterNonAtomicClosure implements Function<Item, Boolean> {
+/**
+ * Keeps one of two items with the same comparison key.
+ */
+public class DistinctValuesReduceClosure implements Function2<Item, Item, Item> {
 
 
 	private static final long serialVersionUID = 1L;
 
-	public FilterNonAtomicClosure() {
+	public DistinctValuesReduceClosure() {
     }
 
-    public Boolean call(Item item) throws Exception {
-        return !item.isAtomic();
+    public Item call(Item item, Item other) throws Exception {
+        return item;
     }
 };
@@ -40,7 +40,7 @@ public class ConcatFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             StringBuilder builder = new StringBuilder("");
             for (RuntimeIterator iterator : this._children) {
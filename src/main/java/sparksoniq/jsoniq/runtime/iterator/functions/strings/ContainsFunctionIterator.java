@@ -42,7 +42,7 @@ public class ContainsFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             this._hasNext = false;
             StringItem substringItem = this.getSingleItemOfTypeFromIterator(
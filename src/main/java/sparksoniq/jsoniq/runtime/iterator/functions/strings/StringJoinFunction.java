@@ -41,7 +41,7 @@ public class StringJoinFunction extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             Item joinString = ItemFactory.getInstance().createStringItem("");
             List<Item> strings = getItemsFromIteratorWithCurrentContext(this._children.get(0));
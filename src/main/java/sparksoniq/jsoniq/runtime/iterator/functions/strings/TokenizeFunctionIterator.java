@@ -45,7 +45,7 @@ public class TokenizeFunctionIterator extends LocalFunctionCallIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (_nextResult != null) {
             Item result = _nextResult;
             setNextResult();
@@ -51,7 +51,7 @@ public class AdditiveOperationIterator extends BinaryOperationBaseIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             this._hasNext = false;
 
@@ -38,7 +38,7 @@ public class AndOperationIterator extends BinaryOperationBaseIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             _leftIterator.open(_currentDynamicContext);
             _rightIterator.open(_currentDynamicContext);
@@ -56,7 +56,7 @@ public class ComparisonOperationIterator extends BinaryOperationBaseIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this.hasNext()) {
             this._hasNext = false;
 
@@ -146,6 +146,11 @@ public class ComparisonOperationIterator extends BinaryOperationBaseIterator {
             if (!right.isNumeric())
                 throw new UnexpectedTypeException("Invalid args for numerics comparison " + left.serialize() +
                         ", " + right.serialize(), getMetadata());
+            if (isNaN(left) || isNaN(right)) {
+                // NaN is neither equal to, smaller nor greater than any number, including itself
+                return ItemFactory.getInstance().createBooleanItem(
+                        this._operator == Operator.VC_NE || this._operator == Operator.GC_NE);
+            }
             return compareItems(left, right);
         } else if (left.isString()) {
             if (!(right.isString()))
@@ -162,6 +167,10 @@ public class ComparisonOperationIterator extends BinaryOperationBaseIterator {
         }
     }
 
+    private static boolean isNaN(Item item) {
+        return item.isDouble() && Double.isNaN(item.getDoubleValue());
+    }
+
     public Item compareItems(Item left, Item right) {
         int comparison = left.compareTo(right);
         switch (this._operator) {
@@ -44,7 +44,7 @@ public class InstanceOfIterator extends UnaryOperationIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             List<Item> items = new ArrayList<>();
             _child.open(_currentDynamicContext);
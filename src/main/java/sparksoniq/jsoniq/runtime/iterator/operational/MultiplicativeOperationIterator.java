@@ -73,7 +73,7 @@ public class MultiplicativeOperationIterator extends BinaryOperationBaseIterator
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             this._hasNext = false;
 
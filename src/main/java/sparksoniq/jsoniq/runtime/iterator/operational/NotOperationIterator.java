@@ -38,7 +38,7 @@ public class NotOperationIterator extends UnaryOperationBaseIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         _child.open(_currentDynamicContext);
         boolean effectiveBooleanValue = getEffectiveBooleanValue(_child);
         _child.close();
@@ -38,7 +38,7 @@ public class OrOperationIterator extends BinaryOperationBaseIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         _leftIterator.open(_currentDynamicContext);
         _rightIterator.open(_currentDynamicContext);
 
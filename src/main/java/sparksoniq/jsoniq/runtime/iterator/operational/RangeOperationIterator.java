@@ -30,6 +30,7 @@ import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.jsoniq.runtime.iterator.operational.base.BinaryOperationBaseIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.semantics.DynamicContext;
+import sparksoniq.semantics.types.ItemTypes;
 
 public class RangeOperationIterator extends BinaryOperationBaseIterator {
 
@@ -48,7 +49,7 @@ public class RangeOperationIterator extends BinaryOperationBaseIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (_hasNext == true) {
             if (_index == _right)
                 this._hasNext = false;
@@ -90,4 +91,9 @@ public class RangeOperationIterator extends BinaryOperationBaseIterator {
         _rightIterator.close();
 
     }
+
+    @Override
+    public ItemTypes getStaticItemType() {
+        return ItemTypes.IntegerItem;
+    }
 }
@@ -29,6 +29,7 @@ import sparksoniq.jsoniq.item.ItemFactory;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.jsoniq.runtime.iterator.operational.base.BinaryOperationBaseIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
+import sparksoniq.semantics.types.ItemTypes;
 
 public class StringConcatIterator extends BinaryOperationBaseIterator {
 
@@ -39,7 +40,7 @@ public class StringConcatIterator extends BinaryOperationBaseIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this.hasNext()) {
             _leftIterator.open(_currentDynamicContext);
             _rightIterator.open(_currentDynamicContext);
@@ -71,4 +72,9 @@ public class StringConcatIterator extends BinaryOperationBaseIterator {
         throw new IteratorFlowException(RuntimeIterator.FLOW_EXCEPTION_MESSAGE, getMetadata());
 
     }
+
+    @Override
+    public ItemTypes getStaticItemType() {
+        return ItemTypes.StringItem;
+    }
 }
@@ -44,7 +44,7 @@ public class UnaryOperationIterator extends UnaryOperationBaseIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             this._hasNext = false;
             _child.open(_currentDynamicContext);
@@ -50,6 +50,10 @@ public abstract class BinaryOperationBaseIterator extends LocalRuntimeIterator {
         this._rightIterator = right;
         this._operator = operator;
     }
+
+    public OperationalExpressionBase.Operator getOperator() {
+        return _operator;
+    }
     
     //performs conversions for binary operations with a numeric return type
     //(int,double) -> double
@@ -23,6 +23,9 @@ package sparksoniq.jsoniq.runtime.iterator.postfix;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.rumbledb.api.Item;
 
+import sparksoniq.jsoniq.item.ObjectItem;
+import sparksoniq.jsoniq.item.ObjectShape;
+
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -31,6 +34,9 @@ public class ObjectLookupClosure implements FlatMapFunction<Item, Item> {
 
 	private static final long serialVersionUID = 1L;
 	private final String _key;
+    // the slot of the key in the last object shape seen, as consecutive objects usually have the same shape
+    private transient ObjectShape _lastShape;
+    private transient int _lastSlot;
 
     public ObjectLookupClosure(String key) {
         _key = key;
@@ -42,7 +48,17 @@ public class ObjectLookupClosure implements FlatMapFunction<Item, Item> {
         if (!(arg0.isObject()))
             return results.iterator();
 
-        Item item = arg0.getItemByKey(_key);
+        Item item;
+        if (arg0 instanceof ObjectItem) {
+            ObjectItem object = (ObjectItem) arg0;
+            if (object.getShape() != _lastShape) {
+                _lastShape = object.getShape();
+                _lastSlot = _lastShape.getSlot(_key);
+            }
+            item = _lastSlot >= 0 ? object.getItemAt(_lastSlot) : null;
+        } else {
+            item = arg0.getItemByKey(_key);
+        }
         if (item != null) {
             results.add(item);
         }
@@ -32,15 +32,23 @@ import sparksoniq.jsoniq.item.DecimalItem;
 import sparksoniq.jsoniq.item.DoubleItem;
 import sparksoniq.jsoniq.item.IntegerItem;
 import sparksoniq.jsoniq.item.ItemFactory;
+import sparksoniq.jsoniq.item.ObjectItem;
+import sparksoniq.jsoniq.item.ObjectShape;
 import sparksoniq.jsoniq.item.StringItem;
 import sparksoniq.jsoniq.runtime.iterator.HybridRuntimeIterator;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.jsoniq.runtime.iterator.primary.ContextExpressionIterator;
+import sparksoniq.jsoniq.runtime.iterator.primary.StringRuntimeIterator;
+import sparksoniq.jsoniq.runtime.iterator.primary.VariableReferenceIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.semantics.DynamicContext;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class ObjectLookupIterator extends HybridRuntimeIterator {
 
@@ -50,6 +58,9 @@ public class ObjectLookupIterator extends HybridRuntimeIterator {
     private Item _lookupKey;
     private boolean _contextLookup;
     private Item _nextResult;
+    // the slot of the lookup key in the last object shape seen, as consecutive objects usually have the same shape
+    private transient ObjectShape _lastShape;
+    private transient int _lastSlot;
 
     public ObjectLookupIterator(RuntimeIterator object, RuntimeIterator lookupIterator, IteratorMetadata iteratorMetadata) {
         super(Arrays.asList(object, lookupIterator), iteratorMetadata);
@@ -57,6 +68,7 @@ public class ObjectLookupIterator extends HybridRuntimeIterator {
     }
 
     private void initLookupKey() {
+        _lastShape = null;
 
         RuntimeIterator lookupIterator = this._children.get(1);
 
@@ -146,7 +158,7 @@ public class ObjectLookupIterator extends HybridRuntimeIterator {
             Item item = _iterator.next();
             if (item.isObject()) {
                 if (!_contextLookup) {
-                    Item result = item.getItemByKey(_lookupKey.getStringValue());
+                    Item result = lookUp(item);
                     if (result != null) {
                         _nextResult = result;
                         break;
@@ -166,6 +178,18 @@ public class ObjectLookupIterator extends HybridRuntimeIterator {
         }
     }
 
+    private Item lookUp(Item item) {
+        if (!(item instanceof ObjectItem)) {
+            return item.getItemByKey(_lookupKey.getStringValue());
+        }
+        ObjectItem object = (ObjectItem) item;
+        if (object.getShape() != _lastShape) {
+            _lastShape = object.getShape();
+            _lastSlot = _lastShape.getSlot(_lookupKey.getStringValue());
+        }
+        return _lastSlot >= 0 ? object.getItemAt(_lastSlot) : null;
+    }
+
     @Override
     public JavaRDD<Item> getRDD(DynamicContext dynamicContext) {
         _currentDynamicContext = dynamicContext;
@@ -184,6 +208,59 @@ public class ObjectLookupIterator extends HybridRuntimeIterator {
         return resultRDD;
     }
 
+    @Override
+    public Set<String> getLookedUpKeys(String variableName) {
+        RuntimeIterator lookupIterator = this._children.get(1);
+        if (_iterator instanceof VariableReferenceIterator
+                && ((VariableReferenceIterator) _iterator).getVariableName().equals(variableName)
+                && lookupIterator instanceof StringRuntimeIterator) {
+            lookupIterator.open(new DynamicContext());
+            Set<String> result = new HashSet<>();
+            result.add(lookupIterator.next().getStringValue());
+            lookupIterator.close();
+            return result;
+        }
+        return super.getLookedUpKeys(variableName);
+    }
+
+    /**
+     * @return the keys looked up successively in a variable, e.g. ["a", "b"] for $x.a.b, or null if this is not
+     * a chain of lookups with literal keys on a variable reference
+     */
+    public List<String> getLookupChainKeys() {
+        List<String> result;
+        if (_iterator instanceof VariableReferenceIterator) {
+            result = new ArrayList<>();
+        } else if (_iterator instanceof ObjectLookupIterator) {
+            result = ((ObjectLookupIterator) _iterator).getLookupChainKeys();
+        } else {
+            return null;
+        }
+        RuntimeIterator lookupIterator = this._children.get(1);
+        if (result == null || !(lookupIterator instanceof StringRuntimeIterator)) {
+            return null;
+        }
+        lookupIterator.open(new DynamicContext());
+        result.add(lookupIterator.next().getStringValue());
+        lookupIterator.close();
+        return result;
+    }
+
+    /**
+     * @return the name of the variable at the start of a chain of lookups with literal keys, or null
+     * @see #getLookupChainKeys()
+     */
+    public String getLookupChainVariableName() {
+        if (getLookupChainKeys() == null) {
+            return null;
+        }
+        RuntimeIterator iterator = _iterator;
+        while (iterator instanceof ObjectLookupIterator) {
+            iterator = ((ObjectLookupIterator) iterator)._iterator;
+        }
+        return ((VariableReferenceIterator) iterator).getVariableName();
+    }
+
     @Override
     public boolean initIsRDD() {
         return _iterator.isRDD();
@@ -29,6 +29,7 @@ import sparksoniq.exceptions.SparksoniqRuntimeException;
 import sparksoniq.jsoniq.item.IntegerItem;
 import sparksoniq.jsoniq.runtime.iterator.HybridRuntimeIterator;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
+import sparksoniq.jsoniq.runtime.iterator.primary.IntegerRuntimeIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.semantics.DynamicContext;
 import java.util.ArrayList;
@@ -44,6 +45,7 @@ public class PredicateIterator extends HybridRuntimeIterator {
 	private RuntimeIterator _iterator;
     private RuntimeIterator _filter;
     private Item _nextResult;
+    private boolean _isPositionalResult;    // true if the filter evaluated to a position
 
 
     public PredicateIterator(RuntimeIterator sequence, RuntimeIterator filterExpression, IteratorMetadata iteratorMetadata) {
@@ -56,7 +58,11 @@ public class PredicateIterator extends HybridRuntimeIterator {
     protected Item nextLocal() {
         if (_hasNext == true) {
             Item result = _nextResult;  // save the result to be returned
-            setNextResult();            // calculate and store the next result
+            if (isPositionalLiteral() || _isPositionalResult) {
+                this._hasNext = false;
+            } else {
+                setNextResult();        // calculate and store the next result
+            }
             return result;
         }
         throw new IteratorFlowException("Invalid next() call in Predicate!", getMetadata());
@@ -69,13 +75,20 @@ public class PredicateIterator extends HybridRuntimeIterator {
 
     @Override
     protected void resetLocal(DynamicContext context) {
+        _isPositionalResult = false;
+        if (isPositionalLiteral()) {
+            setPositionalResult();
+            return;
+        }
         _iterator.reset(_currentDynamicContext);
         setNextResult();
     }
 
     @Override
     protected void closeLocal() {
-        _iterator.close();
+        if (!isPositionalLiteral() && !_isPositionalResult) {
+            _iterator.close();
+        }
     }
 
     @Override
@@ -83,12 +96,36 @@ public class PredicateIterator extends HybridRuntimeIterator {
         if (this._children.size() < 2) {
             throw new SparksoniqRuntimeException("Invalid Predicate! Must initialize filter before calling next");
         }
+        _isPositionalResult = false;
+
+        if (isPositionalLiteral()) {
+            setPositionalResult();
+            return;
+        }
 
         _iterator.open(_currentDynamicContext);
 
         setNextResult();
     }
 
+    /**
+     * A positional predicate with a literal position only needs the item of the sequence at this position,
+     * which is then not computed as a whole, even if it is an RDD.
+     */
+    private boolean isPositionalLiteral() {
+        return _filter instanceof IntegerRuntimeIterator;
+    }
+
+    private void setPositionalResult() {
+        _nextResult = null;
+        int index = getSingleItemOfTypeFromIterator(_filter, IntegerItem.class).getIntegerValue();
+        List<Item> items = _iterator.getItemRange(_currentDynamicContext, index, 1);
+        if (!items.isEmpty()) {
+            _nextResult = items.get(0);
+        }
+        this._hasNext = _nextResult != null;
+    }
+
     private void setNextResult() {
         _nextResult = null;
 
@@ -107,12 +144,10 @@ public class PredicateIterator extends HybridRuntimeIterator {
             // if filter is an integer, it is used to return the element with the index equal to the given integer
             if (fil instanceof IntegerItem) {
                 _iterator.close();
-                List<Item> sequence = getItemsFromIteratorWithCurrentContext(_iterator);
-                int index = ((IntegerItem) fil).getIntegerValue();
-                // less than or equal to size -> b/c of -1
-                if (index >= 1 && index <= sequence.size()) {
-                    //-1 for Jsoniq convention, arrays start from 1
-                    _nextResult = sequence.get(index - 1);
+                _isPositionalResult = true;
+                List<Item> items = _iterator.getItemRange(_currentDynamicContext, fil.getIntegerValue(), 1);
+                if (!items.isEmpty()) {
+                    _nextResult = items.get(0);
                 }
                 break;
             } else if (fil != null && fil.getEffectiveBooleanValue()) {
@@ -145,7 +180,7 @@ public class PredicateIterator extends HybridRuntimeIterator {
 
     @Override
     protected boolean initIsRDD() {
-        return this._iterator.isRDD();
+        return this._iterator.isRDD() && !isPositionalLiteral();
     }
 
     public Map<String, DynamicContext.VariableDependency> getVariableDependencies()
@@ -153,7 +188,7 @@ public class PredicateIterator extends HybridRuntimeIterator {
         Map<String, DynamicContext.VariableDependency> result = new TreeMap<String, DynamicContext.VariableDependency>();
         result.putAll(_filter.getVariableDependencies());
         result.remove("$");
-        result.putAll(_iterator.getVariableDependencies());
+        mergeVariableDependencies(result, _iterator.getVariableDependencies());
         return result;
     }
 }
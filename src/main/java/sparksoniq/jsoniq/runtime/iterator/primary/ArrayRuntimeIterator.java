@@ -44,7 +44,7 @@ public class ArrayRuntimeIterator extends LocalRuntimeIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             List<Item> result = this.runChildrenIterators(this._currentDynamicContext);
             this._item = ItemFactory.getInstance().createArrayItem(result);
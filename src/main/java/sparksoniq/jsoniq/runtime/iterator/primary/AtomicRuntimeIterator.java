@@ -38,5 +38,5 @@ public abstract class AtomicRuntimeIterator extends LocalRuntimeIterator {
     }
 
     @Override
-    public abstract Item next();
+    protected abstract Item nextLocal();
 }
@@ -26,6 +26,7 @@ import sparksoniq.exceptions.IteratorFlowException;
 import sparksoniq.jsoniq.item.ItemFactory;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
+import sparksoniq.semantics.types.ItemTypes;
 
 public class BooleanRuntimeIterator extends AtomicRuntimeIterator {
 
@@ -39,7 +40,7 @@ public class BooleanRuntimeIterator extends AtomicRuntimeIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             this._hasNext = false;
             return ItemFactory.getInstance().createBooleanItem(_item);
@@ -47,5 +48,9 @@ public class BooleanRuntimeIterator extends AtomicRuntimeIterator {
 
         throw new IteratorFlowException(RuntimeIterator.FLOW_EXCEPTION_MESSAGE + this._item, getMetadata());
     }
-}
 
+    @Override
+    public ItemTypes getStaticItemType() {
+        return ItemTypes.BooleanItem;
+    }
+}
@@ -41,7 +41,7 @@ public class ContextExpressionIterator extends LocalRuntimeIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (hasNext()) {
             this._hasNext = false;
             List<Item> results = new ArrayList<>();
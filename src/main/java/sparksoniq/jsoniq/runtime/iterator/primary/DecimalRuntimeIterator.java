@@ -24,6 +24,7 @@ import sparksoniq.exceptions.IteratorFlowException;
 import sparksoniq.jsoniq.item.ItemFactory;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
+import sparksoniq.semantics.types.ItemTypes;
 
 import java.math.BigDecimal;
 
@@ -42,7 +43,7 @@ public class DecimalRuntimeIterator extends AtomicRuntimeIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             this._hasNext = false;
             return ItemFactory.getInstance().createDecimalItem(_item);
@@ -50,4 +51,9 @@ public class DecimalRuntimeIterator extends AtomicRuntimeIterator {
 
         throw new IteratorFlowException(RuntimeIterator.FLOW_EXCEPTION_MESSAGE + this._item, getMetadata());
     }
+
+    @Override
+    public ItemTypes getStaticItemType() {
+        return ItemTypes.DecimalItem;
+    }
 }
@@ -26,6 +26,7 @@ import sparksoniq.exceptions.IteratorFlowException;
 import sparksoniq.jsoniq.item.ItemFactory;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
+import sparksoniq.semantics.types.ItemTypes;
 
 public class IntegerRuntimeIterator extends AtomicRuntimeIterator {
 
@@ -40,7 +41,7 @@ public class IntegerRuntimeIterator extends AtomicRuntimeIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             this._hasNext = false;
             return ItemFactory.getInstance().createIntegerItem(_item);
@@ -48,4 +49,9 @@ public class IntegerRuntimeIterator extends AtomicRuntimeIterator {
 
         throw new IteratorFlowException(RuntimeIterator.FLOW_EXCEPTION_MESSAGE + this._item, getMetadata());
     }
+
+    @Override
+    public ItemTypes getStaticItemType() {
+        return ItemTypes.IntegerItem;
+    }
 }
@@ -37,7 +37,7 @@ public class NullRuntimeIterator extends AtomicRuntimeIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             this._hasNext = false;
             return ItemFactory.getInstance().createNullItem();
@@ -58,7 +58,7 @@ public class ObjectConstructorRuntimeIterator extends LocalRuntimeIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             List<Item> values = new ArrayList<>();
             List<String> keys = new ArrayList<>();
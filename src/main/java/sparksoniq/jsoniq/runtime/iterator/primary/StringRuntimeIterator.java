@@ -27,6 +27,7 @@ import sparksoniq.exceptions.IteratorFlowException;
 import sparksoniq.jsoniq.item.ItemFactory;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
+import sparksoniq.semantics.types.ItemTypes;
 
 public class StringRuntimeIterator extends AtomicRuntimeIterator {
 
@@ -41,7 +42,7 @@ public class StringRuntimeIterator extends AtomicRuntimeIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             this._hasNext = false;
             return ItemFactory.getInstance().createStringItem(_item);
@@ -49,4 +50,9 @@ public class StringRuntimeIterator extends AtomicRuntimeIterator {
 
         throw new IteratorFlowException(RuntimeIterator.FLOW_EXCEPTION_MESSAGE + this._item, getMetadata());
     }
+
+    @Override
+    public ItemTypes getStaticItemType() {
+        return ItemTypes.StringItem;
+    }
 }
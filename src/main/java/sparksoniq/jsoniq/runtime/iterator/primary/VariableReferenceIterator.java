@@ -27,8 +27,10 @@ import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.semantics.DynamicContext;
 import sparksoniq.semantics.types.SequenceType;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 import org.rumbledb.api.Item;
@@ -49,7 +51,7 @@ public class VariableReferenceIterator extends LocalRuntimeIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (!this.hasNext())
             throw new IteratorFlowException(RuntimeIterator.FLOW_EXCEPTION_MESSAGE + "$" + _variableName, getMetadata());
         Item item = items.get(currentIndex);
@@ -87,6 +89,24 @@ public class VariableReferenceIterator extends LocalRuntimeIterator {
         return _variableName;
     }
 
+    public Set<String> getLookedUpKeys(String variableName)
+    {
+        if(_variableName.equals(variableName))
+        {
+            return null;
+        }
+        return new HashSet<String>();
+    }
+
+    public Set<List<String>> getAggregatedLookupKeys(String variableName)
+    {
+        if(_variableName.equals(variableName))
+        {
+            return null;
+        }
+        return new HashSet<List<String>>();
+    }
+
     public Map<String, DynamicContext.VariableDependency> getVariableDependencies()
     {
         Map<String, DynamicContext.VariableDependency> result = new TreeMap<String, DynamicContext.VariableDependency>();
@@ -52,7 +52,7 @@ public class QuantifiedExpressionIterator extends LocalRuntimeIterator {
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this._hasNext) {
             this._hasNext = false;
             List<DynamicContext> contexts = new ArrayList<>();
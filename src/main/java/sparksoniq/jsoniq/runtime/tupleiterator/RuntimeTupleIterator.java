@@ -26,6 +26,7 @@ import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -34,6 +35,7 @@ import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
 import sparksoniq.exceptions.IteratorFlowException;
+import sparksoniq.jsoniq.runtime.iterator.IteratorStatistics;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.jsoniq.tuple.FlworTuple;
 import sparksoniq.semantics.DynamicContext;
@@ -47,6 +49,7 @@ public abstract class RuntimeTupleIterator implements RuntimeTupleIteratorInterf
     protected boolean _isOpen;
     protected RuntimeTupleIterator _child;
     protected DynamicContext _currentDynamicContext;
+    protected IteratorStatistics _statistics;
 
     protected RuntimeTupleIterator(RuntimeTupleIterator child, IteratorMetadata metadata) {
         this.metadata = metadata;
@@ -60,14 +63,20 @@ public abstract class RuntimeTupleIterator implements RuntimeTupleIteratorInterf
         this._isOpen = true;
         this._hasNext = true;
         this._currentDynamicContext = context;
+        if (this._statistics != null)
+            this._statistics.recordOpen();
     }
 
     public void close() {
         this._isOpen = false;
         this._child.close();
+        if (this._statistics != null)
+            this._statistics.recordClose();
     }
 
     public void reset(DynamicContext context) {
+        if (this._statistics != null)
+            this._statistics.recordReset();
         this._hasNext = true;
         this._currentDynamicContext = context;
         this._child.reset(context);
@@ -93,6 +102,14 @@ public abstract class RuntimeTupleIterator implements RuntimeTupleIteratorInterf
         return _isOpen;
     }
 
+    /**
+     * Makes the tuple iterator collect runtime statistics, printed with the iterator tree.
+     */
+    public void enableStatistics() {
+        if (this._statistics == null)
+            this._statistics = IteratorStatistics.create(this);
+    }
+
     public boolean hasNext() {
         return this._hasNext;
     }
@@ -103,6 +120,10 @@ public abstract class RuntimeTupleIterator implements RuntimeTupleIteratorInterf
         return metadata;
     }
 
+    public RuntimeTupleIterator getChild() {
+        return _child;
+    }
+
     public abstract boolean isRDD();
 
     public abstract JavaRDD<FlworTuple> getRDD(DynamicContext context);
@@ -158,6 +179,31 @@ public abstract class RuntimeTupleIterator implements RuntimeTupleIteratorInterf
     {
         return new HashSet<String>();
     }
+
+    /**
+     * Returns the keys that the expressions of this clause look up in the objects bound to a variable,
+     * which allows an initial for clause over structured inputs to only read these keys.
+     * 
+     * @param variableName the name of the variable, including the $ sign
+     * @return the keys looked up, or null if the items bound to the variable are used in any other way.
+     */
+    public Set<String> getLookedUpKeys(String variableName)
+    {
+        return null;
+    }
+
+    /**
+     * Returns the keys with which the expressions of this clause look up values in the items bound to a variable
+     * before aggregating them, which allows a previous group by clause to aggregate the looked-up values.
+     *
+     * @param variableName the name of the variable, including the $ sign
+     * @return the lookup chains, an empty list standing for an aggregation of the variable itself,
+     * or null if the items bound to the variable are used in any other way.
+     */
+    public Set<List<String>> getAggregatedLookupKeys(String variableName)
+    {
+        return null;
+    }
     
     public void print(StringBuffer buffer, int indent)
     {
@@ -181,6 +227,11 @@ public abstract class RuntimeTupleIterator implements RuntimeTupleIteratorInterf
         {
           buffer.append(v + " ");
         }
+        if (_statistics != null)
+        {
+            buffer.append(" | ");
+            buffer.append(_statistics);
+        }
         buffer.append("\n");
 
         if(_child != null)
@@ -23,6 +23,7 @@ package sparksoniq.jsoniq.runtime.tupleiterator;
 import org.apache.spark.api.java.JavaRDD;
 import sparksoniq.exceptions.IteratorFlowException;
 import sparksoniq.io.json.JiqsItemParser;
+import sparksoniq.jsoniq.runtime.iterator.IteratorStatistics;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.jsoniq.tuple.FlworTuple;
 import sparksoniq.semantics.DynamicContext;
@@ -65,9 +66,10 @@ public abstract class SparkRuntimeTupleIterator extends RuntimeTupleIterator {
             currentResultIndex = 0;
             this._rdd = this.getRDD(_currentDynamicContext);
             if (SparkSessionManager.LIMIT_COLLECT()) {
-                result = _rdd.take(SparkSessionManager.COLLECT_ITEM_LIMIT);
+                result = IteratorStatistics.runSparkAction(_statistics,
+                        () -> _rdd.take(SparkSessionManager.COLLECT_ITEM_LIMIT));
             } else
-                result = _rdd.collect();
+                result = IteratorStatistics.runSparkAction(_statistics, () -> _rdd.collect());
         }
 
         if (!(currentResultIndex <= result.size() - 1))
@@ -78,6 +80,8 @@ public abstract class SparkRuntimeTupleIterator extends RuntimeTupleIterator {
 
         FlworTuple tuple = result.get(currentResultIndex);
         currentResultIndex++;
+        if (_statistics != null)
+            _statistics.recordItem();
         return tuple;
     }
 }
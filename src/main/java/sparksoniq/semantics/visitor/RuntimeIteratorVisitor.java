@@ -124,9 +124,25 @@ import java.util.Map;
 
 public class RuntimeIteratorVisitor extends AbstractExpressionOrClauseVisitor<RuntimeIterator> {
 
+    private final boolean _collectStatistics;
+
+    public RuntimeIteratorVisitor() {
+        this(false);
+    }
+
+    /**
+     * @param collectStatistics whether the generated iterators and tuple iterators collect runtime statistics
+     */
+    public RuntimeIteratorVisitor(boolean collectStatistics) {
+        _collectStatistics = collectStatistics;
+    }
+
     @Override
     public RuntimeIterator visit(ExpressionOrClause expression, RuntimeIterator argument) {
-        return expression.accept(this, argument);
+        RuntimeIterator result = expression.accept(this, argument);
+        if (_collectStatistics && result != null)
+            result.enableStatistics();
+        return result;
     }
 
     @Override
@@ -163,6 +179,7 @@ public class RuntimeIteratorVisitor extends AbstractExpressionOrClauseVisitor<Ru
                         (VariableReferenceIterator) this.visit(var.getVariableReference(), argument);
                 previousIterator = new ForClauseSparkIterator(previousIterator, variableReferenceIterator, assignmentExpression,
                         createIteratorMetadata(clause));
+                enableStatistics(previousIterator);
             }
         } else if (clause instanceof LetClause) {
             for (LetClauseVar var : ((LetClause) clause).getLetVariables()) {
@@ -171,6 +188,7 @@ public class RuntimeIteratorVisitor extends AbstractExpressionOrClauseVisitor<Ru
                         (VariableReferenceIterator) this.visit(var.getVariableReference(), argument);
                 previousIterator = new LetClauseSparkIterator(previousIterator, variableReferenceIterator, assignmentExpression,
                         createIteratorMetadata(clause));
+                enableStatistics(previousIterator);
             }
         } else if (clause instanceof GroupByClause) {
             List<GroupByClauseSparkIteratorExpression> expressions = new ArrayList<>();
@@ -181,6 +199,7 @@ public class RuntimeIteratorVisitor extends AbstractExpressionOrClauseVisitor<Ru
                         createIteratorMetadata(groupExpr)));
             }
             previousIterator = new GroupByClauseSparkIterator(previousIterator, expressions, createIteratorMetadata(clause));
+            enableStatistics(previousIterator);
         } else if (clause instanceof OrderByClause) {
             List<OrderByClauseSparkIteratorExpression> expressions = new ArrayList<>();
             for (OrderByClauseExpr orderExpr : ((OrderByClause) clause).getExpressions()) {
@@ -189,16 +208,24 @@ public class RuntimeIteratorVisitor extends AbstractExpressionOrClauseVisitor<Ru
             }
             previousIterator = new OrderByClauseSparkIterator(previousIterator, expressions, ((OrderByClause) clause).isStable(),
                     createIteratorMetadata(clause));
+            enableStatistics(previousIterator);
         } else if (clause instanceof WhereClause) {
             previousIterator = new WhereClauseSparkIterator(previousIterator, this.visit(((WhereClause) clause).getWhereExpression(), argument),
                     createIteratorMetadata(clause));
+            enableStatistics(previousIterator);
         } else if (clause instanceof CountClause) {
             previousIterator = new CountClauseSparkIterator(previousIterator, this.visit(((CountClause) clause).getCountVariable(), argument),
                     createIteratorMetadata(clause));
+            enableStatistics(previousIterator);
         }
         return previousIterator;
     }
 
+    private void enableStatistics(RuntimeTupleIterator iterator) {
+        if (_collectStatistics)
+            iterator.enableStatistics();
+    }
+
     @Override
     public RuntimeIterator visitOrderByClauseExpr(OrderByClauseExpr expression, RuntimeIterator argument) {
         return defaultAction(expression, argument);
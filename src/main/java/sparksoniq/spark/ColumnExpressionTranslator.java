@@ -0,0 +1,445 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.spark;
+
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.functions;
+import org.apache.spark.sql.types.DataType;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.DecimalType;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+import org.rumbledb.api.Item;
+import sparksoniq.exceptions.SparksoniqRuntimeException;
+import sparksoniq.jsoniq.compiler.translator.expr.operational.base.OperationalExpressionBase.Operator;
+import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
+import sparksoniq.jsoniq.runtime.iterator.functions.strings.ContainsFunctionIterator;
+import sparksoniq.jsoniq.runtime.iterator.functions.strings.EndsWithFunctionIterator;
+import sparksoniq.jsoniq.runtime.iterator.functions.strings.StartsWithFunctionIterator;
+import sparksoniq.jsoniq.runtime.iterator.operational.AndOperationIterator;
+import sparksoniq.jsoniq.runtime.iterator.operational.ComparisonOperationIterator;
+import sparksoniq.jsoniq.runtime.iterator.operational.NotOperationIterator;
+import sparksoniq.jsoniq.runtime.iterator.operational.OrOperationIterator;
+import sparksoniq.jsoniq.runtime.iterator.postfix.ObjectLookupIterator;
+import sparksoniq.jsoniq.runtime.iterator.primary.ContextExpressionIterator;
+import sparksoniq.jsoniq.runtime.iterator.primary.VariableReferenceIterator;
+import sparksoniq.semantics.DynamicContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Translates JSONiq expressions over the variables of a FLWOR DataFrame into native Spark SQL columns,
+ * so that Catalyst can optimize and push them down instead of evaluating them row by row in a UDF.
+ *
+ * Only expressions whose semantics can be reproduced exactly are translated, null is returned otherwise
+ * and callers fall back to evaluating the expression in a UDF. A native column value of null stands for
+ * the empty sequence, every translated predicate therefore computes the effective boolean value and
+ * is never null itself.
+ */
+public class ColumnExpressionTranslator {
+
+    private final StructType _schema;
+    private final DynamicContext _context;
+
+    private ColumnExpressionTranslator(StructType schema, DynamicContext context) {
+        _schema = schema;
+        _context = context;
+    }
+
+    /**
+     * @param expression the predicate, e.g., the expression of a where clause
+     * @param schema     the schema of the DataFrame whose columns contain the FLWOR variables
+     * @param context    the context used to evaluate the parts of the expression that do not depend on any column
+     * @return a boolean column computing the effective boolean value of the expression, or null if it cannot be translated
+     */
+    public static Column translatePredicate(RuntimeIterator expression, StructType schema, DynamicContext context) {
+        return new ColumnExpressionTranslator(schema, context).translateBoolean(expression);
+    }
+
+    private Column translateBoolean(RuntimeIterator expression) {
+        if (!dependsOnColumns(expression)) {
+            return translateConstantPredicate(expression);
+        }
+        if (expression instanceof AndOperationIterator || expression instanceof OrOperationIterator) {
+            Column left = translateBoolean(expression.getChildren().get(0));
+            Column right = translateBoolean(expression.getChildren().get(1));
+            if (left == null || right == null) {
+                return null;
+            }
+            return expression instanceof AndOperationIterator ? left.and(right) : left.or(right);
+        }
+        if (expression instanceof NotOperationIterator) {
+            Column child = translateBoolean(expression.getChildren().get(0));
+            return child == null ? null : functions.not(child);
+        }
+        if (expression instanceof ComparisonOperationIterator) {
+            return translateComparison((ComparisonOperationIterator) expression);
+        }
+        if (expression instanceof ContainsFunctionIterator
+                || expression instanceof StartsWithFunctionIterator
+                || expression instanceof EndsWithFunctionIterator) {
+            return translateStringFunction(expression);
+        }
+        TypedColumn value = translateValue(expression);
+        if (value != null && value._type.equals(DataTypes.BooleanType) && !value._isLookup) {
+            return effectiveBooleanValue(value._column);
+        }
+        return null;
+    }
+
+    private Column translateComparison(ComparisonOperationIterator expression) {
+        Operator operator = expression.getOperator();
+        RuntimeIterator leftExpression = expression.getChildren().get(0);
+        RuntimeIterator rightExpression = expression.getChildren().get(1);
+        if (!dependsOnColumns(leftExpression)) {
+            // normalize to a column on the left-hand side
+            RuntimeIterator swap = leftExpression;
+            leftExpression = rightExpression;
+            rightExpression = swap;
+            operator = mirror(operator);
+        }
+        TypedColumn left = translateValue(leftExpression);
+        if (left == null) {
+            return null;
+        }
+        boolean isGeneralComparison = Arrays.asList(ComparisonOperationIterator.generalComparisonOperators)
+                .contains(operator);
+
+        if (dependsOnColumns(rightExpression)) {
+            TypedColumn right = translateValue(rightExpression);
+            if (right == null || left._isLookup || right._isLookup || !areComparable(left._type, right._type)) {
+                return null;
+            }
+            return effectiveBooleanValue(compare(left._column, isDoubleType(left._type), operator,
+                    right._column, isDoubleType(right._type)));
+        }
+
+        List<Item> constants = evaluateConstant(rightExpression);
+        if (constants == null) {
+            return null;
+        }
+        if (constants.isEmpty()) {
+            // comparing with the empty sequence is false (or empty) for every row
+            return functions.lit(false);
+        }
+        for (Item constant : constants) {
+            if (!isComparable(left._type, constant)) {
+                return null;
+            }
+        }
+        if (left._isLookup && !(operator == Operator.VC_EQ || operator == Operator.GC_EQ
+                || operator == Operator.VC_GT || operator == Operator.GC_GT
+                || operator == Operator.VC_GE || operator == Operator.GC_GE)) {
+            // absent keys and null values both become null in nested columns, but only compare the same
+            // with these operators, as null is smaller than any other atomic
+            return null;
+        }
+        if (constants.size() == 1) {
+            Item constant = constants.get(0);
+            return effectiveBooleanValue(compare(left._column, isDoubleType(left._type), operator,
+                    toLiteral(constant), constant.isDouble()));
+        }
+        if (isGeneralComparison && operator == Operator.GC_EQ) {
+            List<Object> values = new ArrayList<>();
+            for (Item constant : constants) {
+                // NaN is not equal to any value
+                if (!(constant.isDouble() && Double.isNaN(constant.getDoubleValue()))) {
+                    values.add(toValue(constant));
+                }
+            }
+            Column isIn = left._column.isin(values.toArray());
+            if (isDoubleType(left._type)) {
+                isIn = functions.when(functions.isnan(left._column), false).otherwise(isIn);
+            }
+            return effectiveBooleanValue(isIn);
+        }
+        return null;
+    }
+
+    private Column translateStringFunction(RuntimeIterator expression) {
+        RuntimeIterator stringExpression = expression.getChildren().get(0);
+        RuntimeIterator substringExpression = expression.getChildren().get(1);
+        if (dependsOnColumns(substringExpression)) {
+            return null;
+        }
+        List<Item> substrings = evaluateConstant(substringExpression);
+        if (substrings == null || substrings.size() > 1 || (substrings.size() == 1 && !substrings.get(0).isString())) {
+            return null;
+        }
+        // the operand of other types is left to the UDF, which applies the type checks of the function
+        TypedColumn string = translateValue(stringExpression);
+        if (string == null || string._isLookup || !string._type.equals(DataTypes.StringType)) {
+            return null;
+        }
+        if (substrings.isEmpty() || substrings.get(0).getStringValue().isEmpty()) {
+            // the empty string is contained in, starts and ends any string
+            return functions.lit(true);
+        }
+        String substring = substrings.get(0).getStringValue();
+        Column result;
+        if (expression instanceof ContainsFunctionIterator) {
+            result = string._column.contains(substring);
+        } else if (expression instanceof StartsWithFunctionIterator) {
+            result = string._column.startsWith(substring);
+        } else {
+            result = string._column.endsWith(substring);
+        }
+        return effectiveBooleanValue(result);
+    }
+
+    /**
+     * Translates an expression returning at most one atomic item, which is null in the resulting column if
+     * the expression returns the empty sequence.
+     */
+    private TypedColumn translateValue(RuntimeIterator expression) {
+        if (expression instanceof VariableReferenceIterator) {
+            String variableName = ((VariableReferenceIterator) expression).getVariableName();
+            if (!Arrays.asList(_schema.fieldNames()).contains(variableName)) {
+                return null;
+            }
+            DataType type = _schema.apply(variableName).dataType();
+            // binary columns contain sequences of arbitrary items and long columns contain counts
+            if (type.equals(DataTypes.BinaryType) || type.equals(DataTypes.LongType)) {
+                return null;
+            }
+            return new TypedColumn(functions.col("`" + variableName + "`"), type, false);
+        }
+        if (expression instanceof ObjectLookupIterator) {
+            RuntimeIterator lookupExpression = expression.getChildren().get(1);
+            if (lookupExpression instanceof ContextExpressionIterator || dependsOnColumns(lookupExpression)) {
+                return null;
+            }
+            TypedColumn object = translateValue(expression.getChildren().get(0));
+            List<Item> keys = evaluateConstant(lookupExpression);
+            if (object == null || !(object._type instanceof StructType)
+                    || keys == null || keys.size() != 1 || !keys.get(0).isString()) {
+                return null;
+            }
+            String key = keys.get(0).getStringValue();
+            StructType objectType = (StructType) object._type;
+            if (!Arrays.asList(objectType.fieldNames()).contains(key)) {
+                return null;
+            }
+            StructField field = objectType.apply(key);
+            if (!isAtomicType(field.dataType()) && !(field.dataType() instanceof StructType)) {
+                return null;
+            }
+            return new TypedColumn(object._column.getField(key), field.dataType(), true);
+        }
+        return null;
+    }
+
+    private Column translateConstantPredicate(RuntimeIterator expression) {
+        if (expression.isRDD() || expression.isDataFrame()) {
+            return null;
+        }
+        try {
+            expression.open(_context);
+            boolean effectiveBooleanValue = RuntimeIterator.getEffectiveBooleanValue(expression);
+            expression.close();
+            return functions.lit(effectiveBooleanValue);
+        } catch (SparksoniqRuntimeException e) {
+            // errors are only raised if there are tuples to filter, which the UDF takes care of
+            return null;
+        }
+    }
+
+    /**
+     * Evaluates an expression that does not depend on any column once, on the driver.
+     *
+     * @return the resulting atomic items, or null if the expression cannot be evaluated locally
+     */
+    private List<Item> evaluateConstant(RuntimeIterator expression) {
+        if (expression.isRDD() || expression.isDataFrame()) {
+            return null;
+        }
+        List<Item> result = new ArrayList<>();
+        try {
+            expression.open(_context);
+            while (expression.hasNext()) {
+                Item item = expression.next();
+                if (!item.isAtomic() || item.isNull()) {
+                    expression.close();
+                    return null;
+                }
+                result.add(item);
+            }
+            expression.close();
+        } catch (SparksoniqRuntimeException e) {
+            return null;
+        }
+        return result;
+    }
+
+    private boolean dependsOnColumns(RuntimeIterator expression) {
+        List<String> columnNames = Arrays.asList(_schema.fieldNames());
+        for (String variableName : expression.getVariableDependencies().keySet()) {
+            if (columnNames.contains(variableName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Column effectiveBooleanValue(Column predicate) {
+        return functions.coalesce(predicate, functions.lit(false));
+    }
+
+    /**
+     * Spark considers NaN equal to itself and greater than any other double, whereas in JSONiq every comparison
+     * with NaN is false, except ne which is true. The operands that may be NaN are therefore checked first.
+     */
+    private static Column compare(Column left, boolean leftIsDouble, Operator operator,
+                                  Column right, boolean rightIsDouble) {
+        Column comparison = compare(left, operator, right);
+        Column isNaN = null;
+        if (leftIsDouble) {
+            isNaN = functions.isnan(left);
+        }
+        if (rightIsDouble) {
+            isNaN = isNaN == null ? functions.isnan(right) : isNaN.or(functions.isnan(right));
+        }
+        if (isNaN == null) {
+            return comparison;
+        }
+        // a null operand stands for the empty sequence, which is not compared at all
+        Column nanComparison = operator == Operator.VC_NE || operator == Operator.GC_NE
+                ? left.isNotNull().and(right.isNotNull())
+                : functions.lit(false);
+        return functions.when(isNaN, nanComparison).otherwise(comparison);
+    }
+
+    private static Column compare(Column left, Operator operator, Object right) {
+        switch (operator) {
+            case VC_EQ:
+            case GC_EQ:
+                return left.equalTo(right);
+            case VC_NE:
+            case GC_NE:
+                return left.notEqual(right);
+            case VC_LT:
+            case GC_LT:
+                return left.lt(right);
+            case VC_LE:
+            case GC_LE:
+                return left.leq(right);
+            case VC_GT:
+            case GC_GT:
+                return left.gt(right);
+            case VC_GE:
+            case GC_GE:
+                return left.geq(right);
+            default:
+                throw new SparksoniqRuntimeException("Unrecognized comparison operator found.");
+        }
+    }
+
+    private static Operator mirror(Operator operator) {
+        switch (operator) {
+            case VC_LT:
+                return Operator.VC_GT;
+            case VC_LE:
+                return Operator.VC_GE;
+            case VC_GT:
+                return Operator.VC_LT;
+            case VC_GE:
+                return Operator.VC_LE;
+            case GC_LT:
+                return Operator.GC_GT;
+            case GC_LE:
+                return Operator.GC_GE;
+            case GC_GT:
+                return Operator.GC_LT;
+            case GC_GE:
+                return Operator.GC_LE;
+            default:
+                return operator;
+        }
+    }
+
+    private static boolean isNumericType(DataType type) {
+        return type.equals(DataTypes.IntegerType) || type.equals(DataTypes.LongType)
+                || type.equals(DataTypes.DoubleType) || type instanceof DecimalType;
+    }
+
+    private static boolean isDoubleType(DataType type) {
+        return type.equals(DataTypes.DoubleType);
+    }
+
+    private static boolean isAtomicType(DataType type) {
+        return isNumericType(type) || type.equals(DataTypes.StringType) || type.equals(DataTypes.BooleanType);
+    }
+
+    private static boolean areComparable(DataType left, DataType right) {
+        if (isNumericType(left)) {
+            return isNumericType(right);
+        }
+        return isAtomicType(left) && left.equals(right);
+    }
+
+    private static boolean isComparable(DataType type, Item item) {
+        if (isNumericType(type)) {
+            return item.isNumeric();
+        }
+        if (type.equals(DataTypes.StringType)) {
+            return item.isString();
+        }
+        if (type.equals(DataTypes.BooleanType)) {
+            return item.isBoolean();
+        }
+        return false;
+    }
+
+    private static Object toValue(Item item) {
+        if (item.isInteger()) {
+            return item.getIntegerValue();
+        }
+        if (item.isDouble()) {
+            return item.getDoubleValue();
+        }
+        if (item.isDecimal()) {
+            return item.getDecimalValue();
+        }
+        if (item.isBoolean()) {
+            return item.getBooleanValue();
+        }
+        return item.getStringValue();
+    }
+
+    private static Column toLiteral(Item item) {
+        return functions.lit(toValue(item));
+    }
+
+    private static class TypedColumn {
+        private final Column _column;
+        private final DataType _type;
+        // true for values looked up in a nested column, which may be null for absent keys as well as for null values
+        private final boolean _isLookup;
+
+        private TypedColumn(Column column, DataType type, boolean isLookup) {
+            _column = column;
+            _type = type;
+            _isLookup = isLookup;
+        }
+    }
+}
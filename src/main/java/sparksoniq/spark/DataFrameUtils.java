@@ -28,11 +28,17 @@ import org.apache.spark.sql.Row;
 import org.apache.spark.sql.RowFactory;
 import org.apache.spark.sql.expressions.UserDefinedFunction;
 import org.apache.spark.sql.expressions.Window;
+import org.apache.spark.sql.types.ArrayType;
+import org.apache.spark.sql.types.DataType;
 import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
 import org.apache.spark.sql.types.StructType;
 import org.rumbledb.api.Item;
 
+import scala.collection.JavaConverters;
+import scala.collection.Seq;
 import scala.collection.mutable.WrappedArray;
+import sparksoniq.exceptions.SparksoniqRuntimeException;
 import sparksoniq.jsoniq.item.ArrayItem;
 import sparksoniq.jsoniq.item.BooleanItem;
 import sparksoniq.jsoniq.item.DecimalItem;
@@ -42,11 +48,16 @@ import sparksoniq.jsoniq.item.ItemFactory;
 import sparksoniq.jsoniq.item.NullItem;
 import sparksoniq.jsoniq.item.ObjectItem;
 import sparksoniq.jsoniq.item.StringItem;
+import sparksoniq.jsoniq.runtime.iterator.IteratorStatistics;
 import sparksoniq.semantics.DynamicContext;
+import sparksoniq.semantics.types.ItemTypes;
+import sparksoniq.spark.udf.GroupClauseAggregateUDAF;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import static org.apache.spark.sql.functions.col;
@@ -60,6 +71,14 @@ import static org.apache.spark.sql.functions.udf;
 
 public class DataFrameUtils {
 
+    /**
+     * The UDFs and the temporary view "input" used by the SQL statements of the clauses are registered by name in
+     * the Spark session, which is shared by all the queries executing at the same time. A clause holds this lock
+     * while it registers them and analyzes the statement using them, after which the DataFrame no longer refers
+     * to them by name, so that another query cannot replace them in between.
+     */
+    public static final Object SQL_REGISTRATION_LOCK = new Object();
+
     private static ThreadLocal<byte[]> lastBytesCache = new ThreadLocal<byte[]>() {
         @Override
         protected byte[] initialValue() {
@@ -101,7 +120,8 @@ public class DataFrameUtils {
         if(toSerialize.size() == 1 && toSerialize.get(0).isObject())
         {
             lastBytesCache.set(serializedBytes);
-            lastObjectItemCache.set(toSerialize);
+            // callers may reuse and clear their list, so the cache keeps its own copy
+            lastObjectItemCache.set(new ArrayList<>(toSerialize));
         }
         return serializedBytes;
     }
@@ -183,6 +203,8 @@ public class DataFrameUtils {
      * @param inputSchema            schema specifies the columns to be used in the query
      * @param duplicateVariableIndex enables skipping a variable
      * @param trailingComma          boolean field to have a trailing comma
+     * @param aggregateUdfPrefix     prefix of the aggregate functions registered, suffixed with the column index,
+     *                               for the variables only used with sum(), avg(), max() or min()
      * @return comma separated variables to be used in spark SQL
      */
     public static String getGroupbyProjectSQL(
@@ -190,6 +212,7 @@ public class DataFrameUtils {
             int duplicateVariableIndex,
             boolean trailingComma,
             String serializerUdfName,
+            String aggregateUdfPrefix,
             List<String> groupbyVariableNames,
             Map<String, DynamicContext.VariableDependency> dependencies
     ) {
@@ -210,8 +233,17 @@ public class DataFrameUtils {
             if (dependencies.containsKey(columnName) && dependencies.get(columnName) == DynamicContext.VariableDependency.COUNT) {
                 applyCount = true;
             }
+            boolean applyAggregate = false;
+            if (!applyDistinct && dependencies.containsKey(columnName)
+                    && GroupClauseAggregateUDAF.isSupported(dependencies.get(columnName))) {
+                applyAggregate = true;
+            }
             if(applyCount) {
                 queryColumnString.append("count(`");
+            } else if(applyAggregate) {
+                queryColumnString.append(aggregateUdfPrefix);
+                queryColumnString.append(columnIndex);
+                queryColumnString.append("(`");
             } else {
                 queryColumnString.append(serializerUdfName);
                 queryColumnString.append("(");
@@ -223,7 +255,7 @@ public class DataFrameUtils {
 
             queryColumnString.append(columnName);
 
-            if(applyCount) {
+            if(applyCount || applyAggregate) {
                 queryColumnString.append("`)");
             } else {
                 queryColumnString.append("`)");
@@ -258,22 +290,25 @@ public class DataFrameUtils {
         return kryo.readClassAndObject(input);
     }
 
-    public static void deserializeWrappedParameters(WrappedArray<byte[]> wrappedParameters, List<List<Item>> deserializedParams, Kryo kryo, Input input) {
-        Object[] serializedParams = (Object[]) wrappedParameters.array();
-        for (Object serializedParam: serializedParams) {
-            @SuppressWarnings("unchecked")
-			List<Item> deserializedParam = (List<Item>) deserializeByteArray((byte[]) serializedParam, kryo, input);
-            deserializedParams.add(deserializedParam);
+    /**
+     * Deserializes all fields of a row, e.g., the struct of input columns passed to a clause UDF.
+     *
+     * @param row                the row, whose fields are either binary or native columns
+     * @param deserializedParams the list to which the sequence of items of every field is appended
+     */
+    public static void deserializeRowParameters(Row row, List<List<Item>> deserializedParams, Kryo kryo, Input input) {
+        for (int columnIndex = 0; columnIndex < row.length(); columnIndex++) {
+            deserializedParams.add(deserializeRowField(row, columnIndex, kryo, input));
         }
     }
 
     public static Row reserializeRowWithNewData(Row prevRow, List<Item> newColumn, int duplicateColumnIndex, Kryo kryo, Output output) {
-        List<byte[]> newRowColumns = new ArrayList<>();
+        List<Object> newRowColumns = new ArrayList<>();
         for (int columnIndex = 0; columnIndex < prevRow.length(); columnIndex++) {
             if (duplicateColumnIndex == columnIndex) {
                 newRowColumns.add(serializeItemList(newColumn, kryo, output));
             } else {
-                newRowColumns.add((byte[]) prevRow.get(columnIndex));
+                newRowColumns.add(prevRow.get(columnIndex));
             }
         }
         if (duplicateColumnIndex == -1) {
@@ -282,32 +317,193 @@ public class DataFrameUtils {
         return RowFactory.create(newRowColumns.toArray());
     }
 
+    /**
+     * Deserializes the elements of an array column, e.g., the values collected for a variable when grouping.
+     *
+     * @param wrappedParameters  the array, whose elements are either binary or native column values
+     * @param deserializedParams the list to which the sequence of items of every element is appended
+     */
+    public static void deserializeWrappedParameters(WrappedArray<Object> wrappedParameters, List<List<Item>> deserializedParams, Kryo kryo, Input input) {
+        Object[] serializedParams = (Object[]) wrappedParameters.array();
+        for (Object serializedParam: serializedParams) {
+            deserializedParams.add(deserializeColumnValue(serializedParam, kryo, input));
+        }
+    }
+
+    public static List<Item> deserializeRowField(Row row, int columnIndex, Kryo kryo, Input input) {
+        return deserializeColumnValue(row.get(columnIndex), kryo, input);
+    }
+
+    /**
+     * Deserializes a column value into a sequence of items.
+     * Binary values contain a Kryo-serialized list of items, native values contain a single atomic value,
+     * and a null native value stands for the empty sequence.
+     * Long values are the result of a count aggregation and are returned as a singleton integer.
+     */
     @SuppressWarnings("unchecked")
-	public static List<Item> deserializeRowField(Row row, int columnIndex, Kryo kryo, Input input) {
-        Object o = row.get(columnIndex);
-        if(o instanceof Long)
-        {
-            List<Item> result = new ArrayList<Item>(1);
-            result.add(ItemFactory.getInstance().createIntegerItem(((Long) o).intValue()));
+	public static List<Item> deserializeColumnValue(Object o, Kryo kryo, Input input) {
+        if (o instanceof byte[]) {
+            return (List<Item>) deserializeByteArray((byte[]) o, kryo, input);
+        }
+        List<Item> result = new ArrayList<Item>(1);
+        if (o == null) {
             return result;
+        }
+        if (o instanceof Long) {
+            result.add(ItemFactory.getInstance().createIntegerItem(((Long) o).intValue()));
+        } else if (o instanceof Row) {
+            result.add(convertRowToItem((Row) o));
         } else {
-            byte[] bytes = (byte[]) o;
-            input.setBuffer(bytes);
-            return (List<Item>) kryo.readClassAndObject(input);
+            result.add(deserializeNativeValue(o));
         }
+        return result;
     }
 
     public static List<Object> deserializeEntireRow(Row row, Kryo kryo, Input input) {
         ArrayList<Object> deserializedColumnObjects = new ArrayList<>();
         for (int columnIndex = 0; columnIndex < row.length(); columnIndex++) {
-            input.setBuffer((byte[]) row.get(columnIndex));
-            Object deserializedColumnObject = kryo.readClassAndObject(input);
-            deserializedColumnObjects.add(deserializedColumnObject);
+            deserializedColumnObjects.add(deserializeRowField(row, columnIndex, kryo, input));
         }
 
         return deserializedColumnObjects;
     }
 
+    /**
+     * Determines the type of the DataFrame column in which a FLWOR variable bound to single items is stored.
+     * Strings, integers, doubles and booleans are stored in native columns that Spark can compare, compress and
+     * shuffle without deserializing them. All other types, as well as unknown or heterogeneous ones, fall back
+     * to a binary column containing a Kryo-serialized list of items.
+     *
+     * @param itemType the statically known type of the items bound to the variable, or null if unknown
+     * @return the Spark SQL type of the column
+     */
+    public static DataType getColumnDataType(ItemTypes itemType) {
+        if (itemType == null) {
+            return DataTypes.BinaryType;
+        }
+        switch (itemType) {
+            case StringItem:
+                return DataTypes.StringType;
+            case IntegerItem:
+                return DataTypes.IntegerType;
+            case DoubleItem:
+                return DataTypes.DoubleType;
+            case BooleanItem:
+                return DataTypes.BooleanType;
+            default:
+                return DataTypes.BinaryType;
+        }
+    }
+
+    /**
+     * Converts a single item into the value stored in a column of the given type.
+     *
+     * @param item       the item to store
+     * @param columnType a type returned by getColumnDataType()
+     * @return the native value, or the serialized singleton list of the item for binary columns
+     */
+    public static Object serializeItemToColumnValue(Item item, DataType columnType, Kryo kryo, Output output) {
+        if (columnType.equals(DataTypes.BinaryType)) {
+            List<Item> itemList = new ArrayList<>(1);
+            itemList.add(item);
+            return serializeItemList(itemList, kryo, output);
+        }
+        if (columnType.equals(DataTypes.StringType) && item.isString()) {
+            return item.getStringValue();
+        }
+        if (columnType.equals(DataTypes.IntegerType) && item.isInteger()) {
+            return item.getIntegerValue();
+        }
+        if (columnType.equals(DataTypes.DoubleType) && item.isDouble()) {
+            return item.getDoubleValue();
+        }
+        if (columnType.equals(DataTypes.BooleanType) && item.isBoolean()) {
+            return item.getBooleanValue();
+        }
+        throw new SparksoniqRuntimeException("Item " + item.serialize() + " cannot be stored in a column of type "
+                + columnType.simpleString() + ".");
+    }
+
+    /**
+     * @param value a value read from a native (non-binary) column
+     * @return the corresponding atomic item
+     */
+    public static Item deserializeNativeValue(Object value) {
+        if (value instanceof String) {
+            return ItemFactory.getInstance().createStringItem((String) value);
+        }
+        if (value instanceof Integer) {
+            return ItemFactory.getInstance().createIntegerItem((Integer) value);
+        }
+        if (value instanceof Double) {
+            return ItemFactory.getInstance().createDoubleItem((Double) value);
+        }
+        if (value instanceof Boolean) {
+            return ItemFactory.getInstance().createBooleanItem((Boolean) value);
+        }
+        throw new SparksoniqRuntimeException("Unexpected column value found: " + value + ".");
+    }
+
+    /**
+     * Converts a row read from a structured data source, e.g., a struct column holding an object, into an object item.
+     * Null fields are omitted, as Spark does not distinguish between absent keys and null values.
+     *
+     * @param row a row with a schema
+     * @return the object item
+     */
+    public static Item convertRowToItem(Row row) {
+        StructType schema = row.schema();
+        if (schema == null) {
+            throw new SparksoniqRuntimeException("Rows without schema cannot be converted to objects.");
+        }
+        Map<String, List<Item>> keyValuePairs = new LinkedHashMap<>();
+        StructField[] fields = schema.fields();
+        for (int fieldIndex = 0; fieldIndex < fields.length; fieldIndex++) {
+            if (row.isNullAt(fieldIndex)) {
+                continue;
+            }
+            List<Item> value = new ArrayList<>(1);
+            value.add(convertValueToItem(row.get(fieldIndex), fields[fieldIndex].dataType()));
+            keyValuePairs.put(fields[fieldIndex].name(), value);
+        }
+        return ItemFactory.getInstance().createObjectItem(keyValuePairs);
+    }
+
+    private static Item convertValueToItem(Object value, DataType type) {
+        if (value == null) {
+            // nulls nested in arrays are actual null values
+            return ItemFactory.getInstance().createNullItem();
+        }
+        if (type instanceof StructType) {
+            return convertRowToItem((Row) value);
+        }
+        if (type instanceof ArrayType) {
+            DataType elementType = ((ArrayType) type).elementType();
+            List<Item> members = new ArrayList<>();
+            for (Object member : JavaConverters.seqAsJavaListConverter((Seq<?>) value).asJava()) {
+                members.add(convertValueToItem(member, elementType));
+            }
+            return ItemFactory.getInstance().createArrayItem(members);
+        }
+        if (value instanceof Long) {
+            long longValue = (Long) value;
+            if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) {
+                return ItemFactory.getInstance().createIntegerItem((int) longValue);
+            }
+            return ItemFactory.getInstance().createDecimalItem(BigDecimal.valueOf(longValue));
+        }
+        if (value instanceof Short || value instanceof Byte) {
+            return ItemFactory.getInstance().createIntegerItem(((Number) value).intValue());
+        }
+        if (value instanceof Float) {
+            return ItemFactory.getInstance().createDoubleItem((Float) value);
+        }
+        if (value instanceof BigDecimal) {
+            return ItemFactory.getInstance().createDecimalItem((BigDecimal) value);
+        }
+        return deserializeNativeValue(value);
+    }
+
     /**
      * Algorithm taken from following link and adapted to Java with minor improvements.
      * https://stackoverflow.com/a/48454000/10707488
@@ -315,14 +511,16 @@ public class DataFrameUtils {
      * @param df        - df to perform the operation on
      * @param offset    - starting offset for the first index
      * @param indexName - name of the index column
+     * @param statistics - statistics of the iterator computing the indices, or null if statistics are not enabled
      * @return returns Dataset<Row> with the added 'indexName' column containing indices
      */
-    public static Dataset<Row> zipWithIndex(Dataset<Row> df, Long offset, String indexName) {
+    public static Dataset<Row> zipWithIndex(Dataset<Row> df, Long offset, String indexName,
+                                            IteratorStatistics statistics) {
         Dataset<Row> dfWithPartitionId = df
                 .withColumn("partition_id", spark_partition_id())
                 .withColumn("inc_id", monotonically_increasing_id());
 
-        Object partitionOffsetsObject = dfWithPartitionId
+        Dataset<Row> partitionOffsetsDataFrame = dfWithPartitionId
                 .groupBy("partition_id")
                 .agg(count(lit(1)).alias("cnt"), first("inc_id").alias("inc_id"))
                 .orderBy("partition_id")
@@ -330,8 +528,9 @@ public class DataFrameUtils {
                         sum("cnt").over(Window.orderBy("partition_id"))
                                 .minus(col("cnt"))
                                 .minus(col("inc_id"))
-                                .plus(lit(offset).alias("cnt")))
-                .collect();
+                                .plus(lit(offset).alias("cnt")));
+        Object partitionOffsetsObject = IteratorStatistics.runSparkAction(statistics,
+                () -> partitionOffsetsDataFrame.collect());
         Row[] partitionOffsetsArray = ((Row[]) partitionOffsetsObject);
         Map<Integer, Long> partitionOffsets = new HashMap<>();
         for (int i = 0; i < partitionOffsetsArray.length; i++) {
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.spark;
+
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.rumbledb.api.Item;
+
+import sparksoniq.exceptions.SparksoniqRuntimeException;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Iterates over the items of an RDD one partition at a time, so that the first items are available as soon as the
+ * first partition is computed and the driver only holds a bounded number of partitions, whatever the size of the RDD.
+ *
+ * The partitions following the current one are computed in the background, at most prefetchedPartitions of them
+ * at the same time. Without prefetching, every partition is only computed once the previous one has been consumed,
+ * like with toLocalIterator(). Every prefetched partition is computed in a job group of its own, so that closing the
+ * iterator also cancels the Spark jobs of the partitions that are still being computed.
+ */
+public class PartitionPrefetchingIterator implements Iterator<Item> {
+
+    private static final AtomicInteger _nextId = new AtomicInteger();
+
+    private final JavaRDD<Item> _rdd;
+    private final String _jobGroupPrefix;
+    private final int _numberOfPartitions;
+    private final ExecutorService _executor;    // null if partitions are not prefetched
+    private final Deque<Future<List<Item>>> _prefetchedPartitions;
+    private int _nextPartition;
+    private Iterator<Item> _currentPartition;
+
+    /**
+     * @param rdd the RDD to iterate over
+     * @param prefetchedPartitions the number of partitions computed in the background, ahead of the current one
+     */
+    public PartitionPrefetchingIterator(JavaRDD<Item> rdd, int prefetchedPartitions) {
+        _rdd = rdd;
+        _jobGroupPrefix = "rumble-partition-prefetch-" + _nextId.incrementAndGet() + "-";
+        _numberOfPartitions = rdd.getNumPartitions();
+        _prefetchedPartitions = new ArrayDeque<>();
+        _nextPartition = 0;
+        _currentPartition = Collections.emptyIterator();
+        if (prefetchedPartitions <= 0) {
+            _executor = null;
+            return;
+        }
+        _executor = Executors.newFixedThreadPool(prefetchedPartitions, runnable -> {
+            Thread thread = new Thread(runnable, "rumble-partition-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < prefetchedPartitions; ++i) {
+            prefetchNextPartition();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!_currentPartition.hasNext()) {
+            List<Item> partition = fetchNextPartition();
+            if (partition == null) {
+                return false;
+            }
+            _currentPartition = partition.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public Item next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return _currentPartition.next();
+    }
+
+    /**
+     * Stops computing the partitions that were prefetched but not consumed yet, including their Spark jobs.
+     */
+    public void close() {
+        if (_executor != null) {
+            // the prefetched partitions are the last ones submitted
+            int partition = _nextPartition - _prefetchedPartitions.size();
+            JavaSparkContext sparkContext = JavaSparkContext.fromSparkContext(_rdd.context());
+            for (Future<List<Item>> prefetchedPartition : _prefetchedPartitions) {
+                prefetchedPartition.cancel(true);
+                sparkContext.cancelJobGroup(getJobGroup(partition++));
+            }
+            _executor.shutdownNow();
+        }
+        _prefetchedPartitions.clear();
+        _currentPartition = Collections.emptyIterator();
+    }
+
+    private void prefetchNextPartition() {
+        if (_nextPartition < _numberOfPartitions) {
+            int partition = _nextPartition++;
+            _prefetchedPartitions.add(_executor.submit(() -> prefetchPartition(partition)));
+        }
+        if (_nextPartition >= _numberOfPartitions) {
+            // the last partition was submitted, the threads terminate once the submitted ones are computed
+            _executor.shutdown();
+        }
+    }
+
+    private List<Item> prefetchPartition(int partition) {
+        JavaSparkContext sparkContext = JavaSparkContext.fromSparkContext(_rdd.context());
+        sparkContext.setJobGroup(getJobGroup(partition), "Prefetching partition " + partition, true);
+        try {
+            return collectPartition(partition);
+        } finally {
+            sparkContext.clearJobGroup();
+        }
+    }
+
+    private String getJobGroup(int partition) {
+        return _jobGroupPrefix + partition;
+    }
+
+    private List<Item> fetchNextPartition() {
+        if (_executor == null) {
+            if (_nextPartition >= _numberOfPartitions) {
+                return null;
+            }
+            return collectPartition(_nextPartition++);
+        }
+        Future<List<Item>> partition = _prefetchedPartitions.poll();
+        if (partition == null) {
+            return null;
+        }
+        // keeps the window full while the oldest prefetched partition is consumed
+        prefetchNextPartition();
+        try {
+            return partition.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SparksoniqRuntimeException("Interrupted while waiting for a partition of the results.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SparksoniqRuntimeException(e.getCause().getMessage());
+        }
+    }
+
+    private List<Item> collectPartition(int partition) {
+        return _rdd.collectPartitions(new int[]{partition})[0];
+    }
+}
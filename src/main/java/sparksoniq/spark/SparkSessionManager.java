@@ -47,6 +47,7 @@ public class SparkSessionManager {
 
     private static final String APP_NAME = "jsoniq-on-spark";
     public static int COLLECT_ITEM_LIMIT = 0;
+    public static double SCHEMA_SAMPLING_RATIO = 1.0;
     private static SparkSessionManager _instance;
     private static Level LOG_LEVEL = Level.FATAL;
     private SparkConf configuration;
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+package sparksoniq.spark.closures;
+
+import org.apache.spark.api.java.function.PairFunction;
+import org.rumbledb.api.Item;
+import scala.Tuple2;
+
+/**
+ * Keeps only the index of the input tuple in the key of a pair built by {@link ForClauseTuplePairingClosure}.
+ */
+public class ForClauseDropPositionClosure implements PairFunction<Tuple2<Tuple2<Integer, Long>, Item>, Integer, Item> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Tuple2<Integer, Item> call(Tuple2<Tuple2<Integer, Long>, Item> pair) {
+        return new Tuple2<>(pair._1()._1(), pair._2());
+    }
+}
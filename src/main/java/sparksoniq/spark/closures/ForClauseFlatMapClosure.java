@@ -57,6 +57,7 @@ public class ForClauseFlatMapClosure implements FlatMapFunction<Row, Row> {
 
     public ForClauseFlatMapClosure(
             RuntimeIterator expression,
+            DynamicContext context,
             StructType inputSchema,
             int duplicateVariableIndex) {
         _expression = expression;
@@ -64,7 +65,7 @@ public class ForClauseFlatMapClosure implements FlatMapFunction<Row, Row> {
         _duplicateColumnIndex = duplicateVariableIndex;
 
         _rowColumns = new ArrayList<>();
-        _context = new DynamicContext();
+        _context = new DynamicContext(context);
         _results = new ArrayList<>();
         _newColumn = new ArrayList<>();
 
@@ -21,13 +21,16 @@
 package sparksoniq.spark.closures;
 
 import org.apache.spark.api.java.function.Function;
+import org.apache.spark.broadcast.Broadcast;
 import org.apache.spark.sql.Row;
 import org.apache.spark.sql.RowFactory;
+import org.apache.spark.sql.types.DataType;
 import org.rumbledb.api.Item;
 
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Output;
 
+import scala.Tuple2;
 import sparksoniq.jsoniq.tuple.FlworTuple;
 import sparksoniq.spark.DataFrameUtils;
 
@@ -35,17 +38,19 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-public class ForClauseLocalToRowClosure implements Function<Item, Row> {
+public class ForClauseLocalToRowClosure implements Function<Tuple2<Integer, Item>, Row> {
 
 	private static final long serialVersionUID = 1L;
 
-	private final FlworTuple _inputTuple;
+	private final Broadcast<List<FlworTuple>> _inputTuples;
+	private final DataType _columnType;
 
     private transient Kryo _kryo;
     private transient Output _output;
 
-    public ForClauseLocalToRowClosure(FlworTuple inputTuple) {
-        this._inputTuple = inputTuple;
+    public ForClauseLocalToRowClosure(Broadcast<List<FlworTuple>> inputTuples, DataType columnType) {
+        this._inputTuples = inputTuples;
+        this._columnType = columnType;
         _kryo = new Kryo();
         _kryo.setReferences(false);
         DataFrameUtils.registerKryoClassesKryo(_kryo);
@@ -53,18 +58,17 @@ public class ForClauseLocalToRowClosure implements Function<Item, Row> {
     }
 
     @Override
-    public Row call(Item item) throws Exception {
+    public Row call(Tuple2<Integer, Item> tupleIndexAndItem) throws Exception {
+        FlworTuple inputTuple = _inputTuples.value().get(tupleIndexAndItem._1());
+        Item item = tupleIndexAndItem._2();
         List<List<Item>> rowColumns = new ArrayList<>();
-        _inputTuple.getKeys().forEach(key -> rowColumns.add(_inputTuple.getValue(key)));
+        inputTuple.getKeys().forEach(key -> rowColumns.add(inputTuple.getValue(key)));
 
-        List<Item> itemList = new ArrayList<>();
-        itemList.add(item);
-        rowColumns.add(itemList);
-
-        List<byte[]> serializedRowColumns = new ArrayList<>();
+        List<Object> serializedRowColumns = new ArrayList<>();
         for (List<Item> column : rowColumns) {
             serializedRowColumns.add(DataFrameUtils.serializeItemList(column, _kryo, _output));
         }
+        serializedRowColumns.add(DataFrameUtils.serializeItemToColumnValue(item, _columnType, _kryo, _output));
 
         return RowFactory.create(serializedRowColumns.toArray());
     }
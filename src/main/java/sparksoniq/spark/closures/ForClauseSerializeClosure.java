@@ -23,6 +23,7 @@ package sparksoniq.spark.closures;
 import org.apache.spark.api.java.function.Function;
 import org.apache.spark.sql.Row;
 import org.apache.spark.sql.RowFactory;
+import org.apache.spark.sql.types.DataType;
 import org.rumbledb.api.Item;
 
 import com.esotericsoftware.kryo.Kryo;
@@ -31,17 +32,17 @@ import com.esotericsoftware.kryo.io.Output;
 import sparksoniq.spark.DataFrameUtils;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 public class ForClauseSerializeClosure implements Function<Item, Row> {
 
 
 	private static final long serialVersionUID = 1L;
+	private final DataType _columnType;
 	private transient Kryo _kryo;
     private transient Output _output;
 
-    public ForClauseSerializeClosure() {
+    public ForClauseSerializeClosure(DataType columnType) {
+        _columnType = columnType;
         _kryo = new Kryo();
         _kryo.setReferences(false);
         DataFrameUtils.registerKryoClassesKryo(_kryo);
@@ -50,14 +51,12 @@ public class ForClauseSerializeClosure implements Function<Item, Row> {
 
     /**
      * @param item
-     * @return Row object, containing byte array of a singleton list containing the given item
+     * @return Row object, containing the native value of the given item, or the byte array of a singleton list
+     * containing it if the column is binary
      */
     @Override
     public Row call(Item item) throws Exception {
-        List<Item> itemList = new ArrayList<>();
-        itemList.add(item);
-
-        return RowFactory.create(DataFrameUtils.serializeItemList(itemList, _kryo, _output));
+        return RowFactory.create(DataFrameUtils.serializeItemToColumnValue(item, _columnType, _kryo, _output));
     }
     
     private void readObject(java.io.ObjectInputStream in)
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.spark.closures;
+
+import org.apache.spark.api.java.function.PairFunction;
+import org.rumbledb.api.Item;
+import scala.Tuple2;
+
+/**
+ * Pairs the items of the expression of a for clause with the index of the local input tuple they are bound with.
+ */
+public class ForClauseTupleIndexClosure implements PairFunction<Item, Integer, Item> {
+
+    private static final long serialVersionUID = 1L;
+    private final int _tupleIndex;
+
+    public ForClauseTupleIndexClosure(int tupleIndex) {
+        this._tupleIndex = tupleIndex;
+    }
+
+    @Override
+    public Tuple2<Integer, Item> call(Item item) {
+        return new Tuple2<>(_tupleIndex, item);
+    }
+}
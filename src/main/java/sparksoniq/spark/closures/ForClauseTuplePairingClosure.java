@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+package sparksoniq.spark.closures;
+
+import org.apache.spark.api.java.function.Function2;
+import org.rumbledb.api.Item;
+import scala.Tuple2;
+
+import java.util.Iterator;
+
+/**
+ * Pairs each item of the expression of a for clause with every local input tuple, in a single pass over a partition.
+ * Each pair is keyed by the index of the tuple and by the position of the item in the expression, which combines
+ * the partition index (upper bits) with the position within the partition (lower bits).
+ */
+public class ForClauseTuplePairingClosure
+        implements Function2<Integer, Iterator<Item>, Iterator<Tuple2<Tuple2<Integer, Long>, Item>>> {
+
+    private static final long serialVersionUID = 1L;
+    private static final int PARTITION_INDEX_SHIFT = 40;
+    private final int _tupleCount;
+
+    public ForClauseTuplePairingClosure(int tupleCount) {
+        this._tupleCount = tupleCount;
+    }
+
+    @Override
+    public Iterator<Tuple2<Tuple2<Integer, Long>, Item>> call(Integer partitionIndex, Iterator<Item> items) {
+        long firstPosition = ((long) partitionIndex) << PARTITION_INDEX_SHIFT;
+        return new Iterator<Tuple2<Tuple2<Integer, Long>, Item>>() {
+            private Item _currentItem;
+            private long _currentPosition = firstPosition - 1;
+            private int _tupleIndex = _tupleCount;
+
+            @Override
+            public boolean hasNext() {
+                return _tupleIndex < _tupleCount || items.hasNext();
+            }
+
+            @Override
+            public Tuple2<Tuple2<Integer, Long>, Item> next() {
+                if (_tupleIndex == _tupleCount) {
+                    _currentItem = items.next();
+                    _currentPosition++;
+                    _tupleIndex = 0;
+                }
+                return new Tuple2<>(new Tuple2<>(_tupleIndex++, _currentPosition), _currentItem);
+            }
+        };
+    }
+}
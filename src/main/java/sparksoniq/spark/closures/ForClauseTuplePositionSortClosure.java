@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+package sparksoniq.spark.closures;
+
+import scala.Tuple2;
+
+import java.io.Serializable;
+import java.util.Comparator;
+
+/**
+ * Orders the pairs of a for clause like the tuple stream: by input tuple, then by position in the expression.
+ */
+public class ForClauseTuplePositionSortClosure implements Comparator<Tuple2<Integer, Long>>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public int compare(Tuple2<Integer, Long> key1, Tuple2<Integer, Long> key2) {
+        int result = Integer.compare(key1._1(), key2._1());
+        if (result != 0) {
+            return result;
+        }
+        return Long.compare(key1._2(), key2._2());
+    }
+}
@@ -55,6 +55,7 @@ public class LetClauseMapClosure implements MapFunction<Row, Row> {
 
     public LetClauseMapClosure(
             RuntimeIterator expression,
+            DynamicContext context,
             StructType oldSchema,
             int duplicateColumnIndex) {
         this._expression = expression;
@@ -62,7 +63,7 @@ public class LetClauseMapClosure implements MapFunction<Row, Row> {
         this._duplicateColumnIndex = duplicateColumnIndex;
 
         _rowColumns = new ArrayList<>();
-        _context = new DynamicContext();
+        _context = new DynamicContext(context);
         _newColumn = new ArrayList<>();
 
         _kryo = new Kryo();
@@ -21,25 +21,30 @@
 package sparksoniq.spark.closures;
 
 import org.apache.spark.api.java.function.Function;
+import org.apache.spark.broadcast.Broadcast;
 import org.rumbledb.api.Item;
 
+import scala.Tuple2;
 import sparksoniq.jsoniq.tuple.FlworTuple;
 
-public class OLD_ForClauseLocalToRDDClosure implements Function<Item, FlworTuple> {
+import java.util.List;
+
+public class OLD_ForClauseLocalToRDDClosure implements Function<Tuple2<Integer, Item>, FlworTuple> {
 
 	private static final long serialVersionUID = 1L;
 	private final String _variableName;
-    private final FlworTuple _inputTuple;
+    private final Broadcast<List<FlworTuple>> _inputTuples;
 
 
-    public OLD_ForClauseLocalToRDDClosure(String variableName, FlworTuple inputTuple) {
+    public OLD_ForClauseLocalToRDDClosure(String variableName, Broadcast<List<FlworTuple>> inputTuples) {
         this._variableName = variableName;
-        this._inputTuple = inputTuple;
+        this._inputTuples = inputTuples;
     }
 
     @Override
-    public FlworTuple call(Item item) throws Exception {
-        FlworTuple result = new FlworTuple(_inputTuple);
+    public FlworTuple call(Tuple2<Integer, Item> tupleIndexAndItem) throws Exception {
+        Item item = tupleIndexAndItem._2();
+        FlworTuple result = new FlworTuple(_inputTuples.value().get(tupleIndexAndItem._1()));
         result.putValue(_variableName, item, true);
         return result;
 
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.spark.closures;
+
+import org.apache.spark.api.java.function.Function2;
+import org.rumbledb.api.Item;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Keeps the items of a partition that are within a range of positions of the whole sequence.
+ */
+public class PartitionRangeClosure implements Function2<Integer, Iterator<Item>, Iterator<Item>> {
+
+	private static final long serialVersionUID = 1L;
+	private long[] _partitionStarts;
+    private long _start;
+    private long _end;
+
+    /**
+     * @param partitionStarts the position of the first item of every partition in the whole sequence
+     * @param start the first position of the range, starting at 1
+     * @param end the last position of the range
+     */
+    public PartitionRangeClosure(long[] partitionStarts, long start, long end) {
+        _partitionStarts = partitionStarts;
+        _start = start;
+        _end = end;
+    }
+
+    @Override
+    public Iterator<Item> call(Integer partition, Iterator<Item> items) throws Exception {
+        List<Item> result = new ArrayList<>();
+        long position = _partitionStarts[partition];
+        while (position <= _end && items.hasNext()) {
+            Item item = items.next();
+            if (position >= _start) {
+                result.add(item);
+            }
+            ++position;
+        }
+        return result.iterator();
+    }
+}
@@ -43,13 +43,15 @@ public class ReturnFlatMapClosure implements FlatMapFunction<Row, Item> {
 
 	private static final long serialVersionUID = 1L;
 	RuntimeIterator _expression;
+    DynamicContext _parentContext;
     StructType _oldSchema;
     
     private transient Kryo _kryo;
     private transient Input _input;
 
-    public ReturnFlatMapClosure(RuntimeIterator expression, StructType oldSchema) {
+    public ReturnFlatMapClosure(RuntimeIterator expression, DynamicContext parentContext, StructType oldSchema) {
         this._expression = expression;
+        this._parentContext = parentContext;
         this._oldSchema = oldSchema;
 
         _kryo = new Kryo();
@@ -64,13 +66,15 @@ public class ReturnFlatMapClosure implements FlatMapFunction<Row, Item> {
         Map<String, DynamicContext.VariableDependency> dependencies = _expression.getVariableDependencies();
 
         // Create dynamic context with deserialized data but only with dependencies
-        DynamicContext context = new DynamicContext();
+        DynamicContext context = new DynamicContext(_parentContext);
         for (int columnIndex = 0; columnIndex < columnNames.length; columnIndex++) {
             String field = columnNames[columnIndex];
             if(dependencies.containsKey(field))
             {
                 List<Item> i = DataFrameUtils.deserializeRowField(row, columnIndex, _kryo, _input); //rowColumns.get(columnIndex);
-                if(dependencies.get(field).equals(DynamicContext.VariableDependency.COUNT))
+                // only the columns aggregated by a group by clause contain the count instead of the items
+                if(dependencies.get(field).equals(DynamicContext.VariableDependency.COUNT)
+                        && row.get(columnIndex) instanceof Long)
                 {
                 	context.addVariableCount(field, i.get(0));
                 } else {
@@ -47,12 +47,12 @@ public class WhereClauseMapClosure implements FilterFunction<Row> {
     private transient Kryo _kryo;
     private transient Input _input;
 
-    public WhereClauseMapClosure(RuntimeIterator expression, StructType inputSchema) {
+    public WhereClauseMapClosure(RuntimeIterator expression, DynamicContext context, StructType inputSchema) {
         this._expression = expression;
         this._inputSchema = inputSchema;
 
         _rowColumns = new ArrayList<>();
-        _context = new DynamicContext();
+        _context = new DynamicContext(context);
         
         _kryo = new Kryo();
         _kryo.setReferences(false);
@@ -23,7 +23,6 @@ package sparksoniq.spark.iterator.flowr;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
-import org.apache.spark.sql.types.DataTypes;
 import org.apache.spark.sql.types.StructType;
 import org.rumbledb.api.Item;
 
@@ -39,7 +38,6 @@ import sparksoniq.jsoniq.tuple.FlworTuple;
 import sparksoniq.semantics.DynamicContext;
 import sparksoniq.spark.DataFrameUtils;
 import sparksoniq.spark.closures.CountClauseClosure;
-import sparksoniq.spark.udf.CountClauseSerializeUDF;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -98,6 +96,8 @@ public class CountClauseSparkIterator extends SparkRuntimeTupleIterator {
         if (_hasNext == true) {
             FlworTuple result = _nextLocalTupleResult;      // save the result to be returned
             setNextLocalTupleResult();              // calculate and store the next result
+            if (_statistics != null)
+                _statistics.recordItem();
             return result;
         }
         throw new IteratorFlowException("Invalid next() call in count flwor clause", getMetadata());
@@ -142,17 +142,16 @@ public class CountClauseSparkIterator extends SparkRuntimeTupleIterator {
 
         String selectSQL = DataFrameUtils.getSQL(allColumns, true);
 
-        Dataset<Row> dfWithIndex = DataFrameUtils.zipWithIndex(df, new Long(1), _variableName);
+        Dataset<Row> dfWithIndex = DataFrameUtils.zipWithIndex(df, new Long(1), _variableName, _statistics);
 
-        df.sparkSession().udf().register("serializeCountIndex",
-                new CountClauseSerializeUDF(), DataTypes.BinaryType);
-
-        dfWithIndex.createOrReplaceTempView("input");
-        dfWithIndex = dfWithIndex.sparkSession().sql(
-                String.format("select %s serializeCountIndex(`%s`) as `%s` from input",
-                        selectSQL, _variableName, _variableName)
-        );
-        return dfWithIndex;
+        // the count variable always contains a single integer, so it is stored in a native column
+        synchronized (DataFrameUtils.SQL_REGISTRATION_LOCK) {
+            dfWithIndex.createOrReplaceTempView("input");
+            return dfWithIndex.sparkSession().sql(
+                    String.format("select %s cast(`%s` as int) as `%s` from input",
+                            selectSQL, _variableName, _variableName)
+            );
+        }
     }
 
     public Map<String, DynamicContext.VariableDependency> getVariableDependencies()
@@ -162,6 +161,16 @@ public class CountClauseSparkIterator extends SparkRuntimeTupleIterator {
         return result;
     }
 
+    public Set<String> getLookedUpKeys(String variableName)
+    {
+        return new HashSet<String>();
+    }
+
+    public Set<List<String>> getAggregatedLookupKeys(String variableName)
+    {
+        return new HashSet<List<String>>();
+    }
+
     public Set<String> getVariablesBoundInCurrentFLWORExpression()
     {
         Set<String> result = new HashSet<String>();
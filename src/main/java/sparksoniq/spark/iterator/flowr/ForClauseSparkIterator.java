@@ -20,15 +20,23 @@
 
 package sparksoniq.spark.iterator.flowr;
 
+import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.broadcast.Broadcast;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
+import org.apache.spark.sql.types.DataType;
 import org.apache.spark.sql.types.DataTypes;
 import org.apache.spark.sql.types.StructField;
 import org.apache.spark.sql.types.StructType;
 import org.rumbledb.api.Item;
 
+import scala.Tuple2;
+
 import sparksoniq.exceptions.IteratorFlowException;
+import sparksoniq.exceptions.UnexpectedTypeException;
+import sparksoniq.jsoniq.runtime.iterator.IteratorStatistics;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.jsoniq.runtime.iterator.primary.VariableReferenceIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
@@ -40,19 +48,28 @@ import sparksoniq.spark.DataFrameUtils;
 import sparksoniq.spark.SparkSessionManager;
 import sparksoniq.spark.closures.ForClauseClosure;
 import sparksoniq.spark.closures.ForClauseLocalToRowClosure;
+import sparksoniq.spark.closures.ForClauseDropPositionClosure;
 import sparksoniq.spark.closures.ForClauseSerializeClosure;
+import sparksoniq.spark.closures.ForClauseTupleIndexClosure;
+import sparksoniq.spark.closures.ForClauseTuplePairingClosure;
+import sparksoniq.spark.closures.ForClauseTuplePositionSortClosure;
 import sparksoniq.spark.closures.InitialForClauseClosure;
 import sparksoniq.spark.closures.OLD_ForClauseLocalToRDDClosure;
+import sparksoniq.spark.iterator.function.ParseJsonFunctionIterator;
 import sparksoniq.spark.udf.ForClauseUDF;
+import sparksoniq.spark.udf.JoinKeyUDF;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 
+import static org.apache.spark.sql.functions.monotonically_increasing_id;
+
 public class ForClauseSparkIterator extends SparkRuntimeTupleIterator {
 
 
@@ -63,6 +80,8 @@ public class ForClauseSparkIterator extends SparkRuntimeTupleIterator {
     private DynamicContext _tupleContext;   // re-use same DynamicContext object for efficiency
     private FlworTuple _nextLocalTupleResult;
     private FlworTuple _inputTuple;     // tuple received from child, used for tuple creation
+    private Set<String> _lookedUpKeys;  // keys needed from structured inputs, null if all are needed
+    private boolean _isTupleOrderObservable = true;
 
     public ForClauseSparkIterator(RuntimeTupleIterator child, VariableReferenceIterator variableReference,
                                   RuntimeIterator assignmentExpression, IteratorMetadata iteratorMetadata) {
@@ -111,6 +130,8 @@ public class ForClauseSparkIterator extends SparkRuntimeTupleIterator {
             } else {
                 setNextLocalTupleResult();
             }
+            if (_statistics != null)
+                _statistics.recordItem();
             return result;
         }
         throw new IteratorFlowException("Invalid next() call in let flwor clause", getMetadata());
@@ -189,18 +210,13 @@ public class ForClauseSparkIterator extends SparkRuntimeTupleIterator {
 
             } else {    // if child is locally evaluated
                 // _expression is definitely an RDD if execution flows here
-
-                _child.open(_currentDynamicContext);
-                _tupleContext = new DynamicContext(_currentDynamicContext);     // assign current context as parent
-                while (_child.hasNext()) {
-                    _inputTuple = _child.next();
-                    _tupleContext.removeAllVariables();             // clear the previous variables
-                    _tupleContext.setBindingsFromTuple(_inputTuple);      // assign new variables from new tuple
-
-                    JavaRDD<Item> expressionRDD = _expression.getRDD(_tupleContext);
-                    this._rdd = this._rdd.union(expressionRDD.map(new OLD_ForClauseLocalToRDDClosure(_variableName, _inputTuple)));
+                List<FlworTuple> inputTuples = getLocalInputTuples();
+                if (!inputTuples.isEmpty()) {
+                    Broadcast<List<FlworTuple>> broadcastTuples =
+                            SparkSessionManager.getInstance().getJavaSparkContext().broadcast(inputTuples);
+                    this._rdd = getExpressionItems(context, inputTuples)
+                            .map(new OLD_ForClauseLocalToRDDClosure(_variableName, broadcastTuples));
                 }
-                _child.close();
             }
         }
         return _rdd;
@@ -211,19 +227,12 @@ public class ForClauseSparkIterator extends SparkRuntimeTupleIterator {
     {
         // if it's a starting clause
         if (this._child == null) {
-            // create initial RDD from expression
-            JavaRDD<Item> initialRdd = _expression.getRDD(context);
-
-            // define a schema
-            List<StructField> fields = new ArrayList<>();
-            StructField field = DataTypes.createStructField(_variableName, DataTypes.BinaryType, true);
-            fields.add(field);
-            StructType schema = DataTypes.createStructType(fields);
-
-            JavaRDD<Row> rowRDD = initialRdd.map(new ForClauseSerializeClosure());
+            return getInitialDataFrame(context);
+        }
 
-            // apply the schema to row RDD
-            return SparkSessionManager.getInstance().getOrCreateSession().createDataFrame(rowRDD, schema);
+        if (isJoinable()) {
+            // the expression is evaluated only once, and its items are paired with every incoming tuple
+            return getJoinedDataFrame(context, parentProjection, null, null, false, getMetadata());
         }
 
         if (_child.isDataFrame()) {
@@ -236,54 +245,335 @@ public class ForClauseSparkIterator extends SparkRuntimeTupleIterator {
             List<String> allColumns = DataFrameUtils.getColumnNames(inputSchema, duplicateVariableIndex, null);
             List<String> UDFcolumns = DataFrameUtils.getColumnNames(inputSchema, -1, _dependencies);
 
-            df.sparkSession().udf().register("forClauseUDF",
-                    new ForClauseUDF(_expression, UDFcolumns), DataTypes.createArrayType(DataTypes.BinaryType));
-
+            DataType columnType = getVariableColumnType();
             String selectSQL = DataFrameUtils.getSQL(allColumns, true);
             String udfSQL = DataFrameUtils.getSQL(UDFcolumns, false);
 
-            df.createOrReplaceTempView("input");
-            df = df.sparkSession().sql(
-                    String.format("select %s explode(forClauseUDF(array(%s))) as `%s` from input",
-                            selectSQL, udfSQL, _variableName)
-            );
-            return df;
+            synchronized (DataFrameUtils.SQL_REGISTRATION_LOCK) {
+                df.sparkSession().udf().register("forClauseUDF",
+                        new ForClauseUDF(_expression, context, UDFcolumns, columnType),
+                        DataTypes.createArrayType(columnType));
+
+                df.createOrReplaceTempView("input");
+                return df.sparkSession().sql(
+                        String.format("select %s explode(forClauseUDF(struct(%s))) as `%s` from input",
+                                selectSQL, udfSQL, _variableName)
+                );
+            }
         }
 
         // if child is locally evaluated
         // _expression is definitely an RDD if execution flows here
-        Dataset<Row> df = null;
+        List<FlworTuple> inputTuples = getLocalInputTuples();
+
+        DataType columnType = getVariableColumnType();
+        List<StructField> fields = new ArrayList<>();
+        Collection<String> oldColumnNames = inputTuples.isEmpty()
+                ? _child.getVariablesBoundInCurrentFLWORExpression()
+                : inputTuples.get(0).getKeys();
+        for (String columnName : oldColumnNames) {
+            StructField field = DataTypes.createStructField(columnName, DataTypes.BinaryType, true);
+            fields.add(field);
+        }
+        fields.add(DataTypes.createStructField(_variableName, columnType, true));
+        StructType schema = DataTypes.createStructType(fields);
+
+        JavaSparkContext sparkContext = SparkSessionManager.getInstance().getJavaSparkContext();
+        JavaRDD<Row> rowRDD = sparkContext.emptyRDD();
+        if (!inputTuples.isEmpty()) {
+            Broadcast<List<FlworTuple>> broadcastTuples = sparkContext.broadcast(inputTuples);
+            rowRDD = getExpressionItems(context, inputTuples)
+                    .map(new ForClauseLocalToRowClosure(broadcastTuples, columnType));
+        }
+        return SparkSessionManager.getInstance().getOrCreateSession().createDataFrame(rowRDD, schema);
+    }
+
+    /**
+     * Materializes the tuples of a locally evaluated child clause, which are few by nature.
+     */
+    private List<FlworTuple> getLocalInputTuples() {
+        List<FlworTuple> inputTuples = new ArrayList<>();
         _child.open(_currentDynamicContext);
-        _tupleContext = new DynamicContext(_currentDynamicContext);     // assign current context as parent
         while (_child.hasNext()) {
-            _inputTuple = _child.next();
-            _tupleContext.removeAllVariables();                         // clear the previous variables
-            _tupleContext.setBindingsFromTuple(_inputTuple);            // assign new variables from new tuple
-
-            JavaRDD<Item> expressionRDD = _expression.getRDD(_tupleContext);
-
-            // TODO - Optimization: Iterate schema creation only once
-            Set<String> oldColumnNames = _inputTuple.getKeys();
-            List<String> newColumnNames = new ArrayList<>();
-            oldColumnNames.forEach(fieldName -> newColumnNames.add(fieldName));
-            newColumnNames.add(_variableName);
-            List<StructField> fields = new ArrayList<>();
-            for (String columnName : newColumnNames) {
-                StructField field = DataTypes.createStructField(columnName, DataTypes.BinaryType, true);
-                fields.add(field);
+            inputTuples.add(_child.next());
+        }
+        _child.close();
+        return inputTuples;
+    }
+
+    /**
+     * Returns the items of the expression for each input tuple, paired with the index of the tuple, in the order
+     * of the tuple stream (tuple by tuple, and the items of a tuple in the order of the expression) if this order
+     * is observable.
+     *
+     * If the expression does not depend on the variables of the input tuples, it is evaluated only once, and a
+     * single pass over its partitions pairs each item with every tuple, which are few by nature. The pairs are
+     * only sorted back into the order of the tuple stream if a later clause or the return clause can observe it.
+     *
+     * Otherwise, the expression is evaluated on the driver for each tuple, as an RDD cannot be created within a
+     * Spark transformation, e.g., a flatMap over the tuples. Each tuple gets its own dynamic context, as the
+     * closures of the resulting RDDs may keep a reference to it until the union is computed.
+     */
+    private JavaPairRDD<Integer, Item> getExpressionItems(DynamicContext context, List<FlworTuple> inputTuples) {
+        if (!dependsOnChildVariables()) {
+            JavaRDD<Item> expressionRDD = _expression.getRDD(context);
+            if (inputTuples.size() == 1) {
+                return expressionRDD.mapToPair(new ForClauseTupleIndexClosure(0));
             }
-            StructType schema = DataTypes.createStructType(fields);
+            JavaPairRDD<Tuple2<Integer, Long>, Item> pairs = JavaPairRDD.fromJavaRDD(
+                    expressionRDD.mapPartitionsWithIndex(new ForClauseTuplePairingClosure(inputTuples.size()), true)
+            );
+            if (_isTupleOrderObservable) {
+                pairs = pairs.sortByKey(
+                        new ForClauseTuplePositionSortClosure(),
+                        true,
+                        expressionRDD.getNumPartitions()
+                );
+            }
+            return pairs.mapToPair(new ForClauseDropPositionClosure());
+        }
+        JavaSparkContext sparkContext = SparkSessionManager.getInstance().getJavaSparkContext();
+        List<JavaPairRDD<Integer, Item>> expressionItems = new ArrayList<>();
+        for (int tupleIndex = 0; tupleIndex < inputTuples.size(); tupleIndex++) {
+            DynamicContext tupleContext = new DynamicContext(context);
+            tupleContext.setBindingsFromTuple(inputTuples.get(tupleIndex));
+            expressionItems.add(_expression.getRDD(tupleContext)
+                    .mapToPair(new ForClauseTupleIndexClosure(tupleIndex)));
+        }
+        // a single union keeps the lineage flat, whatever the number of input tuples
+        return sparkContext.union(expressionItems.get(0), expressionItems.subList(1, expressionItems.size()));
+    }
 
-            JavaRDD<Row> rowRDD = expressionRDD.map(new ForClauseLocalToRowClosure(_inputTuple));
+    private boolean dependsOnChildVariables() {
+        for (String variableName : _child.getVariablesBoundInCurrentFLWORExpression()) {
+            if (_dependencies.containsKey(variableName)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-            if (df == null) {
-                df = SparkSessionManager.getInstance().getOrCreateSession().createDataFrame(rowRDD, schema);
-            } else {
-                df = df.union(SparkSessionManager.getInstance().getOrCreateSession().createDataFrame(rowRDD, schema));
+    /**
+     * Evaluates the expression of a for clause, or of a for clause whose expression does not depend on
+     * the incoming tuples, into a DataFrame with a single column holding the variable.
+     */
+    private Dataset<Row> getInitialDataFrame(DynamicContext context) {
+        // keep structured inputs columnar: bind the variable to a struct column with one field per key
+        if (_expression.isDataFrame()) {
+            Dataset<Row> df = _expression.getDataFrame(context);
+            String fieldsSQL = "*";
+            if (_lookedUpKeys != null) {
+                // project away the keys that are never looked up, so that they are not even read
+                List<String> fieldNames = new ArrayList<>();
+                for (String fieldName : df.schema().fieldNames()) {
+                    if (_lookedUpKeys.contains(fieldName)) {
+                        fieldNames.add(fieldName);
+                    }
+                }
+                // an empty struct is not supported, so all keys are kept if none is looked up
+                if (!fieldNames.isEmpty()) {
+                    fieldsSQL = DataFrameUtils.getSQL(fieldNames, false);
+                }
+            }
+            synchronized (DataFrameUtils.SQL_REGISTRATION_LOCK) {
+                df.createOrReplaceTempView("input");
+                return df.sparkSession().sql(
+                        String.format("select struct(%s) as `%s` from input", fieldsSQL, _variableName)
+                );
             }
         }
-        _child.close();
-        return df;
+
+        // only parse the keys that are looked up from JSON Lines files
+        if (_expression instanceof ParseJsonFunctionIterator) {
+            ((ParseJsonFunctionIterator) _expression).setLookedUpKeys(_lookedUpKeys);
+        }
+
+        // create initial RDD from expression
+        JavaRDD<Item> initialRdd = _expression.getRDD(context);
+
+        // define a schema, with a native column if the type of the items is known
+        DataType columnType = getVariableColumnType();
+        List<StructField> fields = new ArrayList<>();
+        StructField field = DataTypes.createStructField(_variableName, columnType, true);
+        fields.add(field);
+        StructType schema = DataTypes.createStructType(fields);
+
+        JavaRDD<Row> rowRDD = initialRdd.map(new ForClauseSerializeClosure(columnType));
+
+        // apply the schema to row RDD
+        return SparkSessionManager.getInstance().getOrCreateSession().createDataFrame(rowRDD, schema);
+    }
+
+    /**
+     * A for clause over a distributed expression that does not depend on the variables bound by the previous
+     * clauses can be evaluated as a join between the incoming tuples and the items of the expression,
+     * instead of evaluating the expression again for every incoming tuple.
+     *
+     * @return true if getJoinedDataFrame() can be used
+     */
+    public boolean isJoinable() {
+        return _child != null && _child.isDataFrame() && _expression.isRDD() && !dependsOnChildVariables();
+    }
+
+    /**
+     * Joins the incoming tuples with the items of the expression, on the equality of two key expressions.
+     * Spark picks a broadcast, hash or sort-merge join depending on the sizes of both sides. Unless the subsequent
+     * clauses reorder them anyway, the joined tuples are sorted back in the order of the nested loop: by incoming
+     * tuple first, then by item of the expression.
+     *
+     * @param context             the dynamic context
+     * @param parentProjection    the variables needed by the parent clause
+     * @param childKeyExpression  the key of the incoming tuples, depending only on the variables of the previous clauses,
+     *                            or null for a cross join
+     * @param keyExpression       the key of the items, depending only on the variable bound by this clause
+     * @param isGeneralComparison true if a tuple and an item are paired as soon as any of their keys are equal,
+     *                            false if the key expressions must return at most one item
+     * @param comparisonMetadata  the metadata of the equality, with which type errors are reported
+     * @return the DataFrame with the columns of the incoming tuples and the column of this variable
+     */
+    public Dataset<Row> getJoinedDataFrame(
+            DynamicContext context,
+            Map<String, DynamicContext.VariableDependency> parentProjection,
+            RuntimeIterator childKeyExpression,
+            RuntimeIterator keyExpression,
+            boolean isGeneralComparison,
+            IteratorMetadata comparisonMetadata) {
+        Dataset<Row> childDF = _child.getDataFrame(context, getProjection(parentProjection));
+        if (Arrays.asList(childDF.schema().fieldNames()).contains(_variableName)) {
+            // the variable is rebound by this clause
+            childDF = childDF.drop(_variableName);
+        }
+        Dataset<Row> expressionDF = getInitialDataFrame(context);
+
+        // the ids identify the rows once the keys are exploded, and restore the nested loop order after the join.
+        // They only depend on the partition and position of the rows, so they are the same if the uncached inputs
+        // are evaluated again, and they are assigned in a projection below the explode, since in the same select
+        // they would be computed for every exploded row.
+        childDF = childDF.withColumn("childJoinId", monotonically_increasing_id());
+        expressionDF = expressionDF.withColumn("joinId", monotonically_increasing_id());
+
+        Dataset<Row> df;
+        if (childKeyExpression == null) {
+            df = childDF.crossJoin(expressionDF);
+        } else {
+            String keyType = getJoinKeyType(childDF, expressionDF, childKeyExpression, keyExpression, context,
+                    isGeneralComparison, comparisonMetadata);
+            childDF = addJoinKeyColumn(childDF, childKeyExpression, context, "childJoinKey", isGeneralComparison,
+                    keyType, false, comparisonMetadata);
+            expressionDF = addJoinKeyColumn(expressionDF, keyExpression, context, "joinKey", isGeneralComparison,
+                    keyType, false, comparisonMetadata);
+            df = childDF.join(expressionDF, childDF.col("childJoinKey").equalTo(expressionDF.col("joinKey")));
+            if (isGeneralComparison) {
+                // a tuple and an item may have several keys in common, but must only be paired once
+                df = df.dropDuplicates("childJoinId", "joinId");
+            }
+            df = df.drop("childJoinKey", "joinKey");
+        }
+        if (_isTupleOrderObservable) {
+            df = df.orderBy("childJoinId", "joinId");
+        }
+        return df.drop("childJoinId", "joinId");
+    }
+
+    private Dataset<Row> addJoinKeyColumn(
+            Dataset<Row> df,
+            RuntimeIterator keyExpression,
+            DynamicContext context,
+            String keyColumnName,
+            boolean isGeneralComparison,
+            String keyType,
+            boolean isTypeProbe,
+            IteratorMetadata comparisonMetadata) {
+        List<String> allColumns = DataFrameUtils.getColumnNames(df.schema());
+        List<String> UDFcolumns = DataFrameUtils.getColumnNames(df.schema(), -1, keyExpression.getVariableDependencies());
+
+        String udfName = keyColumnName + "UDF";
+        String selectSQL = DataFrameUtils.getSQL(allColumns, true);
+        String udfSQL = DataFrameUtils.getSQL(UDFcolumns, false);
+
+        synchronized (DataFrameUtils.SQL_REGISTRATION_LOCK) {
+            df.sparkSession().udf().register(udfName,
+                    new JoinKeyUDF(keyExpression, context, UDFcolumns, !isGeneralComparison, keyType, isTypeProbe,
+                            comparisonMetadata),
+                    DataTypes.createArrayType(DataTypes.StringType));
+
+            df.createOrReplaceTempView("input");
+            return df.sparkSession().sql(
+                    String.format("select %s explode(%s(struct(%s))) as `%s` from input",
+                            selectSQL, udfName, udfSQL, keyColumnName)
+            );
+        }
+    }
+
+    /**
+     * The nested loop compares every key of the incoming tuples with every key of the items, and fails as soon as
+     * two of them cannot be compared, while the join only pairs equal keys. The type of the first key of both sides
+     * is looked up beforehand, which usually only evaluates their first partition. If both sides have keys, the key
+     * UDFs of the join then raise XPTY0004 for the keys of any other type, while Spark evaluates the join.
+     *
+     * @return the type of the keys of both sides, or null if one of the sides has no key other than null
+     */
+    private String getJoinKeyType(
+            Dataset<Row> childDF,
+            Dataset<Row> expressionDF,
+            RuntimeIterator childKeyExpression,
+            RuntimeIterator keyExpression,
+            DynamicContext context,
+            boolean isGeneralComparison,
+            IteratorMetadata comparisonMetadata) {
+        String childKeyType = getFirstJoinKeyType(addJoinKeyColumn(childDF, childKeyExpression, context,
+                "childJoinKey", isGeneralComparison, null, true, comparisonMetadata), "childJoinKey");
+        if (childKeyType == null) {
+            return null;
+        }
+        String keyType = getFirstJoinKeyType(addJoinKeyColumn(expressionDF, keyExpression, context,
+                "joinKey", isGeneralComparison, null, true, comparisonMetadata), "joinKey");
+        if (keyType != null && !keyType.equals(childKeyType)) {
+            throw new UnexpectedTypeException("Invalid args. Join keys of types " + childKeyType + " and "
+                    + keyType + " can't be compared", comparisonMetadata);
+        }
+        return keyType;
+    }
+
+    private String getFirstJoinKeyType(Dataset<Row> keyedDF, String keyColumnName) {
+        Dataset<Row> keysDF = keyedDF
+                .where(keyedDF.col(keyColumnName).notEqual(JoinKeyUDF.NULL_KEY))
+                .select(keyedDF.col(keyColumnName));
+        List<Row> rows = IteratorStatistics.runSparkAction(_statistics, () -> keysDF.takeAsList(1));
+        return rows.isEmpty() ? null : JoinKeyUDF.getKeyType(rows.get(0).getString(0));
+    }
+
+    public String getVariableName() {
+        return _variableName;
+    }
+
+    /**
+     * Lets a for clause evaluated as a join know whether the order of its tuples can be observed, i.e., unless a
+     * subsequent order by or group by clause reorders them before any count clause numbers them.
+     *
+     * @param isTupleOrderObservable false if the joined tuples do not need to be sorted back in the nested loop order
+     */
+    public void setTupleOrderObservable(boolean isTupleOrderObservable) {
+        _isTupleOrderObservable = isTupleOrderObservable;
+    }
+
+    /**
+     * Restricts the keys read from the objects of a structured input to those looked up by the subsequent clauses.
+     *
+     * @param lookedUpKeys the keys, or null if all keys are needed
+     */
+    public void setLookedUpKeys(Set<String> lookedUpKeys) {
+        _lookedUpKeys = lookedUpKeys;
+    }
+
+    /**
+     * A for clause binds its variable to single items, so that it can be stored in a native column
+     * whenever the type of the items returned by the expression is statically known.
+     *
+     * @return the type of the DataFrame column holding the variable bound by this clause
+     */
+    private DataType getVariableColumnType() {
+        return DataFrameUtils.getColumnDataType(_expression.getStaticItemType());
     }
 
     public Map<String, DynamicContext.VariableDependency> getVariableDependencies()
@@ -301,6 +591,16 @@ public class ForClauseSparkIterator extends SparkRuntimeTupleIterator {
         return result;
     }
 
+    public Set<String> getLookedUpKeys(String variableName)
+    {
+        return _expression.getLookedUpKeys(variableName);
+    }
+
+    public Set<List<String>> getAggregatedLookupKeys(String variableName)
+    {
+        return _expression.getAggregatedLookupKeys(variableName);
+    }
+
     public Set<String> getVariablesBoundInCurrentFLWORExpression()
     {
         Set<String> result = new HashSet<String>();
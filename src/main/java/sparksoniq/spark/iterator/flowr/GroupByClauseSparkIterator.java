@@ -46,7 +46,9 @@ import sparksoniq.spark.DataFrameUtils;
 import sparksoniq.spark.closures.GroupByLinearizeTupleClosure;
 import sparksoniq.spark.closures.GroupByToPairMapClosure;
 import sparksoniq.spark.iterator.flowr.expression.GroupByClauseSparkIteratorExpression;
+import sparksoniq.spark.udf.GroupClauseAggregateUDAF;
 import sparksoniq.spark.udf.GroupClauseCreateColumnsUDF;
+import sparksoniq.spark.udf.GroupClauseLookupUDF;
 import sparksoniq.spark.udf.GroupClauseSerializeAggregateResultsUDF;
 import sparksoniq.spark.udf.LetClauseUDF;
 
@@ -67,6 +69,7 @@ public class GroupByClauseSparkIterator extends SparkRuntimeTupleIterator {
     private List<FlworTuple> _localTupleResults;
     private int _resultIndex;
     Map<String, DynamicContext.VariableDependency> _dependencies;
+    private Map<String, List<String>> _aggregatedLookupKeys = new HashMap<>();
 
     public GroupByClauseSparkIterator(RuntimeTupleIterator child, List<GroupByClauseSparkIteratorExpression> variables,
                                       IteratorMetadata iteratorMetadata) {
@@ -128,6 +131,8 @@ public class GroupByClauseSparkIterator extends SparkRuntimeTupleIterator {
             if (_resultIndex == _localTupleResults.size()) {
                 this._hasNext = false;
             }
+            if (_statistics != null)
+                _statistics.recordItem();
             return result;
         }
         throw new IteratorFlowException("Invalid next() call in let flwor clause", getMetadata());
@@ -269,17 +274,19 @@ public class GroupByClauseSparkIterator extends SparkRuntimeTupleIterator {
                 List<String> allColumns = DataFrameUtils.getColumnNames(inputSchema, duplicateVariableIndex, null);
                 List<String> UDFcolumns = DataFrameUtils.getColumnNames(inputSchema, -1, _dependencies);
 
-                df.sparkSession().udf().register("letClauseUDF",
-                        new LetClauseUDF(newVariableExpression, UDFcolumns), DataTypes.BinaryType);
-
                 String selectSQL = DataFrameUtils.getSQL(allColumns, true);
                 String udfSQL = DataFrameUtils.getSQL(UDFcolumns, false);
 
-                df.createOrReplaceTempView("input");
-                df = df.sparkSession().sql(
-                        String.format("select %s letClauseUDF(array(%s)) as `%s` from input",
-                                selectSQL, udfSQL, newVariableName)
-                );
+                synchronized (DataFrameUtils.SQL_REGISTRATION_LOCK) {
+                    df.sparkSession().udf().register("letClauseUDF",
+                            new LetClauseUDF(newVariableExpression, context, UDFcolumns), DataTypes.BinaryType);
+
+                    df.createOrReplaceTempView("input");
+                    df = df.sparkSession().sql(
+                            String.format("select %s letClauseUDF(struct(%s)) as `%s` from input",
+                                    selectSQL, udfSQL, newVariableName)
+                    );
+                }
 
             } else {
                 if (!columnNames.contains(expression.getVariableReference().getVariableName())) {
@@ -291,12 +298,40 @@ public class GroupByClauseSparkIterator extends SparkRuntimeTupleIterator {
             }
         }
 
+        List<String> groupbyVariableNames = new ArrayList<>();
+        for (VariableReferenceIterator variableAccessExpression : variableAccessExpressions) {
+            groupbyVariableNames.add(variableAccessExpression.getVariableName());
+        }
+        Map<String, DynamicContext.VariableDependency> aggregatedProjection = getAggregatedProjection(
+                parentProjection, groupbyVariableNames);
+
+        // the variables only aggregated as, e.g., sum($x.k1.k2) are replaced with the looked-up values
+        inputSchema = df.schema();
+        synchronized (DataFrameUtils.SQL_REGISTRATION_LOCK) {
+            List<String> lookupColumns = new ArrayList<>();
+            boolean hasLookups = false;
+            for (String columnName : inputSchema.fieldNames()) {
+                if (GroupClauseAggregateUDAF.isSupported(aggregatedProjection.get(columnName))
+                        && !_aggregatedLookupKeys.get(columnName).isEmpty()) {
+                    String udfName = "lookup" + lookupColumns.size();
+                    df.sparkSession().udf().register(udfName,
+                            new GroupClauseLookupUDF(_aggregatedLookupKeys.get(columnName)), DataTypes.BinaryType);
+                    lookupColumns.add(String.format("%s(struct(`%s`)) as `%s`", udfName, columnName, columnName));
+                    hasLookups = true;
+                } else {
+                    lookupColumns.add(String.format("`%s`", columnName));
+                }
+            }
+            if (hasLookups) {
+                df.createOrReplaceTempView("input");
+                df = df.sparkSession().sql(String.format("select %s from input", String.join(", ", lookupColumns)));
+            }
+        }
+
         // determine grouping data types after all variable introductions are completed
         inputSchema = df.schema();
         Map<String, DynamicContext.VariableDependency> groupingVariables = new TreeMap<String, DynamicContext.VariableDependency>();
 
-        df.createOrReplaceTempView("input");
-
         // Determine the return type for grouping UDF
         List<StructField> typedFields = new ArrayList<>();
         String appendedGroupingColumnsName = "grouping_columns";
@@ -314,45 +349,86 @@ public class GroupByClauseSparkIterator extends SparkRuntimeTupleIterator {
         }
 
         String serializerUDFName = "serialize";
-        df.sparkSession().udf().register(serializerUDFName,
-                new GroupClauseSerializeAggregateResultsUDF(),
-                DataTypes.BinaryType);
-        
-
         List<String> allColumns = DataFrameUtils.getColumnNames(inputSchema);
         List<String> UDFcolumns = DataFrameUtils.getColumnNames(inputSchema, -1, groupingVariables);
 
-        df.sparkSession().udf().register("createGroupingColumns",
-                new GroupClauseCreateColumnsUDF(variableAccessExpressions, UDFcolumns),
-                DataTypes.createStructType(typedFields));
-
         String selectSQL = DataFrameUtils.getSQL(allColumns, true);
         String udfSQL = DataFrameUtils.getSQL(UDFcolumns, false);
 
         String createColumnsSQL = String.format(
-                "select %s createGroupingColumns(array(%s)) as `%s` from input",
+                "select %s createGroupingColumns(struct(%s)) as `%s` from input",
                 selectSQL, udfSQL, appendedGroupingColumnsName
         );
 
-        List<String> groupbyVariableNames = new ArrayList<>();
-        for (VariableReferenceIterator variableAccessExpression : variableAccessExpressions) {
-            groupbyVariableNames.add(variableAccessExpression.getVariableName());
-        }
+        // variables only used with sum(), avg(), max() or min() are aggregated before the shuffle
+        String aggregateUDFPrefix = "aggregate";
+        String[] inputColumnNames = inputSchema.fieldNames();
+
         String projectSQL = DataFrameUtils.getGroupbyProjectSQL(
                 inputSchema,
                 -1,
                 false,
                 serializerUDFName,
+                aggregateUDFPrefix,
                 groupbyVariableNames,
-                parentProjection
+                aggregatedProjection
         );
 
-        return df.sparkSession().sql(
-                String.format(
-                        "select %s from (%s) group by `%s`",
-                        projectSQL, createColumnsSQL, appendedGroupingColumnsName
-                )
-        );
+        synchronized (DataFrameUtils.SQL_REGISTRATION_LOCK) {
+            df.sparkSession().udf().register(serializerUDFName,
+                    new GroupClauseSerializeAggregateResultsUDF(),
+                    DataTypes.BinaryType);
+            df.sparkSession().udf().register("createGroupingColumns",
+                    new GroupClauseCreateColumnsUDF(variableAccessExpressions, context, UDFcolumns),
+                    DataTypes.createStructType(typedFields));
+            for (int columnIndex = 0; columnIndex < inputColumnNames.length; columnIndex++) {
+                DynamicContext.VariableDependency dependency = aggregatedProjection.get(inputColumnNames[columnIndex]);
+                if (dependency != null && GroupClauseAggregateUDAF.isSupported(dependency)) {
+                    df.sparkSession().udf().register(aggregateUDFPrefix + columnIndex,
+                            new GroupClauseAggregateUDAF(dependency, inputSchema.fields()[columnIndex].dataType(),
+                                    _aggregatedLookupKeys.get(inputColumnNames[columnIndex]), getMetadata()));
+                }
+            }
+
+            df.createOrReplaceTempView("input");
+            return df.sparkSession().sql(
+                    String.format(
+                            "select %s from (%s) group by `%s`",
+                            projectSQL, createColumnsSQL, appendedGroupingColumnsName
+                    )
+            );
+        }
+    }
+
+    /**
+     * Sets the keys with which the subsequent clauses look up values in the non-grouping variables before
+     * aggregating them, an empty list standing for an aggregation of the variable itself.
+     * Only these variables are aggregated before the shuffle.
+     */
+    public void setAggregatedLookupKeys(Map<String, List<String>> aggregatedLookupKeys) {
+        _aggregatedLookupKeys = aggregatedLookupKeys;
+    }
+
+    /**
+     * Returns the parent projection in which only the variables that can be aggregated before the shuffle
+     * keep an aggregation dependency, the others being needed in full.
+     */
+    private Map<String, DynamicContext.VariableDependency> getAggregatedProjection(
+            Map<String, DynamicContext.VariableDependency> parentProjection,
+            List<String> groupbyVariableNames)
+    {
+        Map<String, DynamicContext.VariableDependency> result = new TreeMap<String, DynamicContext.VariableDependency>();
+        for (Map.Entry<String, DynamicContext.VariableDependency> dependency : parentProjection.entrySet()) {
+            if (!GroupClauseAggregateUDAF.isSupported(dependency.getValue())) {
+                result.put(dependency.getKey(), dependency.getValue());
+            } else if (!groupbyVariableNames.contains(dependency.getKey())
+                    && _aggregatedLookupKeys.containsKey(dependency.getKey())) {
+                result.put(dependency.getKey(), dependency.getValue());
+            } else {
+                result.put(dependency.getKey(), DynamicContext.VariableDependency.FULL);
+            }
+        }
+        return result;
     }
 
     public Map<String, DynamicContext.VariableDependency> getVariableDependencies()
@@ -375,6 +451,27 @@ public class GroupByClauseSparkIterator extends SparkRuntimeTupleIterator {
         return result;
     }
 
+    public Set<String> getLookedUpKeys(String variableName)
+    {
+        Set<String> result = new HashSet<String>();
+        for(GroupByClauseSparkIteratorExpression expression : _expressions)
+        {
+            Set<String> keys;
+            if(expression.getExpression() != null)
+            {
+                keys = expression.getExpression().getLookedUpKeys(variableName);
+            } else {
+                keys = expression.getVariableReference().getLookedUpKeys(variableName);
+            }
+            if(keys == null)
+            {
+                return null;
+            }
+            result.addAll(keys);
+        }
+        return result;
+    }
+
     public Set<String> getVariablesBoundInCurrentFLWORExpression()
     {
         Set<String> result = new HashSet<String>();
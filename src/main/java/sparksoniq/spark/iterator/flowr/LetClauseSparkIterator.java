@@ -88,6 +88,8 @@ public class LetClauseSparkIterator extends SparkRuntimeTupleIterator {
         if (_hasNext == true) {
             FlworTuple result = _nextLocalTupleResult;      // save the result to be returned
             setNextLocalTupleResult();              // calculate and store the next result
+            if (_statistics != null)
+                _statistics.recordItem();
             return result;
         }
         throw new IteratorFlowException("Invalid next() call in let flwor clause", getMetadata());
@@ -177,18 +179,19 @@ public class LetClauseSparkIterator extends SparkRuntimeTupleIterator {
             List<String> allColumns = DataFrameUtils.getColumnNames(inputSchema, duplicateVariableIndex, null);
             List<String> UDFcolumns = DataFrameUtils.getColumnNames(inputSchema, -1, _dependencies);
 
-            df.sparkSession().udf().register("letClauseUDF",
-                    new LetClauseUDF(_expression, UDFcolumns), DataTypes.BinaryType);
-
             String selectSQL = DataFrameUtils.getSQL(allColumns, true);
             String udfSQL = DataFrameUtils.getSQL(UDFcolumns, false);
 
-            df.createOrReplaceTempView("input");
-            df = df.sparkSession().sql(
-                    String.format("select %s letClauseUDF(array(%s)) as `%s` from input",
-                            selectSQL, udfSQL, _variableName)
-            );
-            return df;
+            synchronized (DataFrameUtils.SQL_REGISTRATION_LOCK) {
+                df.sparkSession().udf().register("letClauseUDF",
+                        new LetClauseUDF(_expression, context, UDFcolumns), DataTypes.BinaryType);
+
+                df.createOrReplaceTempView("input");
+                return df.sparkSession().sql(
+                        String.format("select %s letClauseUDF(struct(%s)) as `%s` from input",
+                                selectSQL, udfSQL, _variableName)
+                );
+            }
         }
         throw new SparksoniqRuntimeException("Initial letClauses don't support DataFrames");
     }
@@ -208,6 +211,16 @@ public class LetClauseSparkIterator extends SparkRuntimeTupleIterator {
         return result;
     }
 
+    public Set<String> getLookedUpKeys(String variableName)
+    {
+        return _expression.getLookedUpKeys(variableName);
+    }
+
+    public Set<List<String>> getAggregatedLookupKeys(String variableName)
+    {
+        return _expression.getAggregatedLookupKeys(variableName);
+    }
+
     public Set<String> getVariablesBoundInCurrentFLWORExpression()
     {
         Set<String> result = new HashSet<String>();
@@ -24,7 +24,6 @@ import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
-import org.apache.spark.sql.types.DataType;
 import org.apache.spark.sql.types.DataTypes;
 import org.apache.spark.sql.types.StructField;
 import org.apache.spark.sql.types.StructType;
@@ -33,7 +32,7 @@ import org.rumbledb.api.Item;
 import sparksoniq.exceptions.IteratorFlowException;
 import sparksoniq.exceptions.NonAtomicKeyException;
 import sparksoniq.exceptions.SparksoniqRuntimeException;
-import sparksoniq.exceptions.UnexpectedTypeException;
+import sparksoniq.jsoniq.runtime.iterator.IteratorStatistics;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.jsoniq.runtime.tupleiterator.RuntimeTupleIterator;
@@ -46,10 +45,8 @@ import sparksoniq.spark.closures.OrderByClauseSortClosure;
 import sparksoniq.spark.closures.OrderByMapToPairClosure;
 import sparksoniq.spark.iterator.flowr.expression.OrderByClauseSparkIteratorExpression;
 import sparksoniq.spark.udf.OrderClauseCreateColumnsUDF;
-import sparksoniq.spark.udf.OrderClauseDetermineTypeUDF;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.HashSet;
@@ -65,6 +62,10 @@ public class OrderByClauseSparkIterator extends SparkRuntimeTupleIterator {
 
     private List<FlworTuple> _localTupleResults;
     private int _resultIndex;
+    private int _limit = -1;
+    private boolean _isTruncated;
+
+    private static final String ORDERING_COLUMNS_NAME = "ordering_columns";
 
     public OrderByClauseSparkIterator(RuntimeTupleIterator child, List<OrderByClauseSparkIteratorExpression> expressions,
                                       boolean stable, IteratorMetadata iteratorMetadata) {
@@ -94,6 +95,8 @@ public class OrderByClauseSparkIterator extends SparkRuntimeTupleIterator {
 
         // isRDD checks omitted, as open is used for non-RDD(local) operations
 
+        _localTupleResults = null;
+        _isTruncated = false;
         if (this._child != null) {
             _child.open(_currentDynamicContext);
 
@@ -120,6 +123,8 @@ public class OrderByClauseSparkIterator extends SparkRuntimeTupleIterator {
             if (_resultIndex == _localTupleResults.size()) {
                 this._hasNext = false;
             }
+            if (_statistics != null)
+                _statistics.recordItem();
             return result;
         }
         throw new IteratorFlowException("Invalid next() call in let flwor clause", getMetadata());
@@ -154,6 +159,7 @@ public class OrderByClauseSparkIterator extends SparkRuntimeTupleIterator {
 
         // assign current context as parent. re-use the same context object for efficiency
         DynamicContext tupleContext = new DynamicContext(_currentDynamicContext);
+        int tupleCount = 0;
         while (_child.hasNext()) {
             FlworTuple inputTuple = _child.next();
 
@@ -186,10 +192,46 @@ public class OrderByClauseSparkIterator extends SparkRuntimeTupleIterator {
                 keyValuePairs.put(key, values);
             }
             values.add(inputTuple);
+            tupleCount++;
+
+            // keep only the first tuples in the order, dropping the last one of the greatest key
+            if (_limit >= 0 && tupleCount > _limit) {
+                Map.Entry<FlworKey, List<FlworTuple>> lastEntry = keyValuePairs.lastEntry();
+                lastEntry.getValue().remove(lastEntry.getValue().size() - 1);
+                if (lastEntry.getValue().isEmpty()) {
+                    keyValuePairs.remove(lastEntry.getKey());
+                }
+                tupleCount--;
+                _isTruncated = true;
+            }
         }
         return keyValuePairs;
     }
 
+    /**
+     * Limits local execution to the first tuples in the order, which are then kept in a bounded sorted map
+     * instead of sorting all tuples. The limit applies from the next call to open().
+     *
+     * @param limit the maximum number of tuples to return, or -1 for all tuples
+     */
+    public void setLimit(int limit) {
+        _limit = limit;
+    }
+
+    /**
+     * @return true if the tuples with equal ordering keys must keep their input order
+     */
+    public boolean isStable() {
+        return _isStable;
+    }
+
+    /**
+     * @return true if local execution dropped tuples because of the limit
+     */
+    public boolean isTruncated() {
+        return _isTruncated;
+    }
+
     @Override
     public JavaRDD<FlworTuple> getRDD(DynamicContext context) {
         if (this._child == null) {
@@ -207,6 +249,36 @@ public class OrderByClauseSparkIterator extends SparkRuntimeTupleIterator {
 
     @Override
     public Dataset<Row> getDataFrame(DynamicContext context, Map<String, DynamicContext.VariableDependency> parentProjection)
+    {
+        return projectKeyedDataFrame(sortKeyedDataFrame(getKeyedDataFrame(context, parentProjection)));
+    }
+
+    /**
+     * Returns the first tuples in the order, which Spark selects with a bounded heap in every partition
+     * instead of sorting all of them.
+     *
+     * @return a local DataFrame with at most limit tuples
+     */
+    public Dataset<Row> getFirstTuples(DynamicContext context, Map<String, DynamicContext.VariableDependency> parentProjection,
+                                       int limit)
+    {
+        Dataset<Row> firstTuplesDf = projectKeyedDataFrame(
+                sortKeyedDataFrame(getKeyedDataFrame(context, parentProjection))
+        ).limit(limit);
+        List<Row> rows = IteratorStatistics.runSparkAction(_statistics, () -> firstTuplesDf.collectAsList());
+        return firstTuplesDf.sparkSession().createDataFrame(rows, firstTuplesDf.schema());
+    }
+
+    /**
+     * Appends to the input tuples a struct column with a type field and a binary key field for every expression.
+     * The key fields sort like the values of the expressions, whatever their types.
+     *
+     * A byte sort cannot fail on values of different types, so the type of the first value of every expression
+     * is looked up beforehand, which usually only evaluates the first tuple. The keys of the returned DataFrame
+     * are then created by a UDF raising XPTY0004 for the values of any other type, while Spark sorts them.
+     */
+    private Dataset<Row> getKeyedDataFrame(DynamicContext context,
+                                           Map<String, DynamicContext.VariableDependency> parentProjection)
     {
         if (this._child == null) {
             throw new SparksoniqRuntimeException("Invalid orderby clause.");
@@ -217,128 +289,102 @@ public class OrderByClauseSparkIterator extends SparkRuntimeTupleIterator {
         List<String> allColumns = DataFrameUtils.getColumnNames(inputSchema);
         List<String> UDFcolumns = DataFrameUtils.getColumnNames(inputSchema, -1, _dependencies);
 
-        df.sparkSession().udf().register("determineOrderingDataType",
-                new OrderClauseDetermineTypeUDF(_expressions, UDFcolumns),
-                DataTypes.createArrayType(DataTypes.StringType));
+        List<StructField> typedFields = new ArrayList<>();  // Determine the return type for ordering UDF
+        for (int columnIndex = 0; columnIndex < _expressions.size(); columnIndex++) {
+            typedFields.add(DataTypes.createStructField(columnIndex + "-typeField", DataTypes.IntegerType, true));
+            typedFields.add(DataTypes.createStructField(columnIndex + "-keyField", DataTypes.BinaryType, false));
+        }
+        StructType orderingColumnsType = DataTypes.createStructType(typedFields);
 
+        String selectSQL = DataFrameUtils.getSQL(allColumns, true);
         String udfSQL = DataFrameUtils.getSQL(UDFcolumns, false);
 
-        df.createOrReplaceTempView("input");
-        df.sparkSession().table("input").cache();
-        Dataset<Row> columnTypesDf = df.sparkSession().sql(
-                String.format("select distinct(determineOrderingDataType(array(%s))) as `distinct-types` from input",
-                        udfSQL)
-        );
-        Object columnTypesObject = columnTypesDf.collect();
-        Row[] columnTypesOfRows = ((Row[]) columnTypesObject);
-
-        // Every column represents an order by expression
-        // Check that every column contains a matching atomic type in all rows (nulls and empty-sequences are allowed)
-        Map<Integer, String> typesForAllColumns = new LinkedHashMap<>();
-        for (Row columnTypesOfRow : columnTypesOfRows) {
-        	List<Object> columnsTypesOfRowAsList = columnTypesOfRow.getList(0);
-            for (int columnIndex = 0; columnIndex < columnsTypesOfRowAsList.size(); columnIndex++) {
-                String columnType = (String) columnsTypesOfRowAsList.get(columnIndex);
-
-                if (!columnType.equals("empty-sequence") && !columnType.equals("null")) {
-                    String currentColumnType = typesForAllColumns.get(columnIndex);
-                    if (currentColumnType == null) {
-                        typesForAllColumns.put(columnIndex, columnType);
-                    } else if ((currentColumnType.equals("integer") || currentColumnType.equals("double") || currentColumnType.equals("decimal"))
-                            && (columnType.equals("integer") || columnType.equals("double") || columnType.equals("decimal"))) {
-                        // the numeric type calculation is identical to Item::getNumericResultType()
-                        if (currentColumnType.equals("double") || columnType.equals("double")) {
-                            typesForAllColumns.put(columnIndex, "double");
-                        } else if (currentColumnType.equals("decimal") || columnType.equals("decimal")) {
-                            typesForAllColumns.put(columnIndex, "decimal");
-                        } else {
-                            // do nothing, type is already set to integer
-                        }
-                    } else if (!currentColumnType.equals(columnType)) {
-                        throw new UnexpectedTypeException("Order by variable must contain values of a single type.", getMetadata());
-                        // TODO-can add tests with different types
-                    }
-                }
+        Dataset<Row> uncheckedDf;
+        synchronized (DataFrameUtils.SQL_REGISTRATION_LOCK) {
+            df.sparkSession().udf().register("createOrderingColumns",
+                    new OrderClauseCreateColumnsUDF(_expressions, context, UDFcolumns, null, getMetadata()),
+                    orderingColumnsType);
+            df.createOrReplaceTempView("input");
+            uncheckedDf = df.sparkSession().sql(
+                    String.format("select createOrderingColumns(struct(%s)) as `%s` from input",
+                            udfSQL, ORDERING_COLUMNS_NAME)
+            );
+        }
+        int[] valueTypes = getFirstValueTypes(uncheckedDf);
+
+        synchronized (DataFrameUtils.SQL_REGISTRATION_LOCK) {
+            df.sparkSession().udf().register("createOrderingColumns",
+                    new OrderClauseCreateColumnsUDF(_expressions, context, UDFcolumns, valueTypes, getMetadata()),
+                    orderingColumnsType);
+            df.createOrReplaceTempView("input");
+            return df.sparkSession().sql(
+                    String.format("select %s createOrderingColumns(struct(%s)) as `%s` from input",
+                            selectSQL, udfSQL, ORDERING_COLUMNS_NAME)
+            );
+        }
+    }
+
+    /**
+     * @param orderingColumnsDf a DataFrame with the ordering columns of the tuples only
+     * @return the type of the first value of every expression, or 0 if it returns no value for any tuple
+     */
+    private int[] getFirstValueTypes(Dataset<Row> orderingColumnsDf) {
+        int[] valueTypes = new int[_expressions.size()];
+        List<Row> firstRows = IteratorStatistics.runSparkAction(_statistics, () -> orderingColumnsDf.takeAsList(1));
+        if (firstRows.isEmpty()) {
+            return valueTypes;
+        }
+        Row firstOrderingColumns = firstRows.get(0).getStruct(0);
+        for (int columnIndex = 0; columnIndex < _expressions.size(); columnIndex++) {
+            if (!firstOrderingColumns.isNullAt(2 * columnIndex)) {
+                valueTypes[columnIndex] = firstOrderingColumns.getInt(2 * columnIndex);
+                continue;
+            }
+            // the first tuple has no value for this expression, the first one that does is looked for
+            String typeFieldSQL = String.format("`%s`.`%d-typeField`", ORDERING_COLUMNS_NAME, columnIndex);
+            Dataset<Row> typesDf = orderingColumnsDf.selectExpr(typeFieldSQL).where(typeFieldSQL + " is not null");
+            List<Row> types = IteratorStatistics.runSparkAction(_statistics, () -> typesDf.takeAsList(1));
+            if (!types.isEmpty()) {
+                valueTypes[columnIndex] = types.get(0).getInt(0);
             }
         }
+        return valueTypes;
+    }
 
+    private Dataset<Row> projectKeyedDataFrame(Dataset<Row> keyedDf) {
+        List<String> columns = DataFrameUtils.getColumnNames(keyedDf.schema());
+        columns.remove(ORDERING_COLUMNS_NAME);
+        String projectSQL = DataFrameUtils.getSQL(columns, false);
+        synchronized (DataFrameUtils.SQL_REGISTRATION_LOCK) {
+            keyedDf.createOrReplaceTempView("input");
+            return keyedDf.sparkSession().sql(String.format("select %s from input", projectSQL));
+        }
+    }
 
-        List<StructField> typedFields = new ArrayList<>();  // Determine the return type for ordering UDF
-        StringBuilder orderingSQL = new StringBuilder();    // Prepare the SQL statement for the order by query
-        String appendedOrderingColumnsName = "ordering_columns";
-        for (int columnIndex = 0; columnIndex < typesForAllColumns.size(); columnIndex++) {
-            String columnTypeString = typesForAllColumns.get(columnIndex);
-            String columnName;
-            DataType columnType;
-
-            // every expression contains an int column for null/empty check
-            columnName = columnIndex + "-nullEmptyCheckField";
-            typedFields.add(DataTypes.createStructField(columnName, DataTypes.IntegerType, false));
-
-            // create fields for the given value types
-            columnName = columnIndex + "-valueField";
-            if (columnTypeString.equals("bool")) {
-                columnType = DataTypes.BooleanType;
-            } else if (columnTypeString.equals("string")) {
-                columnType = DataTypes.StringType;
-            } else if (columnTypeString.equals("integer")) {
-                columnType = DataTypes.IntegerType;
-            } else if (columnTypeString.equals("double")) {
-                columnType = DataTypes.DoubleType;
-            } else if (columnTypeString.equals("decimal")) {
-                columnType = DataTypes.createDecimalType();
-            } else {
-                throw new SparksoniqRuntimeException("Unexpected ordering type found while determining UDF return type.");
-            }
-            typedFields.add(DataTypes.createStructField(columnName, columnType, true));
+    private Dataset<Row> sortKeyedDataFrame(Dataset<Row> keyedDf) {
+        synchronized (DataFrameUtils.SQL_REGISTRATION_LOCK) {
+            keyedDf.createOrReplaceTempView("input");
+            return keyedDf.sparkSession().sql(String.format("select * from input order by %s", getOrderingSQL()));
+        }
+    }
 
-            OrderByClauseSparkIteratorExpression expression = _expressions.get(columnIndex);
-            // accessing the created ordering row as "`ordering_columns`.`0-nullEmptyCheckField` (desc)"
-            // prepare sql for expression's 1st column
+    // accessing the created ordering row as "`ordering_columns`.`0-keyField` (desc)"
+    private String getOrderingSQL() {
+        StringBuilder orderingSQL = new StringBuilder();
+        for (int columnIndex = 0; columnIndex < _expressions.size(); columnIndex++) {
             orderingSQL.append("`");
-            orderingSQL.append(appendedOrderingColumnsName);
+            orderingSQL.append(ORDERING_COLUMNS_NAME);
             orderingSQL.append("`.`");
             orderingSQL.append(columnIndex);
-            orderingSQL.append("-nullEmptyCheckField`");
-            if (expression.isAscending()) {
-                orderingSQL.append(", ");
-            } else {
-                orderingSQL.append(" desc, ");
+            orderingSQL.append("-keyField`");
+            if (!_expressions.get(columnIndex).isAscending()) {
+                orderingSQL.append(" desc");
             }
-
-            // prepare sql for expression's 2nd column
-            orderingSQL.append("`");
-            orderingSQL.append(appendedOrderingColumnsName);
-            orderingSQL.append("`.`");
-            orderingSQL.append(columnIndex);
-            orderingSQL.append("-valueField`");
-            if (columnIndex != typesForAllColumns.size() - 1) {
-                if (expression.isAscending()) {
-                    orderingSQL.append(", ");
-                } else {
-                    orderingSQL.append(" desc, ");
-                }
-            } else {
-                if (!expression.isAscending()) {
-                    orderingSQL.append(" desc");
-                }
+            if (columnIndex != _expressions.size() - 1) {
+                orderingSQL.append(", ");
             }
         }
-
-        df.sparkSession().udf().register("createOrderingColumns",
-                new OrderClauseCreateColumnsUDF(_expressions, typesForAllColumns, UDFcolumns),
-                DataTypes.createStructType(typedFields));
-
-        String selectSQL = DataFrameUtils.getSQL(allColumns, true);
-        String projectSQL = selectSQL.substring(0, selectSQL.length() - 1);   // remove trailing comma
-        udfSQL = DataFrameUtils.getSQL(UDFcolumns, false);
-
-        return df.sparkSession().sql(
-                String.format(
-                        "select %s from (select %s createOrderingColumns(array(%s)) as `%s` from input order by %s)",
-                        projectSQL, selectSQL, udfSQL, appendedOrderingColumnsName, orderingSQL
-                )
-        );
+        return orderingSQL.toString();
     }
 
     public Map<String, DynamicContext.VariableDependency> getVariableDependencies()
@@ -356,6 +402,36 @@ public class OrderByClauseSparkIterator extends SparkRuntimeTupleIterator {
         return result;
     }
 
+    public Set<String> getLookedUpKeys(String variableName)
+    {
+        Set<String> result = new HashSet<String>();
+        for(OrderByClauseSparkIteratorExpression expression : _expressions)
+        {
+            Set<String> keys = expression.getExpression().getLookedUpKeys(variableName);
+            if(keys == null)
+            {
+                return null;
+            }
+            result.addAll(keys);
+        }
+        return result;
+    }
+
+    public Set<List<String>> getAggregatedLookupKeys(String variableName)
+    {
+        Set<List<String>> result = new HashSet<List<String>>();
+        for(OrderByClauseSparkIteratorExpression expression : _expressions)
+        {
+            Set<List<String>> keys = expression.getExpression().getAggregatedLookupKeys(variableName);
+            if(keys == null)
+            {
+                return null;
+            }
+            result.addAll(keys);
+        }
+        return result;
+    }
+
     public Set<String> getVariablesBoundInCurrentFLWORExpression()
     {
         Set<String> result = new HashSet<String>();
@@ -35,8 +35,12 @@ import sparksoniq.jsoniq.tuple.FlworTuple;
 import sparksoniq.semantics.DynamicContext;
 import sparksoniq.spark.closures.ReturnFlatMapClosure;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 public class ReturnClauseSparkIterator extends HybridRuntimeIterator {
@@ -62,9 +66,134 @@ public class ReturnClauseSparkIterator extends HybridRuntimeIterator {
     @Override
     public JavaRDD<Item> getRDD(DynamicContext context) {
         RuntimeIterator expression = this._children.get(0);
+        setLookedUpKeysOfInitialForClause();
+        setAggregatedLookupKeysOfGroupByClauses();
+        setTupleOrderObservabilityOfForClauses();
         Dataset<Row> df = this._child.getDataFrame(context, expression.getVariableDependencies());
         StructType oldSchema = df.schema();
-        return df.javaRDD().flatMap(new ReturnFlatMapClosure(expression, oldSchema));
+        return df.javaRDD().flatMap(new ReturnFlatMapClosure(expression, context, oldSchema));
+    }
+
+    /**
+     * If the return clause directly follows an order by clause, only the first tuples in the order are needed:
+     * Spark then selects them with a bounded heap in every partition instead of sorting all tuples, and local
+     * execution keeps them in a bounded sorted map. As the return expression may return any number of items
+     * for each tuple, the whole sequence is computed again if the first tuples did not return enough items.
+     */
+    @Override
+    public List<Item> getFirstItems(DynamicContext context, int limit) {
+        if (!(_child instanceof OrderByClauseSparkIterator) || limit <= 0) {
+            return super.getFirstItems(context, limit);
+        }
+        OrderByClauseSparkIterator orderByClause = (OrderByClauseSparkIterator) _child;
+        List<Item> result = new ArrayList<>();
+        boolean isTruncated;
+        if (isRDD()) {
+            setLookedUpKeysOfInitialForClause();
+            setAggregatedLookupKeysOfGroupByClauses();
+            setTupleOrderObservabilityOfForClauses();
+            Dataset<Row> df = orderByClause.getFirstTuples(context, _expression.getVariableDependencies(), limit);
+            List<Row> rows = df.collectAsList();
+            ReturnFlatMapClosure closure = new ReturnFlatMapClosure(_expression, context, df.schema());
+            for (Row row : rows) {
+                closure.call(row).forEachRemaining(result::add);
+            }
+            isTruncated = rows.size() == limit;
+        } else {
+            orderByClause.setLimit(limit);
+            try {
+                result = super.getFirstItems(context, limit);
+            } finally {
+                orderByClause.setLimit(-1);
+            }
+            isTruncated = orderByClause.isTruncated();
+        }
+        if (result.size() < limit && isTruncated) {
+            return super.getFirstItems(context, limit);
+        }
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * Lets an initial for clause know which keys the subsequent clauses and the return expression look up in the
+     * objects bound to its variable, so that it only reads these keys from structured inputs.
+     */
+    private void setLookedUpKeysOfInitialForClause() {
+        List<RuntimeTupleIterator> subsequentClauses = new ArrayList<>();
+        RuntimeTupleIterator initialClause = _child;
+        while (initialClause.getChild() != null) {
+            subsequentClauses.add(initialClause);
+            initialClause = initialClause.getChild();
+        }
+        if (!(initialClause instanceof ForClauseSparkIterator)) {
+            return;
+        }
+        String variableName = ((ForClauseSparkIterator) initialClause).getVariableName();
+        Set<String> lookedUpKeys = _expression.getLookedUpKeys(variableName);
+        for (RuntimeTupleIterator clause : subsequentClauses) {
+            if (lookedUpKeys == null) {
+                break;
+            }
+            Set<String> keys = clause.getLookedUpKeys(variableName);
+            if (keys == null) {
+                lookedUpKeys = null;
+            } else {
+                lookedUpKeys.addAll(keys);
+            }
+        }
+        ((ForClauseSparkIterator) initialClause).setLookedUpKeys(lookedUpKeys);
+    }
+
+    /**
+     * Lets every group by clause know the keys with which the subsequent clauses and the return expression look up
+     * values in its non-grouping variables before aggregating them, so that it only aggregates the looked-up values.
+     */
+    private void setAggregatedLookupKeysOfGroupByClauses() {
+        List<RuntimeTupleIterator> subsequentClauses = new ArrayList<>();
+        for (RuntimeTupleIterator clause = _child; clause != null; clause = clause.getChild()) {
+            if (clause instanceof GroupByClauseSparkIterator) {
+                Map<String, List<String>> aggregatedLookupKeys = new HashMap<>();
+                for (String variableName : clause.getVariablesBoundInCurrentFLWORExpression()) {
+                    Set<List<String>> keys = _expression.getAggregatedLookupKeys(variableName);
+                    for (RuntimeTupleIterator subsequentClause : subsequentClauses) {
+                        if (keys == null) {
+                            break;
+                        }
+                        Set<List<String>> clauseKeys = subsequentClause.getAggregatedLookupKeys(variableName);
+                        if (clauseKeys == null) {
+                            keys = null;
+                        } else {
+                            keys.addAll(clauseKeys);
+                        }
+                    }
+                    // the variable must always be aggregated with the same keys
+                    if (keys != null && keys.size() == 1) {
+                        aggregatedLookupKeys.put(variableName, keys.iterator().next());
+                    }
+                }
+                ((GroupByClauseSparkIterator) clause).setAggregatedLookupKeys(aggregatedLookupKeys);
+            }
+            subsequentClauses.add(clause);
+        }
+    }
+
+    /**
+     * Lets every for clause know whether the order of its tuples can be observed: a group by clause, or an order by
+     * clause that is not stable, reorders the tuples of the previous clauses, unless a count clause numbers them
+     * in between.
+     */
+    private void setTupleOrderObservabilityOfForClauses() {
+        boolean isTupleOrderObservable = true;
+        for (RuntimeTupleIterator clause = _child; clause != null; clause = clause.getChild()) {
+            if (clause instanceof ForClauseSparkIterator) {
+                ((ForClauseSparkIterator) clause).setTupleOrderObservable(isTupleOrderObservable);
+            } else if ((clause instanceof OrderByClauseSparkIterator && !((OrderByClauseSparkIterator) clause).isStable())
+                    || clause instanceof GroupByClauseSparkIterator) {
+                isTupleOrderObservable = false;
+            } else if (clause instanceof CountClauseSparkIterator) {
+                isTupleOrderObservable = true;
+            }
+        }
     }
 
     @Override
@@ -151,10 +280,40 @@ public class ReturnClauseSparkIterator extends HybridRuntimeIterator {
         {
             result.remove(variable);
         }
-        result.putAll(_child.getVariableDependencies());
+        mergeVariableDependencies(result, _child.getVariableDependencies());
         return result;
     }
     
+    public Set<String> getLookedUpKeys(String variableName)
+    {
+        Set<String> result = _expression.getLookedUpKeys(variableName);
+        RuntimeTupleIterator clause = _child;
+        while (clause != null && result != null) {
+            Set<String> keys = clause.getLookedUpKeys(variableName);
+            if (keys == null) {
+                return null;
+            }
+            result.addAll(keys);
+            clause = clause.getChild();
+        }
+        return result;
+    }
+
+    public Set<List<String>> getAggregatedLookupKeys(String variableName)
+    {
+        Set<List<String>> result = _expression.getAggregatedLookupKeys(variableName);
+        RuntimeTupleIterator clause = _child;
+        while (clause != null && result != null) {
+            Set<List<String>> keys = clause.getAggregatedLookupKeys(variableName);
+            if (keys == null) {
+                return null;
+            }
+            result.addAll(keys);
+            clause = clause.getChild();
+        }
+        return result;
+    }
+
     public void print(StringBuffer buffer, int indent)
     {
         for (int i = 0; i < indent; ++i)
@@ -162,6 +321,11 @@ public class ReturnClauseSparkIterator extends HybridRuntimeIterator {
             buffer.append("  ");
         }
         buffer.append(getClass().getName());
+        if (_statistics != null)
+        {
+            buffer.append(" | ");
+            buffer.append(_statistics);
+        }
         buffer.append("\n");
         _child.print(buffer, indent + 1);
         _expression.print(buffer, indent + 1);
@@ -20,6 +20,7 @@
 
 package sparksoniq.spark.iterator.flowr;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -27,18 +28,23 @@ import java.util.Set;
 import java.util.TreeMap;
 
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.sql.Column;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
 import org.apache.spark.sql.types.DataTypes;
 import org.apache.spark.sql.types.StructType;
 import sparksoniq.exceptions.IteratorFlowException;
 import sparksoniq.exceptions.SparksoniqRuntimeException;
+import sparksoniq.jsoniq.compiler.translator.expr.operational.base.OperationalExpressionBase.Operator;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
+import sparksoniq.jsoniq.runtime.iterator.operational.AndOperationIterator;
+import sparksoniq.jsoniq.runtime.iterator.operational.ComparisonOperationIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.jsoniq.runtime.tupleiterator.RuntimeTupleIterator;
 import sparksoniq.jsoniq.runtime.tupleiterator.SparkRuntimeTupleIterator;
 import sparksoniq.jsoniq.tuple.FlworTuple;
 import sparksoniq.semantics.DynamicContext;
+import sparksoniq.spark.ColumnExpressionTranslator;
 import sparksoniq.spark.DataFrameUtils;
 import sparksoniq.spark.closures.OLD_WhereClauseClosure;
 import sparksoniq.spark.udf.WhereClauseUDF;
@@ -91,6 +97,8 @@ public class WhereClauseSparkIterator extends SparkRuntimeTupleIterator {
         if (_hasNext == true) {
             FlworTuple result = _nextLocalTupleResult;      // save the result to be returned
             setNextLocalTupleResult();              // calculate and store the next result
+            if (_statistics != null)
+                _statistics.recordItem();
             return result;
         }
         throw new IteratorFlowException("Invalid next() call in let flwor clause", getMetadata());
@@ -137,22 +145,109 @@ public class WhereClauseSparkIterator extends SparkRuntimeTupleIterator {
         if (this._child == null) {
             throw new SparksoniqRuntimeException("Invalid where clause.");
         }
+        // an equality between the variable of a for clause and the previous variables is evaluated as a join
+        List<RuntimeIterator> conjuncts = new ArrayList<>();
+        addConjuncts(_expression, conjuncts);
+        if (_child instanceof ForClauseSparkIterator && ((ForClauseSparkIterator) _child).isJoinable()) {
+            ForClauseSparkIterator forClause = (ForClauseSparkIterator) _child;
+            for (RuntimeIterator conjunct : conjuncts) {
+                Dataset<Row> df = getJoinedDataFrame(forClause, conjunct, context, parentProjection);
+                if (df != null) {
+                    for (RuntimeIterator remainingConjunct : conjuncts) {
+                        if (remainingConjunct != conjunct) {
+                            df = filter(df, remainingConjunct, context);
+                        }
+                    }
+                    return df;
+                }
+            }
+        }
+
         Dataset<Row> df = _child.getDataFrame(context, getProjection(parentProjection));
+        return filter(df, _expression, context);
+    }
+
+    private Dataset<Row> filter(Dataset<Row> df, RuntimeIterator expression, DynamicContext context)
+    {
         StructType inputSchema = df.schema();
 
-        List<String> UDFcolumns = DataFrameUtils.getColumnNames(inputSchema, -1, _dependencies);
+        // filter with a native column expression if possible, so that Spark can optimize and push down the predicate
+        Column nativePredicate = ColumnExpressionTranslator.translatePredicate(expression, inputSchema, context);
+        if (nativePredicate != null) {
+            return df.filter(nativePredicate);
+        }
 
+        List<String> UDFcolumns = DataFrameUtils.getColumnNames(inputSchema, -1, expression.getVariableDependencies());
 
-        df.sparkSession().udf().register("whereClauseUDF",
-                new WhereClauseUDF(_expression, inputSchema, UDFcolumns), DataTypes.BooleanType);
 
         String udfSQL = DataFrameUtils.getSQL(UDFcolumns, false);
 
-        df.createOrReplaceTempView("input");
-        df = df.sparkSession().sql(
-                String.format("select * from input where whereClauseUDF(array(%s)) = 'true'", udfSQL)
-        );
-        return df;
+        synchronized (DataFrameUtils.SQL_REGISTRATION_LOCK) {
+            df.sparkSession().udf().register("whereClauseUDF",
+                    new WhereClauseUDF(expression, context, inputSchema, UDFcolumns), DataTypes.BooleanType);
+
+            df.createOrReplaceTempView("input");
+            return df.sparkSession().sql(
+                    String.format("select * from input where whereClauseUDF(struct(%s)) = 'true'", udfSQL)
+            );
+        }
+    }
+
+    private static void addConjuncts(RuntimeIterator expression, List<RuntimeIterator> conjuncts)
+    {
+        if (expression instanceof AndOperationIterator) {
+            addConjuncts(expression.getChildren().get(0), conjuncts);
+            addConjuncts(expression.getChildren().get(1), conjuncts);
+        } else {
+            conjuncts.add(expression);
+        }
+    }
+
+    /**
+     * Evaluates the for clause as a join if the predicate is an equality between an expression depending only
+     * on its variable and an expression depending only on the variables of the previous clauses.
+     *
+     * @return the joined tuples, or null if the predicate is not such an equality
+     */
+    private Dataset<Row> getJoinedDataFrame(
+            ForClauseSparkIterator forClause,
+            RuntimeIterator predicate,
+            DynamicContext context,
+            Map<String, DynamicContext.VariableDependency> parentProjection)
+    {
+        if (!(predicate instanceof ComparisonOperationIterator)) {
+            return null;
+        }
+        Operator operator = ((ComparisonOperationIterator) predicate).getOperator();
+        if (operator != Operator.VC_EQ && operator != Operator.GC_EQ) {
+            return null;
+        }
+        RuntimeIterator childKeyExpression = predicate.getChildren().get(0);
+        RuntimeIterator keyExpression = predicate.getChildren().get(1);
+        if (!isJoinKey(keyExpression, forClause)) {
+            RuntimeIterator swap = childKeyExpression;
+            childKeyExpression = keyExpression;
+            keyExpression = swap;
+        }
+        if (!isJoinKey(keyExpression, forClause) || !isChildJoinKey(childKeyExpression, forClause)) {
+            return null;
+        }
+        return forClause.getJoinedDataFrame(context, getProjection(parentProjection),
+                childKeyExpression, keyExpression, operator == Operator.GC_EQ, predicate.getMetadata());
+    }
+
+    private static boolean isJoinKey(RuntimeIterator expression, ForClauseSparkIterator forClause)
+    {
+        Set<String> variableNames = expression.getVariableDependencies().keySet();
+        return variableNames.size() == 1 && variableNames.contains(forClause.getVariableName());
+    }
+
+    private static boolean isChildJoinKey(RuntimeIterator expression, ForClauseSparkIterator forClause)
+    {
+        Set<String> variableNames = expression.getVariableDependencies().keySet();
+        return !variableNames.isEmpty()
+                && !variableNames.contains(forClause.getVariableName())
+                && forClause.getChild().getVariablesBoundInCurrentFLWORExpression().containsAll(variableNames);
     }
 
     public Map<String, DynamicContext.VariableDependency> getVariableDependencies()
@@ -167,6 +262,16 @@ public class WhereClauseSparkIterator extends SparkRuntimeTupleIterator {
         return result;
     }
 
+    public Set<String> getLookedUpKeys(String variableName)
+    {
+        return _expression.getLookedUpKeys(variableName);
+    }
+
+    public Set<List<String>> getAggregatedLookupKeys(String variableName)
+    {
+        return _expression.getAggregatedLookupKeys(variableName);
+    }
+
     public Set<String> getVariablesBoundInCurrentFLWORExpression()
     {
         Set<String> result = new HashSet<String>();
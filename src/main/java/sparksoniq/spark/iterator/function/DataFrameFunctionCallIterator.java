@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.spark.iterator.function;
+
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.sql.DataFrameReader;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.rumbledb.api.Item;
+
+import sparksoniq.io.json.RowToItemMapper;
+import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
+import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
+import sparksoniq.semantics.DynamicContext;
+import sparksoniq.semantics.types.ItemTypes;
+import sparksoniq.spark.SparkSessionManager;
+
+import java.util.List;
+
+/**
+ * Base class for input functions reading structured data with a Spark data source. The rows are returned
+ * as objects, but are kept in a columnar DataFrame if the function is the input of an initial for clause, so
+ * that Spark only reads the keys that are looked up and pushes the where clause predicates into the reader.
+ */
+public abstract class DataFrameFunctionCallIterator extends SparkFunctionCallIterator {
+
+	private static final long serialVersionUID = 1L;
+	private transient Dataset<Row> _dataFrame;
+
+	protected DataFrameFunctionCallIterator(List<RuntimeIterator> arguments, IteratorMetadata iteratorMetadata) {
+        super(arguments, iteratorMetadata);
+    }
+
+    @Override
+    public boolean isDataFrame() {
+        return true;
+    }
+
+    @Override
+    public Dataset<Row> getDataFrame(DynamicContext context) {
+        if (this._dataFrame == null) {
+            RuntimeIterator urlIterator = this._children.get(0);
+            urlIterator.open(context);
+            String url = urlIterator.next().getStringValue();
+            urlIterator.close();
+            _dataFrame = readDataFrame(SparkSessionManager.getInstance().getOrCreateSession().read(), url, context);
+        }
+        return _dataFrame;
+    }
+
+    @Override
+    public JavaRDD<Item> getRDD(DynamicContext context) {
+        if (this._rdd == null) {
+            _rdd = getDataFrame(context).javaRDD().mapPartitions(new RowToItemMapper());
+        }
+        return _rdd;
+    }
+
+    @Override
+    public ItemTypes getStaticItemType() {
+        return ItemTypes.ObjectItem;
+    }
+
+    /**
+     * Sets the schema given in DDL format (e.g., "name string, age int") as optional second argument.
+     */
+    protected DataFrameReader setSchemaFromArgument(DataFrameReader reader, DynamicContext context) {
+        if (this._children.size() > 1) {
+            RuntimeIterator schemaIterator = this._children.get(1);
+            schemaIterator.open(context);
+            reader = reader.schema(schemaIterator.next().getStringValue());
+            schemaIterator.close();
+        }
+        return reader;
+    }
+
+    /**
+     * @param reader  a reader on the Spark session
+     * @param url     the path given as first argument
+     * @param context the context in which the remaining arguments are evaluated
+     * @return the DataFrame with one row per object
+     */
+    protected abstract Dataset<Row> readDataFrame(DataFrameReader reader, String url, DynamicContext context);
+}
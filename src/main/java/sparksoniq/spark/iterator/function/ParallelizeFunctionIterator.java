@@ -29,6 +29,7 @@ import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.semantics.DynamicContext;
 import sparksoniq.spark.SparkSessionManager;
+import sparksoniq.semantics.types.ItemTypes;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -53,7 +54,7 @@ public class ParallelizeFunctionIterator extends SparkFunctionCallIterator {
             _rdd = SparkSessionManager.getInstance().getJavaSparkContext().parallelize(contents);
         } else {
             RuntimeIterator partitionsIterator = this._children.get(1);
-            partitionsIterator.open(_currentDynamicContext);
+            partitionsIterator.open(context);
             if (!partitionsIterator.hasNext())
                 throw new UnexpectedTypeException("The second parameter of parallelize must be an integer, but an empty sequence is supplied.", getMetadata());
             Item partitions = partitionsIterator.next();
@@ -70,4 +71,9 @@ public class ParallelizeFunctionIterator extends SparkFunctionCallIterator {
         }
         return _rdd;
     }
+
+    @Override
+    public ItemTypes getStaticItemType() {
+        return this._children.get(0).getStaticItemType();
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.spark.iterator.function;
+
+import org.apache.spark.sql.DataFrameReader;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+
+import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
+import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
+import sparksoniq.semantics.DynamicContext;
+import sparksoniq.spark.SparkSessionManager;
+
+import java.util.List;
+
+/**
+ * Reads CSV files with a header line, returning each row as an object with the column names as keys.
+ * The column types are inferred from the data, unless a schema is given as second argument (in DDL format,
+ * e.g., "name string, age int"). Inference reads the configured fraction of the files (all of them by default)
+ * in a separate pass before the query is evaluated. Empty values are omitted from the objects.
+ */
+public class ParseCsvFunctionIterator extends DataFrameFunctionCallIterator {
+
+	private static final long serialVersionUID = 1L;
+
+	public ParseCsvFunctionIterator(List<RuntimeIterator> arguments, IteratorMetadata iteratorMetadata) {
+        super(arguments, iteratorMetadata);
+    }
+
+    @Override
+    protected Dataset<Row> readDataFrame(DataFrameReader reader, String url, DynamicContext context) {
+        reader = reader.option("header", "true");
+        if (this._children.size() == 1) {
+            reader = reader.option("inferSchema", "true")
+                    .option("samplingRatio", SparkSessionManager.SCHEMA_SAMPLING_RATIO);
+        }
+        return setSchemaFromArgument(reader, context).csv(url);
+    }
+}
@@ -20,55 +20,68 @@
 
 package sparksoniq.spark.iterator.function;
 
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.TextInputFormat;
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
 import org.rumbledb.api.Item;
 
-import sparksoniq.io.json.StringToItemMapper;
+import sparksoniq.io.json.TextToItemMapper;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.semantics.DynamicContext;
 import sparksoniq.spark.SparkSessionManager;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 public class ParseJsonFunctionIterator extends SparkFunctionCallIterator {
 
 	private static final long serialVersionUID = 1L;
+	protected Set<String> _lookedUpKeys;  // keys read from the objects of the file, null if all are needed
 
 	public ParseJsonFunctionIterator(List<RuntimeIterator> arguments, IteratorMetadata iteratorMetadata) {
         super(arguments, iteratorMetadata);
     }
 
-    @Override
-    public void open(DynamicContext context) {
-        super.open(context);
-
-        long resultSize = this.getRDD(_currentDynamicContext).count();
-        if (resultSize == 0) {
-            this._hasNext = false;
-        } else {
-            this._hasNext = true;
+    /**
+     * Lets the for clause iterating over the file tell which keys are looked up in its objects, so that the
+     * values of the other keys are skipped while parsing.
+     *
+     * @param lookedUpKeys the keys looked up, or null if the objects are used in any other way
+     */
+    public void setLookedUpKeys(Set<String> lookedUpKeys) {
+        if (!Objects.equals(lookedUpKeys, _lookedUpKeys)) {
+            _lookedUpKeys = lookedUpKeys == null ? null : new HashSet<>(lookedUpKeys);
+            _rdd = null;
         }
     }
 
     @Override
     public JavaRDD<Item> getRDD(DynamicContext context) {
         if (this._rdd == null) {
-            JavaRDD<String> strings;
             RuntimeIterator urlIterator = this._children.get(0);
             urlIterator.open(context);
-            if (this._children.size() == 1)
-                strings = SparkSessionManager.getInstance().getJavaSparkContext().textFile(urlIterator.next().getStringValue());
-            else {
+            JavaSparkContext sparkContext = SparkSessionManager.getInstance().getJavaSparkContext();
+            int minPartitions = sparkContext.defaultMinPartitions();
+            if (this._children.size() > 1) {
                 RuntimeIterator partitionsIterator = this._children.get(1);
-                partitionsIterator.open(_currentDynamicContext);
-                strings = SparkSessionManager.getInstance().getJavaSparkContext().textFile(
-                        urlIterator.next().getStringValue(),
-                        partitionsIterator.next().getIntegerValue());
+                partitionsIterator.open(context);
+                minPartitions = partitionsIterator.next().getIntegerValue();
                 partitionsIterator.close();
             }
+            // read the lines as raw bytes, which are parsed without being decoded into strings
+            JavaRDD<Text> lines = sparkContext.hadoopFile(
+                    urlIterator.next().getStringValue(),
+                    TextInputFormat.class,
+                    LongWritable.class,
+                    Text.class,
+                    minPartitions).values();
 
-            _rdd = strings.mapPartitions(new StringToItemMapper(getMetadata()));
+            _rdd = lines.mapPartitions(new TextToItemMapper(getMetadata(), _lookedUpKeys));
             urlIterator.close();
         }
         return _rdd;
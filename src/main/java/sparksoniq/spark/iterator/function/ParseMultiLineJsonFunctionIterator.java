@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.spark.iterator.function;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.spark.SerializableWritable;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.rumbledb.api.Item;
+
+import sparksoniq.exceptions.SparksoniqRuntimeException;
+import sparksoniq.io.json.JsonSplit;
+import sparksoniq.io.json.JsonSplitToItemMapper;
+import sparksoniq.io.json.JsonSplitTransitionsMapper;
+import sparksoniq.io.json.JsonStructureScanner;
+import sparksoniq.jsoniq.runtime.iterator.IteratorStatistics;
+import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
+import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
+import sparksoniq.semantics.DynamicContext;
+import sparksoniq.spark.SparkSessionManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses files containing JSON values that may span several lines, either one after the other or as the
+ * members of a single top-level array. A file whose first value is an array is read as a single top-level array,
+ * and any content after this array is an error.
+ *
+ * The files are split into byte ranges that are parsed in parallel. As a range may begin in the middle of a
+ * value, or even of a string, a first job scans every range for each possible state at its beginning, and the
+ * exact states are then chained from the beginning of each file. A second job then parses the values
+ * starting in every range.
+ */
+public class ParseMultiLineJsonFunctionIterator extends ParseJsonFunctionIterator {
+
+	private static final long serialVersionUID = 1L;
+
+	public ParseMultiLineJsonFunctionIterator(List<RuntimeIterator> arguments, IteratorMetadata iteratorMetadata) {
+        super(arguments, iteratorMetadata);
+    }
+
+    @Override
+    public JavaRDD<Item> getRDD(DynamicContext context) {
+        if (this._rdd == null) {
+            RuntimeIterator urlIterator = this._children.get(0);
+            urlIterator.open(context);
+            JavaSparkContext sparkContext = SparkSessionManager.getInstance().getJavaSparkContext();
+            int minPartitions = sparkContext.defaultMinPartitions();
+            if (this._children.size() > 1) {
+                RuntimeIterator partitionsIterator = this._children.get(1);
+                partitionsIterator.open(context);
+                minPartitions = partitionsIterator.next().getIntegerValue();
+                partitionsIterator.close();
+            }
+            String url = urlIterator.next().getStringValue();
+            urlIterator.close();
+
+            Configuration configuration = sparkContext.hadoopConfiguration();
+            SerializableWritable<Configuration> serializableConfiguration = new SerializableWritable<>(configuration);
+            List<JsonSplit> splits;
+            try {
+                splits = getSplits(url, minPartitions, configuration);
+            } catch (IOException e) {
+                throw new SparksoniqRuntimeException("IO error while reading " + url + ": " + e.getMessage(),
+                        getMetadata().getExpressionMetadata());
+            }
+            if (splits.isEmpty()) {
+                _rdd = sparkContext.emptyRDD();
+                return _rdd;
+            }
+
+            JavaRDD<int[]> splitTransitions = sparkContext.parallelize(splits, splits.size())
+                    .map(new JsonSplitTransitionsMapper(serializableConfiguration));
+            List<int[]> transitions = IteratorStatistics.runSparkAction(_statistics, () -> splitTransitions.collect());
+            int state = JsonStructureScanner.OUTSIDE_STRING;
+            int depth = 0;
+            for (int i = 0; i < splits.size(); ++i) {
+                JsonSplit split = splits.get(i);
+                if (split.getStart() == 0) {
+                    state = JsonStructureScanner.OUTSIDE_STRING;
+                    depth = 0;
+                }
+                split.setStart(state, depth);
+                depth += transitions.get(i)[2 * state + 1];
+                state = transitions.get(i)[2 * state];
+            }
+
+            _rdd = sparkContext.parallelize(splits, splits.size())
+                    .mapPartitions(new JsonSplitToItemMapper(serializableConfiguration, getMetadata(), _lookedUpKeys));
+        }
+        return _rdd;
+    }
+
+    /**
+     * Splits the files matching a path into ranges, similarly to Hadoop text files: there are at least
+     * minPartitions ranges overall, and no range is larger than a block.
+     */
+    private static List<JsonSplit> getSplits(String url, int minPartitions, Configuration configuration)
+            throws IOException {
+        Path path = new Path(url);
+        FileSystem fileSystem = path.getFileSystem(configuration);
+        FileStatus[] matches = fileSystem.globStatus(path);
+        if (matches == null || matches.length == 0) {
+            throw new IOException("path does not exist");
+        }
+        List<FileStatus> files = new ArrayList<>();
+        for (FileStatus match : matches) {
+            if (!match.isDirectory()) {
+                files.add(match);
+                continue;
+            }
+            for (FileStatus file : fileSystem.listStatus(match.getPath())) {
+                String name = file.getPath().getName();
+                if (file.isFile() && !name.startsWith("_") && !name.startsWith(".")) {
+                    files.add(file);
+                }
+            }
+        }
+
+        long totalSize = 0;
+        for (FileStatus file : files) {
+            totalSize += file.getLen();
+        }
+        long goalSize = totalSize / Math.max(minPartitions, 1);
+        List<JsonSplit> splits = new ArrayList<>();
+        for (FileStatus file : files) {
+            long length = file.getLen();
+            if (length == 0) {
+                continue;
+            }
+            boolean isArray = startsWithArray(fileSystem, file.getPath());
+            long splitSize = Math.max(1, Math.min(goalSize, file.getBlockSize()));
+            for (long start = 0; start < length; start += splitSize) {
+                splits.add(new JsonSplit(
+                        file.getPath().toString(),
+                        start,
+                        Math.min(start + splitSize, length),
+                        isArray));
+            }
+        }
+        return splits;
+    }
+
+    private static boolean startsWithArray(FileSystem fileSystem, Path path) throws IOException {
+        try (InputStream input = fileSystem.open(path)) {
+            int b;
+            do {
+                b = input.read();
+            } while (b == ' ' || b == '\n' || b == '\r' || b == '\t');
+            return b == '[';
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.spark.iterator.function;
+
+import org.apache.spark.sql.DataFrameReader;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+
+import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
+import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
+import sparksoniq.semantics.DynamicContext;
+import sparksoniq.spark.SparkSessionManager;
+
+import java.util.List;
+
+/**
+ * Reads a JSON lines file with Spark's JSON data source, either with the schema given as second argument
+ * (in DDL format, e.g., "name string, age int") or with a schema inferred from the data. Inference reads the
+ * configured fraction of the file (all of it by default) in a separate pass before the query is evaluated.
+ * Unlike json-file(), the objects are kept in a columnar DataFrame, so that a for clause over this function
+ * binds its variable to a struct column on which lookups can be pruned and pushed down. As Spark has to fit all
+ * values of a key into a single type, this is only suitable for homogeneous data.
+ */
+public class ParseStructuredJsonFunctionIterator extends DataFrameFunctionCallIterator {
+
+	private static final long serialVersionUID = 1L;
+
+	public ParseStructuredJsonFunctionIterator(List<RuntimeIterator> arguments, IteratorMetadata iteratorMetadata) {
+        super(arguments, iteratorMetadata);
+    }
+
+    @Override
+    protected Dataset<Row> readDataFrame(DataFrameReader reader, String url, DynamicContext context) {
+        reader = reader.option("mode", "FAILFAST").option("prefersDecimal", "true");
+        if (this._children.size() == 1) {
+            reader = reader.option("samplingRatio", SparkSessionManager.SCHEMA_SAMPLING_RATIO);
+        }
+        return setSchemaFromArgument(reader, context).json(url);
+    }
+}
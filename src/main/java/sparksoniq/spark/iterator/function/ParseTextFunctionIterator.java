@@ -28,6 +28,7 @@ import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.semantics.DynamicContext;
 import sparksoniq.spark.SparkSessionManager;
+import sparksoniq.semantics.types.ItemTypes;
 
 import java.util.List;
 
@@ -39,18 +40,6 @@ public class ParseTextFunctionIterator extends SparkFunctionCallIterator {
         super(arguments, iteratorMetadata);
     }
 
-    @Override
-    public void open(DynamicContext context) {
-        super.open(context);
-
-        long resultSize = this.getRDD(_currentDynamicContext).count();
-        if (resultSize == 0) {
-            this._hasNext = false;
-        } else {
-            this._hasNext = true;
-        }
-    }
-
     @Override
     public JavaRDD<Item> getRDD(DynamicContext context) {
         if (this._rdd == null) {
@@ -61,7 +50,7 @@ public class ParseTextFunctionIterator extends SparkFunctionCallIterator {
                 strings = SparkSessionManager.getInstance().getJavaSparkContext().textFile(urlIterator.next().getStringValue());
             else {
                 RuntimeIterator partitionsIterator = this._children.get(1);
-                partitionsIterator.open(_currentDynamicContext);
+                partitionsIterator.open(context);
                 strings = SparkSessionManager.getInstance().getJavaSparkContext().textFile(
                         urlIterator.next().getStringValue(),
                         partitionsIterator.next().getIntegerValue());
@@ -74,4 +63,8 @@ public class ParseTextFunctionIterator extends SparkFunctionCallIterator {
         return _rdd;
     }
 
+    @Override
+    public ItemTypes getStaticItemType() {
+        return ItemTypes.StringItem;
+    }
 }
@@ -20,14 +20,15 @@
 
 package sparksoniq.spark.udf;
 
+import org.apache.spark.sql.Row;
 import org.apache.spark.sql.api.java.UDF1;
+import org.apache.spark.sql.types.DataType;
 import org.rumbledb.api.Item;
 
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 
-import scala.collection.mutable.WrappedArray;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.semantics.DynamicContext;
 import sparksoniq.spark.DataFrameUtils;
@@ -36,18 +37,18 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-public class ForClauseUDF implements UDF1<WrappedArray<byte[]>, List<byte[]>> {
+public class ForClauseUDF implements UDF1<Row, List<Object>> {
 	/**
 	 * 
 	 */
 	private static final long serialVersionUID = 1L;
 	private RuntimeIterator _expression;
     List<String> _columnNames;
+    private DataType _columnType;
 
     private List<List<Item>> _deserializedParams;
     private DynamicContext _context;
-    private List<Item> _nextResult;
-    private List<byte[]> _results;
+    private List<Object> _results;
     
     private transient Kryo _kryo;
     private transient Output _output;
@@ -55,13 +56,15 @@ public class ForClauseUDF implements UDF1<WrappedArray<byte[]>, List<byte[]>> {
 
     public ForClauseUDF(
             RuntimeIterator expression,
-            List<String> columnNames) {
+            DynamicContext context,
+            List<String> columnNames,
+            DataType columnType) {
         _expression = expression;
         _columnNames = columnNames;
+        _columnType = columnType;
 
         _deserializedParams = new ArrayList<>();
-        _context = new DynamicContext();
-        _nextResult = new ArrayList<>();
+        _context = new DynamicContext(context);
         _results = new ArrayList<>();
         
         _kryo = new Kryo();
@@ -73,22 +76,20 @@ public class ForClauseUDF implements UDF1<WrappedArray<byte[]>, List<byte[]>> {
 
 
     @Override
-    public List<byte[]> call(WrappedArray<byte[]> wrappedParameters) {
+    public List<Object> call(Row wrappedParameters) {
         _deserializedParams.clear();
         _context.removeAllVariables();
         _results.clear();
 
-        DataFrameUtils.deserializeWrappedParameters(wrappedParameters, _deserializedParams, _kryo, _input);
+        DataFrameUtils.deserializeRowParameters(wrappedParameters, _deserializedParams, _kryo, _input);
 
         DataFrameUtils.prepareDynamicContext(_context, _columnNames, _deserializedParams);
 
         // apply expression in the dynamic context
         _expression.open(_context);
         while (_expression.hasNext()) {
-            _nextResult.clear();
             Item nextItem = _expression.next();
-            _nextResult.add(nextItem);
-            _results.add(DataFrameUtils.serializeItemList(_nextResult, _kryo, _output));
+            _results.add(DataFrameUtils.serializeItemToColumnValue(nextItem, _columnType, _kryo, _output));
         }
         _expression.close();
 
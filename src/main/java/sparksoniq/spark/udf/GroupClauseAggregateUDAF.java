@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.spark.udf;
+
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.expressions.MutableAggregationBuffer;
+import org.apache.spark.sql.expressions.UserDefinedAggregateFunction;
+import org.apache.spark.sql.types.DataType;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+import org.rumbledb.api.Item;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import sparksoniq.exceptions.InvalidArgumentTypeException;
+import sparksoniq.exceptions.SparksoniqRuntimeException;
+import sparksoniq.jsoniq.item.ItemComparatorForSequences;
+import sparksoniq.jsoniq.item.ItemFactory;
+import sparksoniq.jsoniq.item.metadata.ItemMetadata;
+import sparksoniq.jsoniq.runtime.iterator.functions.sequences.aggregate.NumericAccumulator;
+import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
+import sparksoniq.semantics.DynamicContext;
+import sparksoniq.spark.DataFrameUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aggregates the values of a non-grouping variable that is only used with sum(), avg(), max() or min()
+ * after the group by clause. Spark computes a partial result for every group in every partition, so that
+ * only one item per group and partition is shuffled instead of all the values of the variable.
+ *
+ * Sums and averages are kept in the primitive fields of a NumericAccumulator, so that the values do not need to be
+ * converted to decimals nor the partial result to be serialized for every row. Maximums and minimums of a native
+ * column are kept in a native column of the same type.
+ *
+ * The result is the serialized singleton sequence containing the sum, average, maximum or minimum
+ * (or the empty sequence if there are no values), on which the aggregation function is then a no-op.
+ * If the variable is only aggregated as, e.g., sum($x.k1.k2), the input holds the looked-up values and the result
+ * is wrapped in objects with these keys, on which the lookups and the aggregation function are then no-ops.
+ */
+public class GroupClauseAggregateUDAF extends UserDefinedAggregateFunction {
+
+	private static final long serialVersionUID = 1L;
+	private final DynamicContext.VariableDependency _dependency;
+    private final DataType _inputType;
+    private final List<String> _lookupKeys;
+    private final IteratorMetadata _metadata;
+    private final ItemComparatorForSequences _comparator;
+
+    private transient Kryo _kryo;
+    private transient Output _output;
+    private transient Input _input;
+    private transient NumericAccumulator _accumulator;
+    private transient NumericAccumulator _otherAccumulator;
+
+    /**
+     * @param dependency the aggregation function: SUM, AVG, MAX or MIN
+     * @param inputType  the type of the column holding the variable
+     * @param lookupKeys the keys looked up in the variable before it is aggregated, empty if it is aggregated itself
+     * @param metadata   the metadata of the group by clause, for error reporting
+     */
+    public GroupClauseAggregateUDAF(
+            DynamicContext.VariableDependency dependency,
+            DataType inputType,
+            List<String> lookupKeys,
+            IteratorMetadata metadata) {
+        _dependency = dependency;
+        _inputType = inputType;
+        _lookupKeys = lookupKeys;
+        _metadata = metadata;
+        _comparator = new ItemComparatorForSequences();
+
+        _kryo = new Kryo();
+        _kryo.setReferences(false);
+        DataFrameUtils.registerKryoClassesKryo(_kryo);
+        _output = new Output(128, -1);
+        _input = new Input();
+        _accumulator = new NumericAccumulator();
+        _otherAccumulator = new NumericAccumulator();
+    }
+
+    /**
+     * @param dependency the dependency of a parent clause on a variable
+     * @return true if the values of the variable can be aggregated before they are shuffled
+     */
+    public static boolean isSupported(DynamicContext.VariableDependency dependency) {
+        return dependency == DynamicContext.VariableDependency.SUM
+                || dependency == DynamicContext.VariableDependency.AVG
+                || dependency == DynamicContext.VariableDependency.MAX
+                || dependency == DynamicContext.VariableDependency.MIN;
+    }
+
+    @Override
+    public StructType inputSchema() {
+        return DataTypes.createStructType(Arrays.asList(
+                DataTypes.createStructField("value", _inputType, true)
+        ));
+    }
+
+    @Override
+    public StructType bufferSchema() {
+        List<StructField> fields = new ArrayList<>();
+        // the maximum or minimum of the values seen so far, as a native value or null,
+        // or serialized as a sequence of at most one item
+        if (isNativeInput()) {
+            fields.add(DataTypes.createStructField("partialResult", _inputType, true));
+        } else {
+            fields.add(DataTypes.createStructField("partialResult", DataTypes.BinaryType, false));
+        }
+        // the sum and number of the values seen so far
+        fields.addAll(NumericAccumulator.getBufferFields());
+        return DataTypes.createStructType(fields);
+    }
+
+    @Override
+    public DataType dataType() {
+        return DataTypes.BinaryType;
+    }
+
+    @Override
+    public boolean deterministic() {
+        return true;
+    }
+
+    @Override
+    public void initialize(MutableAggregationBuffer buffer) {
+        buffer.update(0, isNativeInput() ? null : DataFrameUtils.serializeItemList(new ArrayList<>(), _kryo, _output));
+        _accumulator.clear();
+        _accumulator.store(buffer, 1);
+    }
+
+    @Override
+    public void update(MutableAggregationBuffer buffer, Row input) {
+        List<Item> values = DataFrameUtils.deserializeColumnValue(input.get(0), _kryo, _input);
+        if (values.isEmpty()) {
+            return;
+        }
+        if (isNumericAggregation()) {
+            _accumulator.load(buffer, 1);
+            for (Item value : values) {
+                checkValue(value);
+                _accumulator.add(value);
+            }
+            _accumulator.store(buffer, 1);
+            return;
+        }
+        Item previousPartialResult = getPartialResult(buffer);
+        Item partialResult = previousPartialResult;
+        for (Item value : values) {
+            partialResult = combine(partialResult, value);
+        }
+        if (partialResult != previousPartialResult) {
+            setPartialResult(buffer, partialResult);
+        }
+    }
+
+    @Override
+    public void merge(MutableAggregationBuffer buffer1, Row buffer2) {
+        if (isNumericAggregation()) {
+            _accumulator.load(buffer1, 1);
+            _otherAccumulator.load(buffer2, 1);
+            _accumulator.merge(_otherAccumulator);
+            _accumulator.store(buffer1, 1);
+            return;
+        }
+        Item otherPartialResult = getPartialResult(buffer2);
+        if (otherPartialResult == null) {
+            return;
+        }
+        Item previousPartialResult = getPartialResult(buffer1);
+        Item partialResult = combine(previousPartialResult, otherPartialResult);
+        if (partialResult != previousPartialResult) {
+            setPartialResult(buffer1, partialResult);
+        }
+    }
+
+    @Override
+    public Object evaluate(Row buffer) {
+        List<Item> result = new ArrayList<>(1);
+        if (isNumericAggregation()) {
+            _accumulator.load(buffer, 1);
+            if (_accumulator.getCount() > 0) {
+                result.add(_dependency == DynamicContext.VariableDependency.AVG
+                        ? _accumulator.getAverage()
+                        : _accumulator.getSum());
+            }
+        } else {
+            Item partialResult = getPartialResult(buffer);
+            if (partialResult != null) {
+                result.add(partialResult);
+            }
+        }
+        if (!result.isEmpty()) {
+            for (int index = _lookupKeys.size() - 1; index >= 0; index--) {
+                List<String> keys = new ArrayList<>(1);
+                keys.add(_lookupKeys.get(index));
+                result.set(0, ItemFactory.getInstance().createObjectItem(
+                        keys, new ArrayList<>(result), ItemMetadata.fromIteratorMetadata(_metadata)));
+            }
+        }
+        return DataFrameUtils.serializeItemList(result, _kryo, _output);
+    }
+
+    private void checkValue(Item value) {
+        if (_dependency == DynamicContext.VariableDependency.SUM && !value.isNumeric()) {
+            throw new InvalidArgumentTypeException("Sum expression has non numeric args " +
+                    value.serialize(), _metadata);
+        }
+        if (_dependency == DynamicContext.VariableDependency.AVG && !value.isNumeric()) {
+            throw new InvalidArgumentTypeException("Average expression has non numeric args " +
+                    value.serialize(), _metadata);
+        }
+    }
+
+    private boolean isNativeInput() {
+        return _inputType.equals(DataTypes.StringType)
+                || _inputType.equals(DataTypes.IntegerType)
+                || _inputType.equals(DataTypes.DoubleType)
+                || _inputType.equals(DataTypes.BooleanType);
+    }
+
+    private boolean isNumericAggregation() {
+        return _dependency == DynamicContext.VariableDependency.SUM
+                || _dependency == DynamicContext.VariableDependency.AVG;
+    }
+
+    private Item combine(Item partialResult, Item value) {
+        switch (_dependency) {
+            case MAX:
+            case MIN:
+                if (partialResult == null) {
+                    return value;
+                }
+                int comparison;
+                try {
+                    comparison = _comparator.compare(value, partialResult);
+                } catch (SparksoniqRuntimeException e) {
+                    throw new InvalidArgumentTypeException(
+                            (_dependency == DynamicContext.VariableDependency.MAX ? "Max" : "Min")
+                                    + " expression input error. Input has to be non-null atomics of matching types: "
+                                    + e.getMessage(), _metadata);
+                }
+                if (_dependency == DynamicContext.VariableDependency.MAX ? comparison > 0 : comparison < 0) {
+                    return value;
+                }
+                return partialResult;
+            default:
+                throw new SparksoniqRuntimeException("Unexpected aggregation in group by clause.");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Item getPartialResult(Row buffer) {
+        if (isNativeInput()) {
+            return buffer.isNullAt(0) ? null : DataFrameUtils.deserializeNativeValue(buffer.get(0));
+        }
+        List<Item> partialResult = (List<Item>) DataFrameUtils.deserializeByteArray(
+                (byte[]) buffer.get(0), _kryo, _input);
+        return partialResult.isEmpty() ? null : partialResult.get(0);
+    }
+
+    private void setPartialResult(MutableAggregationBuffer buffer, Item partialResult) {
+        if (isNativeInput()) {
+            buffer.update(0, DataFrameUtils.serializeItemToColumnValue(partialResult, _inputType, _kryo, _output));
+            return;
+        }
+        List<Item> partialResultList = new ArrayList<>(1);
+        partialResultList.add(partialResult);
+        buffer.update(0, DataFrameUtils.serializeItemList(partialResultList, _kryo, _output));
+    }
+
+    private void readObject(java.io.ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+
+        _kryo = new Kryo();
+        _kryo.setReferences(false);
+        DataFrameUtils.registerKryoClassesKryo(_kryo);
+        _output = new Output(128, -1);
+        _input = new Input();
+        _accumulator = new NumericAccumulator();
+        _otherAccumulator = new NumericAccumulator();
+    }
+}
@@ -27,7 +27,6 @@ import org.apache.spark.sql.RowFactory;
 import org.apache.spark.sql.api.java.UDF1;
 import org.rumbledb.api.Item;
 
-import scala.collection.mutable.WrappedArray;
 import sparksoniq.exceptions.UnexpectedTypeException;
 import sparksoniq.jsoniq.runtime.iterator.primary.VariableReferenceIterator;
 import sparksoniq.semantics.DynamicContext;
@@ -37,7 +36,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-public class GroupClauseCreateColumnsUDF implements UDF1<WrappedArray<byte[]>, Row> {
+public class GroupClauseCreateColumnsUDF implements UDF1<Row, Row> {
 
 	private static final long serialVersionUID = 1L;
 	private List<VariableReferenceIterator> _expressions;
@@ -52,12 +51,13 @@ public class GroupClauseCreateColumnsUDF implements UDF1<WrappedArray<byte[]>, R
 
     public GroupClauseCreateColumnsUDF(
             List<VariableReferenceIterator> expressions,
+            DynamicContext context,
             List<String> inputColumnNames) {
         _expressions = expressions;
         _inputColumnNames = inputColumnNames;
 
         _deserializedParams = new ArrayList<>();
-        _context = new DynamicContext();
+        _context = new DynamicContext(context);
         _results = new ArrayList<>();
         
         _kryo = new Kryo();
@@ -67,11 +67,11 @@ public class GroupClauseCreateColumnsUDF implements UDF1<WrappedArray<byte[]>, R
     }
 
     @Override
-    public Row call(WrappedArray<byte[]> wrappedParameters) {
+    public Row call(Row wrappedParameters) {
         _deserializedParams.clear();
         _results.clear();
 
-        DataFrameUtils.deserializeWrappedParameters(wrappedParameters, _deserializedParams, _kryo, _input);
+        DataFrameUtils.deserializeRowParameters(wrappedParameters, _deserializedParams, _kryo, _input);
 
         for (int expressionIndex = 0; expressionIndex < _expressions.size(); expressionIndex++) {
             VariableReferenceIterator expression = _expressions.get(expressionIndex);
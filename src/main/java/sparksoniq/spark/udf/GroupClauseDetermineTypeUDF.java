@@ -20,13 +20,13 @@
 
 package sparksoniq.spark.udf;
 
+import org.apache.spark.sql.Row;
 import org.apache.spark.sql.api.java.UDF1;
 import org.rumbledb.api.Item;
 
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Input;
 
-import scala.collection.mutable.WrappedArray;
 import sparksoniq.exceptions.SparksoniqRuntimeException;
 import sparksoniq.exceptions.UnexpectedTypeException;
 import sparksoniq.jsoniq.runtime.iterator.primary.VariableReferenceIterator;
@@ -37,7 +37,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-public class GroupClauseDetermineTypeUDF implements UDF1<WrappedArray<byte[]>, List<String>> {
+public class GroupClauseDetermineTypeUDF implements UDF1<Row, List<String>> {
 
 	private static final long serialVersionUID = 1L;
 	private List<VariableReferenceIterator> _expressions;
@@ -53,12 +53,13 @@ public class GroupClauseDetermineTypeUDF implements UDF1<WrappedArray<byte[]>, L
 
     public GroupClauseDetermineTypeUDF(
             List<VariableReferenceIterator> expressions,
+            DynamicContext context,
             List<String> inputColumnNames) {
         _expressions = expressions;
         _inputColumnNames = inputColumnNames;
 
         _deserializedParams = new ArrayList<>();
-        _context = new DynamicContext();
+        _context = new DynamicContext(context);
         result = new ArrayList<>();
         
         _kryo = new Kryo();
@@ -68,11 +69,11 @@ public class GroupClauseDetermineTypeUDF implements UDF1<WrappedArray<byte[]>, L
     }
 
     @Override
-    public List<String> call(WrappedArray<byte[]> wrappedParameters) {
+    public List<String> call(Row wrappedParameters) {
         _deserializedParams.clear();
         result.clear();
 
-        DataFrameUtils.deserializeWrappedParameters(wrappedParameters, _deserializedParams, _kryo, _input);
+        DataFrameUtils.deserializeRowParameters(wrappedParameters, _deserializedParams, _kryo, _input);
 
         for (VariableReferenceIterator expression : _expressions) {
             // prepare dynamic context
@@ -18,55 +18,73 @@
  *
  */
 
+
 package sparksoniq.spark.udf;
 
+import org.apache.spark.sql.Row;
 import org.apache.spark.sql.api.java.UDF1;
 import org.rumbledb.api.Item;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 
-import sparksoniq.jsoniq.item.IntegerItem;
 import sparksoniq.spark.DataFrameUtils;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-public class CountClauseSerializeUDF implements UDF1<Long, byte[]> {
-
+/**
+ * Looks up a chain of keys in the items of a variable, like $x.k1.k2 does, so that a group by clause only
+ * aggregates the looked-up values of a variable that is only used as, e.g., sum($x.k1.k2).
+ */
+public class GroupClauseLookupUDF implements UDF1<Row, byte[]> {
 
 	private static final long serialVersionUID = 1L;
+	private final List<String> _keys;
 
-	private List<Item> _nextResult;
-    
     private transient Kryo _kryo;
     private transient Output _output;
+    private transient Input _input;
+
+    public GroupClauseLookupUDF(List<String> keys) {
+        _keys = keys;
 
-    public CountClauseSerializeUDF() {
-        _nextResult = new ArrayList<>();
-        
         _kryo = new Kryo();
         _kryo.setReferences(false);
         DataFrameUtils.registerKryoClassesKryo(_kryo);
         _output = new Output(128, -1);
+        _input = new Input();
     }
 
     @Override
-    public byte[] call(Long countIndex) {
-        _nextResult.clear();
-        _nextResult.add(new IntegerItem(countIndex.intValue()));
-
-        return DataFrameUtils.serializeItemList(_nextResult, _kryo, _output);
+    public byte[] call(Row wrappedParameters) {
+        List<Item> items = DataFrameUtils.deserializeRowField(wrappedParameters, 0, _kryo, _input);
+        for (String key : _keys) {
+            List<Item> values = new ArrayList<>();
+            for (Item item : items) {
+                // only objects with the key contribute a value
+                if (item.isObject()) {
+                    Item value = item.getItemByKey(key);
+                    if (value != null) {
+                        values.add(value);
+                    }
+                }
+            }
+            items = values;
+        }
+        return DataFrameUtils.serializeItemList(items, _kryo, _output);
     }
-    
+
     private void readObject(java.io.ObjectInputStream in)
             throws IOException, ClassNotFoundException {
         in.defaultReadObject();
-        
+
         _kryo = new Kryo();
         _kryo.setReferences(false);
         DataFrameUtils.registerKryoClassesKryo(_kryo);
         _output = new Output(128, -1);
+        _input = new Input();
     }
 }
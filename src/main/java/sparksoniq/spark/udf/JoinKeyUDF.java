@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.spark.udf;
+
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.api.java.UDF1;
+import org.rumbledb.api.Item;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+
+import sparksoniq.exceptions.NonAtomicKeyException;
+import sparksoniq.exceptions.SparksoniqRuntimeException;
+import sparksoniq.exceptions.UnexpectedTypeException;
+import sparksoniq.jsoniq.item.AtomicItem;
+import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
+import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
+import sparksoniq.semantics.DynamicContext;
+import sparksoniq.spark.DataFrameUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluates one side of an equality predicate into join keys, such that two items are equal
+ * if and only if their keys are equal (see AtomicItem.getComparisonKey()).
+ *
+ * The join never pairs keys of different types, so the keys are also checked against the type of the keys
+ * of the other side, raising XPTY0004 like the nested loop comparing them would.
+ */
+public class JoinKeyUDF implements UDF1<Row, List<String>> {
+
+    /**
+     * The key of null (see AtomicItem.getComparisonKey()), which can be compared with the keys of all types.
+     */
+    public static final String NULL_KEY = "null";
+
+	private static final long serialVersionUID = 1L;
+	private RuntimeIterator _expression;
+    List<String> _columnNames;
+    private boolean _isValueComparison;
+    private String _keyType;
+    private boolean _isTypeProbe;
+    private IteratorMetadata _metadata;
+
+    private List<List<Item>> _deserializedParams;
+    private DynamicContext _context;
+    private List<String> _results;
+
+    private transient Kryo _kryo;
+    private transient Input _input;
+
+    public JoinKeyUDF(
+            RuntimeIterator expression,
+            DynamicContext context,
+            List<String> columnNames,
+            boolean isValueComparison,
+            String keyType,
+            boolean isTypeProbe,
+            IteratorMetadata metadata) {
+        _expression = expression;
+        _columnNames = columnNames;
+        _isValueComparison = isValueComparison;
+        _keyType = keyType;
+        _isTypeProbe = isTypeProbe;
+        _metadata = metadata;
+
+        _deserializedParams = new ArrayList<>();
+        _context = new DynamicContext(context);
+        _results = new ArrayList<>();
+
+        _kryo = new Kryo();
+        _kryo.setReferences(false);
+        DataFrameUtils.registerKryoClassesKryo(_kryo);
+        _input = new Input();
+    }
+
+    @Override
+    public List<String> call(Row wrappedParameters) {
+        _deserializedParams.clear();
+        _context.removeAllVariables();
+        _results.clear();
+
+        DataFrameUtils.deserializeRowParameters(wrappedParameters, _deserializedParams, _kryo, _input);
+
+        DataFrameUtils.prepareDynamicContext(_context, _columnNames, _deserializedParams);
+
+        // apply expression in the dynamic context
+        _expression.open(_context);
+        int itemCount = 0;
+        while (_expression.hasNext()) {
+            Item nextItem = _expression.next();
+            if (_isValueComparison && ++itemCount > 1) {
+                _expression.close();
+                throw new UnexpectedTypeException("Invalid args. Value comparison can't be performed on sequences with more than 1 items", _metadata);
+            }
+            String key = getKey(nextItem);
+            if (key == null) {
+                continue;
+            }
+            if (_keyType != null && !key.equals(NULL_KEY) && !getKeyType(key).equals(_keyType)) {
+                _expression.close();
+                throw new UnexpectedTypeException("Invalid args. Join keys of types " + getKeyType(key) + " and "
+                        + _keyType + " can't be compared", _metadata);
+            }
+            // NaN is not equal to any number, including itself, so it is never paired, but its type is probed
+            if (_isTypeProbe || !isNaN(nextItem)) {
+                _results.add(key);
+            }
+        }
+        _expression.close();
+
+        return _results;
+    }
+
+    private String getKey(Item item) {
+        if (item.isArray()) {
+            throw new NonAtomicKeyException("Invalid args. Comparison can't be performed on array type", _metadata.getExpressionMetadata());
+        }
+        if (item.isObject()) {
+            throw new NonAtomicKeyException("Invalid args. Comparison can't be performed on object type", _metadata.getExpressionMetadata());
+        }
+        return AtomicItem.getComparisonKey(item);
+    }
+
+    private static boolean isNaN(Item item) {
+        return item.isDouble() && Double.isNaN(item.getDoubleValue());
+    }
+
+    /**
+     * @param key a key other than the null key
+     * @return the name of the type of the key, keys of different types can't be compared
+     */
+    public static String getKeyType(String key) {
+        switch (key.substring(0, 1)) {
+            case "n":
+            case "d":
+                return "numeric";
+            case "s":
+                return "string";
+            case "b":
+                return "boolean";
+            default:
+                throw new SparksoniqRuntimeException("Unrecognized join key: " + key + ".");
+        }
+    }
+
+    private void readObject(java.io.ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+
+        _kryo = new Kryo();
+        _kryo.setReferences(false);
+        DataFrameUtils.registerKryoClassesKryo(_kryo);
+        _input = new Input();
+    }
+}
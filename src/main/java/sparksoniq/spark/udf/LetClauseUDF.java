@@ -20,6 +20,7 @@
 
 package sparksoniq.spark.udf;
 
+import org.apache.spark.sql.Row;
 import org.apache.spark.sql.api.java.UDF1;
 import org.rumbledb.api.Item;
 
@@ -27,7 +28,6 @@ import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 
-import scala.collection.mutable.WrappedArray;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.semantics.DynamicContext;
 import sparksoniq.spark.DataFrameUtils;
@@ -36,7 +36,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-public class LetClauseUDF implements UDF1<WrappedArray<byte[]>, byte[]> {
+public class LetClauseUDF implements UDF1<Row, byte[]> {
 
 	private static final long serialVersionUID = 1L;
 	private RuntimeIterator _expression;
@@ -53,11 +53,12 @@ public class LetClauseUDF implements UDF1<WrappedArray<byte[]>, byte[]> {
     
     public LetClauseUDF(
             RuntimeIterator expression,
+            DynamicContext context,
             List<String> columnNames) {
         _expression = expression;
 
         _deserializedParams = new ArrayList<>();
-        _context = new DynamicContext();
+        _context = new DynamicContext(context);
         _nextResult = new ArrayList<>();
         
         _kryo = new Kryo();
@@ -71,12 +72,12 @@ public class LetClauseUDF implements UDF1<WrappedArray<byte[]>, byte[]> {
 
 
     @Override
-    public byte[] call(WrappedArray<byte[]> wrappedParameters) {
+    public byte[] call(Row wrappedParameters) {
         _deserializedParams.clear();
         _context.removeAllVariables();
         _nextResult.clear();
 
-        DataFrameUtils.deserializeWrappedParameters(wrappedParameters, _deserializedParams, _kryo, _input);
+        DataFrameUtils.deserializeRowParameters(wrappedParameters, _deserializedParams, _kryo, _input);
 
         DataFrameUtils.prepareDynamicContext(_context, _columnNames, _deserializedParams);
 
@@ -17,7 +17,6 @@
  * Authors: Stefan Irimescu, Can Berker Cikis
  *
  */
-
 package sparksoniq.spark.udf;
 
 import org.apache.spark.sql.Row;
@@ -28,130 +27,224 @@ import org.rumbledb.api.Item;
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Input;
 
-import scala.collection.mutable.WrappedArray;
 import sparksoniq.exceptions.SparksoniqRuntimeException;
+import sparksoniq.exceptions.UnexpectedTypeException;
 import sparksoniq.jsoniq.compiler.translator.expr.flowr.OrderByClauseExpr;
-import sparksoniq.jsoniq.item.NullItem;
+import sparksoniq.jsoniq.runtime.metadata.IteratorMetadata;
 import sparksoniq.semantics.DynamicContext;
 import sparksoniq.spark.DataFrameUtils;
 import sparksoniq.spark.iterator.flowr.expression.OrderByClauseSparkIteratorExpression;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
 
-public class OrderClauseCreateColumnsUDF implements UDF1<WrappedArray<byte[]>, Row> {
+/**
+ * Creates two columns for every ordering expression: the type of its value (null for nulls and empty
+ * sequences), and a binary sort key. Sort keys compare byte by byte in the same order as the values they
+ * encode, so that the types of the values do not need to be known before sorting.
+ *
+ * If the expected type of the values of every expression is given, e.g., the type of the first value, a value
+ * of another type raises XPTY0004 while the keys are created, i.e., during the sort itself.
+ */
+public class OrderClauseCreateColumnsUDF implements UDF1<Row, Row> {
 
     private static final long serialVersionUID = 1L;
+
+    // nulls and empty sequences have special ordering captured in the first byte of the sort key
+    private static final int EMPTY_SEQUENCE_LEAST_TAG = 1;      // by default, empty sequence is taken as first(=least)
+    private static final int NULL_TAG = 2;                      // null is the smallest value except empty sequence(default)
+    private static final int VALUE_TAG = 3;                     // values are larger than null and empty sequence(default)
+    private static final int EMPTY_SEQUENCE_GREATEST_TAG = 4;
+
+    // types of values that can be compared with each other
+    public static final int BOOLEAN_TYPE = 1;
+    public static final int STRING_TYPE = 2;
+    public static final int NUMERIC_TYPE = 3;
+
+    // numbers are ordered by sign first
+    private static final int NEGATIVE_INFINITY = 0;
+    private static final int NEGATIVE = 1;
+    private static final int ZERO = 2;
+    private static final int POSITIVE = 3;
+    private static final int POSITIVE_INFINITY = 4;
+    private static final int NAN = 5;                           // NaN is the greatest number, as in Spark
+
     private List<OrderByClauseSparkIteratorExpression> _expressions;
-    Map<String, DynamicContext.VariableDependency> _dependencies;
+    private final int[] _valueTypes;
+    private final IteratorMetadata _metadata;
 
     List<String> _columnNames;
-    private Map<Integer, String> _allColumnTypes;
 
     private List<List<Item>> _deserializedParams;
     private DynamicContext _context;
     private List<Object> _results;
-    
+
     private transient Kryo _kryo;
     private transient Input _input;
-
+    private transient ByteArrayOutputStream _key;
+
+    /**
+     * @param expressions the ordering expressions
+     * @param context     the dynamic context of the order by clause
+     * @param columnNames the names of the columns the expressions depend on
+     * @param valueTypes  the expected type of the values of every expression (0 if it returns no values), or null
+     *                    if the types are not checked
+     * @param metadata    the metadata of the order by clause, for error reporting
+     */
     public OrderClauseCreateColumnsUDF(
             List<OrderByClauseSparkIteratorExpression> expressions,
-            Map<Integer, String> allColumnTypes,
-            List<String> columnNames) {
+            DynamicContext context,
+            List<String> columnNames,
+            int[] valueTypes,
+            IteratorMetadata metadata) {
         _expressions = expressions;
-        _allColumnTypes = allColumnTypes;
+        _valueTypes = valueTypes == null ? null : valueTypes.clone();
+        _metadata = metadata;
 
         _deserializedParams = new ArrayList<>();
-        _context = new DynamicContext();
+        _context = new DynamicContext(context);
         _results = new ArrayList<>();
-        
-        _dependencies = new TreeMap<String, DynamicContext.VariableDependency>();
-        for (OrderByClauseSparkIteratorExpression expression : _expressions) {
-            _dependencies.putAll(expression.getExpression().getVariableDependencies());
-        }
+
         _columnNames = columnNames;
-        
+
         _kryo = new Kryo();
         _kryo.setReferences(false);
         DataFrameUtils.registerKryoClassesKryo(_kryo);
         _input = new Input();
+        _key = new ByteArrayOutputStream();
     }
 
     @Override
-    public Row call(WrappedArray<byte[]> wrappedParameters) {
+    public Row call(Row wrappedParameters) {
         _deserializedParams.clear();
         _context.removeAllVariables();
         _results.clear();
 
-        DataFrameUtils.deserializeWrappedParameters(wrappedParameters, _deserializedParams, _kryo, _input);
+        DataFrameUtils.deserializeRowParameters(wrappedParameters, _deserializedParams, _kryo, _input);
 
         DataFrameUtils.prepareDynamicContext(_context, _columnNames, _deserializedParams);
 
         for (int expressionIndex = 0; expressionIndex < _expressions.size(); expressionIndex++) {
             OrderByClauseSparkIteratorExpression expression = _expressions.get(expressionIndex);
-
-            // nulls and empty sequences have special ordering captured in the first sorting column
-            // if non-null, non-empty-sequence value is given, the second column is used to sort the input
-            // indices are assigned to each value type for the first column
-            int emptySequenceOrderIndex = 1;         // by default, empty sequence is taken as first(=least)
-            int nullOrderIndex = 2;                  // null is the smallest value except empty sequence(default)
-            int valueOrderIndex = 3;                 // values are larger than null and empty sequence(default)
-            if (expression.getEmptyOrder() == OrderByClauseExpr.EMPTY_ORDER.LAST) {
-                emptySequenceOrderIndex = 4;
-            }
-
             // apply expression in the dynamic context
+            Item item = null;
             expression.getExpression().open(_context);
-            boolean isEmptySequence = true;
-            while (expression.getExpression().hasNext()) {
-                isEmptySequence = false;
-                Item nextItem = expression.getExpression().next();
-                if (nextItem instanceof NullItem) {
-                    _results.add(nullOrderIndex);
-                    _results.add(null);     // placeholder for valueColumn(2nd column)
-                } else {
-                    // any other atomic type
-                    _results.add(valueOrderIndex);
-
-                    // extract type information for the sorting column
-                    String typeName = _allColumnTypes.get(expressionIndex);
-
-                    if (typeName.equals("bool")) {
-                        _results.add(nextItem.getBooleanValue());
-                    } else if (typeName.equals("string")) {
-                        _results.add(nextItem.getStringValue());
-                    } else if (typeName.equals("integer")) {
-                        _results.add(nextItem.castToIntegerValue());
-                    } else if (typeName.equals("double")) {
-                        _results.add(nextItem.castToDoubleValue());
-                    } else if (typeName.equals("decimal")) {
-                        _results.add(nextItem.castToDecimalValue());
-                    } else {
-                        throw new SparksoniqRuntimeException("Unexpected ordering type found while creating columns.");
-                    }
+            if (expression.getExpression().hasNext()) {
+                item = expression.getExpression().next();
+                if (expression.getExpression().hasNext()) {
+                    expression.getExpression().close();
+                    throw new UnexpectedTypeException("Can not order by variables with sequences of multiple items.", expression.getIteratorMetadata());
                 }
             }
-            if (isEmptySequence) {
-                _results.add(emptySequenceOrderIndex);
-                _results.add(null);     // placeholder for valueColumn(2nd column)
-            }
             expression.getExpression().close();
 
+            _key.reset();
+            if (item == null) {
+                _results.add(null);
+                _key.write(expression.getEmptyOrder() == OrderByClauseExpr.EMPTY_ORDER.LAST
+                        ? EMPTY_SEQUENCE_GREATEST_TAG
+                        : EMPTY_SEQUENCE_LEAST_TAG);
+            } else if (item.isNull()) {
+                _results.add(null);
+                _key.write(NULL_TAG);
+            } else if (item.isArray() || item.isObject()) {
+                throw new UnexpectedTypeException("Order by variable can not contain arrays or objects.", expression.getIteratorMetadata());
+            } else {
+                _key.write(VALUE_TAG);
+                if (item.isBoolean()) {
+                    addValueType(expressionIndex, BOOLEAN_TYPE);
+                    _key.write(item.getBooleanValue() ? 1 : 0);
+                } else if (item.isString()) {
+                    addValueType(expressionIndex, STRING_TYPE);
+                    // unsigned UTF-8 bytes compare in code point order
+                    byte[] bytes = item.getStringValue().getBytes(StandardCharsets.UTF_8);
+                    _key.write(bytes, 0, bytes.length);
+                } else if (item.isNumeric()) {
+                    addValueType(expressionIndex, NUMERIC_TYPE);
+                    writeNumericKey(item);
+                } else {
+                    throw new SparksoniqRuntimeException("Unexpected type found.");
+                }
+            }
+            _results.add(_key.toByteArray());
         }
         return RowFactory.create(_results.toArray());
     }
-    
+
+    private void addValueType(int expressionIndex, int type) {
+        if (_valueTypes != null) {
+            if (_valueTypes[expressionIndex] == 0) {
+                // no value was expected, which only happens if the input changed since the types were determined
+                _valueTypes[expressionIndex] = type;
+            } else if (_valueTypes[expressionIndex] != type) {
+                throw new UnexpectedTypeException("Order by variable must contain values of a single type.", _metadata);
+            }
+        }
+        _results.add(type);
+    }
+
+    /**
+     * Integers, decimals and doubles are all encoded from their exact decimal value 0.d1d2...dn * 10^exponent
+     * as a sign byte, the exponent and the digits, all of which are inverted for negative numbers.
+     */
+    private void writeNumericKey(Item item) {
+        BigDecimal value;
+        if (item.isDouble()) {
+            double doubleValue = item.getDoubleValue();
+            if (Double.isNaN(doubleValue)) {
+                _key.write(NAN);
+                return;
+            }
+            if (Double.isInfinite(doubleValue)) {
+                _key.write(doubleValue > 0 ? POSITIVE_INFINITY : NEGATIVE_INFINITY);
+                return;
+            }
+            value = new BigDecimal(doubleValue);
+        } else {
+            value = item.castToDecimalValue();
+        }
+
+        int sign = value.signum();
+        if (sign == 0) {
+            _key.write(ZERO);
+            return;
+        }
+        value = value.abs().stripTrailingZeros();
+        String digits = value.unscaledValue().toString();
+        int exponent = digits.length() - value.scale();
+
+        _key.write(sign > 0 ? POSITIVE : NEGATIVE);
+        // flipping the sign bit makes the exponent compare correctly as unsigned bytes
+        int exponentKey = exponent ^ Integer.MIN_VALUE;
+        if (sign < 0) {
+            exponentKey = ~exponentKey;
+        }
+        _key.write(exponentKey >>> 24);
+        _key.write(exponentKey >>> 16);
+        _key.write(exponentKey >>> 8);
+        _key.write(exponentKey);
+        for (int index = 0; index < digits.length(); index++) {
+            char digit = digits.charAt(index);
+            _key.write(sign > 0 ? digit : 0xFF - digit);
+        }
+        if (sign < 0) {
+            // a shorter negative number is greater than a longer one with the same prefix
+            _key.write(0xFF);
+        }
+    }
+
     private void readObject(java.io.ObjectInputStream in)
             throws IOException, ClassNotFoundException {
         in.defaultReadObject();
-        
+
         _kryo = new Kryo();
         _kryo.setReferences(false);
         DataFrameUtils.registerKryoClassesKryo(_kryo);
         _input = new Input();
+        _key = new ByteArrayOutputStream();
     }
 }
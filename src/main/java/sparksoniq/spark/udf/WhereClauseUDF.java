@@ -20,6 +20,7 @@
 
 package sparksoniq.spark.udf;
 
+import org.apache.spark.sql.Row;
 import org.apache.spark.sql.api.java.UDF1;
 import org.apache.spark.sql.types.StructType;
 import org.rumbledb.api.Item;
@@ -27,7 +28,6 @@ import org.rumbledb.api.Item;
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Input;
 
-import scala.collection.mutable.WrappedArray;
 import sparksoniq.jsoniq.item.BooleanItem;
 import sparksoniq.jsoniq.runtime.iterator.RuntimeIterator;
 import sparksoniq.semantics.DynamicContext;
@@ -38,7 +38,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
-public class WhereClauseUDF implements UDF1<WrappedArray<byte[]>, Boolean> {
+public class WhereClauseUDF implements UDF1<Row, Boolean> {
 	  private static final long serialVersionUID = 1L;
     private RuntimeIterator _expression;
     Map<String, DynamicContext.VariableDependency> _dependencies;
@@ -53,12 +53,13 @@ public class WhereClauseUDF implements UDF1<WrappedArray<byte[]>, Boolean> {
 
     public WhereClauseUDF(
             RuntimeIterator expression,
+            DynamicContext context,
             StructType inputSchema,
             List<String> columnNames) {
         _expression = expression;
 
         _deserializedParams = new ArrayList<>();
-        _context = new DynamicContext();
+        _context = new DynamicContext(context);
         
         _kryo = new Kryo();
         _kryo.setReferences(false);
@@ -72,11 +73,11 @@ public class WhereClauseUDF implements UDF1<WrappedArray<byte[]>, Boolean> {
 
 
     @Override
-    public Boolean call(WrappedArray<byte[]> wrappedParameters) {
+    public Boolean call(Row wrappedParameters) {
         _deserializedParams.clear();
         _context.removeAllVariables();
 
-        DataFrameUtils.deserializeWrappedParameters(wrappedParameters, _deserializedParams, _kryo, _input);
+        DataFrameUtils.deserializeRowParameters(wrappedParameters, _deserializedParams, _kryo, _input);
 
         DataFrameUtils.prepareDynamicContext(_context, _columnNames, _deserializedParams);
 
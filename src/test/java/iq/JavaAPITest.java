@@ -26,12 +26,23 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.rumbledb.api.Item;
+import org.rumbledb.api.PreparedQuery;
 import org.rumbledb.api.SequenceOfItems;
 import org.rumbledb.api.Rumble;
 import org.rumbledb.api.RumbleConf;
 
+import sparksoniq.exceptions.AbsentExternalVariableException;
+import sparksoniq.jsoniq.item.ItemFactory;
 import sparksoniq.spark.SparkSessionManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class JavaAPITest {
 
@@ -121,4 +132,131 @@ public class JavaAPITest {
         	Assert.assertTrue(value.getIntegerValue() == i);
         }
     }
+
+    @Test(timeout = 1000000)
+    public void testPreparedQuery() throws Throwable {
+        Rumble rumble = new Rumble (new RumbleConf());
+        PreparedQuery query = rumble.prepareQuery(
+                "declare variable $n external; declare variable $step external := 10; "
+                        + "for $i in parallelize(1 to $n) return $i * $step");
+        Assert.assertEquals(query.getExternalVariableNames().size(), 2);
+        for (int n = 1; n <= 3; ++n)
+        {
+            Map<String, List<Item>> values = new HashMap<>();
+            values.put("n", Collections.singletonList(ItemFactory.getInstance().createIntegerItem(n)));
+            List<Item> list = query.execute(values).getAsRDD().collect();
+            Assert.assertTrue(list.size() == n);
+            for (int i = 1; i <= n; ++i)
+            {
+                Assert.assertTrue(list.get(i-1).getIntegerValue() == i * 10);
+            }
+        }
+        Map<String, List<Item>> values = new HashMap<>();
+        values.put("n", Collections.singletonList(ItemFactory.getInstance().createIntegerItem(2)));
+        values.put("step", Collections.singletonList(ItemFactory.getInstance().createIntegerItem(1)));
+        SequenceOfItems iterator = query.execute(values);
+        iterator.open();
+        List<Item> list = new ArrayList<>();
+        while (iterator.hasNext())
+        {
+            list.add(iterator.next());
+        }
+        iterator.close();
+        Assert.assertTrue(list.size() == 2);
+        Assert.assertTrue(list.get(1).getIntegerValue() == 2);
+        try {
+            query.execute();
+            Assert.fail();
+        } catch (AbsentExternalVariableException e) {
+            Assert.assertTrue(e.getMessage().contains("XPDY0002"));
+        }
+    }
+
+    @Test(timeout = 1000000)
+    public void testVariableDeclarations() throws Throwable {
+        Rumble rumble = new Rumble (new RumbleConf());
+        PreparedQuery query = rumble.prepareQuery(
+                "declare variable $a external := 2; declare variable $b external := $a * 3; "
+                        + "declare variable $c := $b + 1; $c");
+        Assert.assertEquals(query.getExternalVariableNames().size(), 2);
+        List<Item> list = getItems(query.execute());
+        Assert.assertTrue(list.size() == 1);
+        Assert.assertTrue(list.get(0).getIntegerValue() == 7);
+        Map<String, List<Item>> values = new HashMap<>();
+        values.put("a", Collections.singletonList(ItemFactory.getInstance().createIntegerItem(1)));
+        list = getItems(query.execute(values));
+        Assert.assertTrue(list.get(0).getIntegerValue() == 4);
+    }
+
+    private static List<Item> getItems(SequenceOfItems iterator) {
+        List<Item> list = new ArrayList<>();
+        iterator.open();
+        while (iterator.hasNext())
+        {
+            list.add(iterator.next());
+        }
+        iterator.close();
+        return list;
+    }
+
+    @Test(timeout = 1000000)
+    public void testConcurrentExecutions() throws Throwable {
+        Rumble rumble = new Rumble (new RumbleConf());
+        PreparedQuery query = rumble.prepareQuery(
+                "declare variable $n external; declare variable $factor external; "
+                        + "declare variable $limit := $n * 10; "
+                        + "for $i in parallelize(1 to $limit, 4) "
+                        + "let $j := $i * $factor "
+                        + "where $i le $n "
+                        + "group by $k := $i mod 2 "
+                        + "order by $k "
+                        + "count $c "
+                        + "return $c * 1000000 + sum($j)");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<List<Item>>> results = new ArrayList<>();
+            for (int execution = 0; execution < 10; ++execution)
+            {
+                Map<String, List<Item>> values = new HashMap<>();
+                values.put("n", Collections.singletonList(ItemFactory.getInstance().createIntegerItem(10)));
+                values.put("factor", Collections.singletonList(
+                        ItemFactory.getInstance().createIntegerItem(execution % 2 + 1)));
+                results.add(executor.submit(() -> query.execute(values).getAsRDD().collect()));
+            }
+            for (int execution = 0; execution < 10; ++execution)
+            {
+                int factor = execution % 2 + 1;
+                List<Item> list = results.get(execution).get();
+                Assert.assertTrue(list.size() == 2);
+                // the even numbers up to 10 sum up to 30, the odd ones to 25
+                Assert.assertTrue(list.get(0).getIntegerValue() == 1000000 + 30 * factor);
+                Assert.assertTrue(list.get(1).getIntegerValue() == 2000000 + 25 * factor);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(timeout = 1000000)
+    public void testStreaming() throws Throwable {
+        for (int prefetchedPartitions = 0; prefetchedPartitions <= 3; ++prefetchedPartitions)
+        {
+            RumbleConf conf = new RumbleConf();
+            conf.setStreaming(true);
+            conf.setPrefetchedPartitions(prefetchedPartitions);
+            Rumble rumble = new Rumble (conf);
+            SequenceOfItems iterator = rumble.runQuery("for $i in parallelize(1 to 1000, 10) return $i * 2");
+            Assert.assertTrue(iterator.availableAsRDD());
+            iterator.open();
+            // the items are not capped when they are streamed
+            for (int i = 1; i <= 1000; ++i)
+            {
+                Assert.assertTrue(iterator.hasNext());
+                Assert.assertTrue(iterator.next().getIntegerValue() == i * 2);
+            }
+            Assert.assertTrue(!iterator.hasNext());
+            iterator.close();
+            Assert.assertTrue(!iterator.isOpen());
+        }
+    }
 }